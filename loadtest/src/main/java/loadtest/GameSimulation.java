@@ -0,0 +1,286 @@
+package loadtest;
+
+import chess.*;
+import serialization.JsonCodec;
+import websocket.BinaryProtocol;
+import websocket.GameMirror;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.*;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One game played over two websockets: each side waits for its turn and makes a random legal move.
+ * <p>
+ * The game is done once either side has seen it end or the move budget is used up.
+ */
+final class GameSimulation {
+    private final int gameID;
+    private final int maxMoves;
+    private final LoadMetrics metrics;
+    private final JsonCodec codec;
+    private final boolean binary;
+    private final SplittableRandom random;
+    private final Player white;
+    private final Player black;
+
+    private final AtomicInteger movesMade = new AtomicInteger();
+    // when the move the opponent has not seen yet was sent, or 0
+    private final AtomicLong pendingDelivery = new AtomicLong();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    GameSimulation(int gameID, String whiteToken, String blackToken, LoadTestOptions options, long seed,
+                   LoadMetrics metrics, JsonCodec codec) {
+        this.gameID = gameID;
+        this.maxMoves = options.moves();
+        this.metrics = metrics;
+        this.codec = codec;
+        this.binary = options.binary();
+        this.random = new SplittableRandom(seed);
+        this.white = new Player(ChessGame.TeamColor.WHITE, whiteToken);
+        this.black = new Player(ChessGame.TeamColor.BLACK, blackToken);
+    }
+
+    /**
+     * Opens both sockets; each permit is handed back once that side has its CONNECT reply
+     */
+    void start(HttpClient http, URI socketUri, Semaphore handshakes) throws InterruptedException {
+        for(Player player : List.of(white, black)){
+            handshakes.acquire();
+            player.open(http, socketUri, handshakes);
+        }
+    }
+
+    private void finish(boolean success, String failure) {
+        if(finished.compareAndSet(false, true)){
+            white.close();
+            black.close();
+            metrics.gameOver(success, failure == null ? null : "game " + gameID + ": " + failure);
+        }
+    }
+
+    private final class Player implements WebSocket.Listener {
+        private final ChessGame.TeamColor color;
+        private final String authToken;
+        private final GameMirror mirror = new GameMirror();
+        private final StringBuilder text = new StringBuilder();
+        private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+
+        private volatile WebSocket socket;
+        private CompletableFuture<?> sending = CompletableFuture.completedFuture(null);
+        private Semaphore handshake;
+        private long openedAt;
+        private boolean moveInFlight = false;
+        private long moveSentAt;
+
+        Player(ChessGame.TeamColor color, String authToken) {
+            this.color = color;
+            this.authToken = authToken;
+        }
+
+        void open(HttpClient http, URI socketUri, Semaphore handshakes) {
+            handshake = handshakes;
+            openedAt = System.nanoTime();
+            http.newWebSocketBuilder().buildAsync(socketUri, this).whenComplete((ws, ex) -> {
+                if(ex != null){
+                    releaseHandshake();
+                    finish(false, "could not connect: " + ex.getMessage());
+                }
+            });
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            socket = webSocket;
+            send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameID));
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            text.append(data);
+            if(last){
+                String message = text.toString();
+                text.setLength(0);
+                metrics.bytes.add(message.length());
+                receive(decode(message));
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            byte[] chunk = new byte[data.remaining()];
+            data.get(chunk);
+            frame.writeBytes(chunk);
+            if(last){
+                byte[] message = frame.toByteArray();
+                frame.reset();
+                metrics.bytes.add(message.length);
+                receive(BinaryProtocol.decodeMessage(ByteBuffer.wrap(message)));
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            releaseHandshake();
+            finish(false, color + " socket closed by server: " + statusCode + " " + reason);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            releaseHandshake();
+            finish(false, color + " socket failed: " + error);
+        }
+
+        private ServerMessage decode(String json) {
+            ServerMessage message = codec.fromJson(json, ServerMessage.class);
+            return switch(message.getServerMessageType()){
+                case LOAD_GAME -> codec.fromJson(json, LoadGameMessage.class);
+                case ERROR -> codec.fromJson(json, ErrorMessage.class);
+                case NOTIFICATION -> codec.fromJson(json, NotificationMessage.class);
+                case MOVE_UPDATE -> codec.fromJson(json, MoveUpdateMessage.class);
+            };
+        }
+
+        private void receive(ServerMessage message) {
+            metrics.messages.increment();
+            long now = System.nanoTime();
+            switch(message){
+                case LoadGameMessage load -> {
+                    if(releaseHandshake()){
+                        metrics.connectLatency.record((now - openedAt) / 1000);
+                    }
+                    mirror.load(load);
+                    afterUpdate(now);
+                }
+                case MoveUpdateMessage update -> {
+                    if(mirror.apply(update)){
+                        afterUpdate(now);
+                    }else{
+                        // out of step: asking to connect again brings a full game
+                        metrics.resyncs.increment();
+                        send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameID));
+                    }
+                }
+                case ErrorMessage error -> {
+                    metrics.errors.increment();
+                    releaseHandshake();
+                    finish(false, color + " got " + error.getErrorMessage());
+                }
+                default -> {
+                }
+            }
+        }
+
+        private synchronized void afterUpdate(long now) {
+            ChessGame game = mirror.game();
+            if(game == null || finished.get()){
+                return;
+            }
+            boolean myTurn = game.getTeamTurn() == color;
+            if(moveInFlight && !myTurn){
+                moveInFlight = false;
+                metrics.moves.increment();
+                metrics.moveLatency.record((now - moveSentAt) / 1000);
+            }
+            if(myTurn){
+                long sentAt = pendingDelivery.getAndSet(0);
+                if(sentAt != 0){
+                    metrics.deliveryLatency.record((now - sentAt) / 1000);
+                }
+            }
+            if(game.isGameOver() || movesMade.get() >= maxMoves && !moveInFlight){
+                finish(true, null);
+                return;
+            }
+            if(!myTurn || moveInFlight){
+                return;
+            }
+            ChessMove move = randomMove(game);
+            if(move == null){
+                finish(true, null);
+                return;
+            }
+            if(movesMade.incrementAndGet() > maxMoves){
+                finish(true, null);
+                return;
+            }
+            moveInFlight = true;
+            moveSentAt = System.nanoTime();
+            pendingDelivery.set(moveSentAt);
+            send(new MakeMoveCommand(authToken, gameID, move));
+        }
+
+        private ChessMove randomMove(ChessGame game) {
+            List<ChessMove> moves = new ArrayList<>();
+            ChessBoard board = game.getBoard();
+            for(int row = 1; row <= 8; row++){
+                for(int col = 1; col <= 8; col++){
+                    ChessPosition position = new ChessPosition(row, col);
+                    ChessPiece piece = board.getPiece(position);
+                    if(piece != null && piece.getTeamColor() == color){
+                        moves.addAll(game.validMoves(position));
+                    }
+                }
+            }
+            if(moves.isEmpty()){
+                return null;
+            }
+            synchronized(random){
+                return moves.get(random.nextInt(moves.size()));
+            }
+        }
+
+        // the client only allows one send at a time, so each waits for the one before
+        private synchronized void send(UserGameCommand command) {
+            WebSocket target = socket;
+            sending = sending.thenCompose(ignored -> binary
+                    ? target.sendBinary(ByteBuffer.wrap(BinaryProtocol.encode(command)), true)
+                    : target.sendText(codec.toJson(command), true));
+            sending.exceptionally(ex -> {
+                finish(false, color + " send failed: " + ex);
+                return null;
+            });
+        }
+
+        private boolean releaseHandshake() {
+            Semaphore permit;
+            synchronized(this){
+                permit = handshake;
+                handshake = null;
+            }
+            if(permit == null){
+                return false;
+            }
+            permit.release();
+            return true;
+        }
+
+        synchronized void close() {
+            WebSocket target = socket;
+            if(target != null){
+                sending = sending.handle((ignored, ex) -> null)
+                        .thenCompose(ignored -> target.sendClose(WebSocket.NORMAL_CLOSURE, "done"));
+            }
+        }
+    }
+}
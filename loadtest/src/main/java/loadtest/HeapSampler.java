@@ -0,0 +1,111 @@
+package loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the server's heap gauges off /metrics every so often.
+ * <p>
+ * The metrics page is only served to the server's own machine, so against a remote server
+ * this quietly records nothing.
+ */
+final class HeapSampler {
+    /**
+     * @param afterGcBytes heap still live after the last collection, which is what grows when memory leaks
+     */
+    record Sample(double seconds, long usedBytes, long afterGcBytes) {}
+
+    private final HttpClient http;
+    private final URI metrics;
+    private final List<Sample> samples = new ArrayList<>();
+    private volatile boolean available = true;
+    private Thread thread;
+
+    HeapSampler(HttpClient http, URI base) {
+        this.http = http;
+        this.metrics = base.resolve("metrics");
+    }
+
+    void start(Duration interval) {
+        long started = System.nanoTime();
+        thread = Thread.ofVirtual().name("heap-sampler").start(() -> {
+            while(available && !Thread.currentThread().isInterrupted()){
+                sample(started);
+                try{
+                    Thread.sleep(interval);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        });
+    }
+
+    List<Sample> stop() throws InterruptedException {
+        if(thread != null){
+            thread.interrupt();
+            thread.join();
+        }
+        synchronized(samples){
+            return List.copyOf(samples);
+        }
+    }
+
+    private void sample(long started) {
+        try{
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(metrics).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if(response.statusCode() != 200){
+                available = false;
+                return;
+            }
+            Sample sample = new Sample((System.nanoTime() - started) / 1e9,
+                    gauge(response.body(), "chess_jvm_heap_used_bytes"),
+                    gauge(response.body(), "chess_jvm_heap_after_gc_bytes"));
+            synchronized(samples){
+                samples.add(sample);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            available = false;
+        }
+    }
+
+    private static long gauge(String page, String name) {
+        for(String line : page.split("\n")){
+            if(line.startsWith(name + " ")){
+                return (long) Double.parseDouble(line.substring(name.length() + 1).trim());
+            }
+        }
+        throw new IllegalStateException("server does not report " + name);
+    }
+
+    /**
+     * @return least-squares slope of after-collection heap in bytes per hour, or null with fewer than two samples
+     */
+    static Double growthPerHour(List<Sample> samples) {
+        if(samples.size() < 2){
+            return null;
+        }
+        double meanX = 0;
+        double meanY = 0;
+        for(Sample sample : samples){
+            meanX += sample.seconds();
+            meanY += sample.afterGcBytes();
+        }
+        meanX /= samples.size();
+        meanY /= samples.size();
+        double covariance = 0;
+        double variance = 0;
+        for(Sample sample : samples){
+            covariance += (sample.seconds() - meanX) * (sample.afterGcBytes() - meanY);
+            variance += (sample.seconds() - meanX) * (sample.seconds() - meanX);
+        }
+        return variance == 0 ? null : covariance / variance * 3600;
+    }
+}
@@ -0,0 +1,99 @@
+package loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for an HTTP load or soak run, given as --name=value arguments:
+ * <ul>
+ *     <li>url: server to test; by default a server is started in this JVM</li>
+ *     <li>duration: seconds to measure for, default 30</li>
+ *     <li>warmup: seconds to run before measuring, default 5</li>
+ *     <li>soak: hours to run instead of duration, sampling the heap every minute</li>
+ *     <li>clients: requests in flight at once, default 32</li>
+ *     <li>rate: requests per second over all clients; 0 (default) sends as fast as replies come back</li>
+ *     <li>users: accounts registered up front to log in as, default 100</li>
+ *     <li>mix: weight per operation, default list=40,get=20,login=10,create=10,join=10,register=10</li>
+ *     <li>heapInterval: seconds between heap samples, default 5</li>
+ *     <li>report: where to write the JSON report, default http-load-report.json</li>
+ *     <li>codec: JSON codec, which must match the server's; default streaming</li>
+ *     <li>seed: for the random choices, default 1</li>
+ * </ul>
+ */
+public record HttpLoadOptions(String url, Duration duration, Duration warmup, int clients, int rate, int users,
+                              Map<HttpOperation, Integer> mix, Duration heapInterval, Path report, String codec,
+                              long seed) {
+    public static final String DEFAULT_MIX = "list=40,get=20,login=10,create=10,join=10,register=10";
+
+    public static HttpLoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for(String arg : args){
+            if(!arg.startsWith("--") || !arg.contains("=")){
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return of(values);
+    }
+
+    public static HttpLoadOptions of(Map<String, String> values) {
+        Map<String, String> remaining = new HashMap<>(values);
+        String url = remaining.remove("url");
+        Duration duration = Duration.ofSeconds(number(remaining, "duration", 30, 1));
+        Duration heapInterval = Duration.ofSeconds(number(remaining, "heapInterval", 5, 1));
+        String soak = remaining.remove("soak");
+        if(soak != null){
+            duration = Duration.ofMinutes(Math.round(Double.parseDouble(soak) * 60));
+            if(!values.containsKey("heapInterval")){
+                heapInterval = Duration.ofMinutes(1);
+            }
+        }
+        Duration warmup = Duration.ofSeconds(number(remaining, "warmup", 5, 0));
+        int clients = number(remaining, "clients", 32, 1);
+        int rate = number(remaining, "rate", 0, 0);
+        int users = number(remaining, "users", 100, 1);
+        Map<HttpOperation, Integer> mix = parseMix(remaining.getOrDefault("mix", DEFAULT_MIX));
+        remaining.remove("mix");
+        Path report = Path.of(remaining.getOrDefault("report", "http-load-report.json"));
+        remaining.remove("report");
+        String codec = remaining.getOrDefault("codec", "streaming");
+        remaining.remove("codec");
+        long seed = Long.parseLong(remaining.getOrDefault("seed", "1"));
+        remaining.remove("seed");
+        if(!remaining.isEmpty()){
+            throw new IllegalArgumentException("unknown option --" + remaining.keySet().iterator().next());
+        }
+        return new HttpLoadOptions(url, duration, warmup, clients, rate, users, mix, heapInterval, report, codec, seed);
+    }
+
+    static Map<HttpOperation, Integer> parseMix(String mix) {
+        Map<HttpOperation, Integer> weights = new EnumMap<>(HttpOperation.class);
+        for(String part : mix.split(",")){
+            String[] pair = part.trim().split("=");
+            if(pair.length != 2){
+                throw new IllegalArgumentException("mix entries look like list=40, not " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if(weight < 0){
+                throw new IllegalArgumentException("mix weights cannot be negative");
+            }
+            weights.put(HttpOperation.named(pair[0].trim()), weight);
+        }
+        if(weights.values().stream().mapToInt(Integer::intValue).sum() == 0){
+            throw new IllegalArgumentException("mix needs at least one positive weight");
+        }
+        return weights;
+    }
+
+    private static int number(Map<String, String> values, String name, int fallback, int min) {
+        String value = values.remove(name);
+        int number = value == null ? fallback : Integer.parseInt(value);
+        if(number < min){
+            throw new IllegalArgumentException("--" + name + " must be at least " + min);
+        }
+        return number;
+    }
+}
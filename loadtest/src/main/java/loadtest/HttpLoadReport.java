@@ -0,0 +1,62 @@
+package loadtest;
+
+import com.google.gson.GsonBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of an HTTP load run, written as JSON so runs from different builds can be compared.
+ * Latencies are in microseconds.
+ */
+public record HttpLoadReport(String startedAt, double seconds, int clients, int rate, Map<String, Integer> mix,
+                             long requests, double requestsPerSecond, Map<String, Endpoint> endpoints,
+                             List<HeapSampler.Sample> heap, Double heapGrowthBytesPerHour) {
+
+    /**
+     * @param rejected 4xx answers, e.g. a seat that was already taken
+     * @param failures requests that got no answer at all
+     */
+    public record Endpoint(long count, long ok, long rejected, long serverErrors, long failures, double perSecond,
+                           LoadReport.Latency latency) {}
+
+    public long serverErrors() {
+        return endpoints.values().stream().mapToLong(Endpoint::serverErrors).sum();
+    }
+
+    public long failures() {
+        return endpoints.values().stream().mapToLong(Endpoint::failures).sum();
+    }
+
+    public String toJson() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(this);
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("requests   %d in %.1fs = %.0f/s with %d clients%n", requests, seconds,
+                requestsPerSecond, clients));
+        out.append(String.format("%-16s %8s %8s %6s %6s %6s %9s %9s %9s %9s %9s%n", "endpoint", "count", "/s",
+                "4xx", "5xx", "fail", "p50", "p90", "p99", "p99.9", "max"));
+        endpoints.forEach((route, endpoint) -> out.append(String.format(
+                "%-16s %8d %8.0f %6d %6d %6d %9s %9s %9s %9s %9s%n", route, endpoint.count(), endpoint.perSecond(),
+                endpoint.rejected(), endpoint.serverErrors(), endpoint.failures(), millis(endpoint.latency().p50()),
+                millis(endpoint.latency().p90()), millis(endpoint.latency().p99()), millis(endpoint.latency().p999()),
+                millis(endpoint.latency().max()))));
+        if(!heap.isEmpty()){
+            HeapSampler.Sample first = heap.get(0);
+            HeapSampler.Sample last = heap.get(heap.size() - 1);
+            out.append(String.format("heap       %.1fMB -> %.1fMB live after gc", first.afterGcBytes() / 1e6,
+                    last.afterGcBytes() / 1e6));
+            if(heapGrowthBytesPerHour != null){
+                out.append(String.format(", trend %+.1fMB/hour", heapGrowthBytesPerHour / 1e6));
+            }
+            out.append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2fms", micros / 1000.0);
+    }
+}
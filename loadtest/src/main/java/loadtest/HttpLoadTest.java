@@ -0,0 +1,233 @@
+package loadtest;
+
+import model.*;
+import serialization.JsonCodec;
+import server.Server;
+import server.ServerConfig;
+import util.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the HTTP API with a weighted mix of calls and reports latency per endpoint.
+ * <p>
+ * Each client sends one request at a time. With no rate set a client sends its next request as
+ * soon as the last one is answered; with a rate the requests go out on a fixed schedule, and
+ * latency is measured from when a request was due rather than when it was actually sent, so a
+ * stalled server is charged for the requests it held up. Nothing from the warmup is counted.
+ * <p>
+ * Without --url a server is started in this JVM. See {@link HttpLoadOptions} for the arguments.
+ */
+public class HttpLoadTest {
+    // recently created games, for get and join to pick from
+    private static final int RECENT_GAMES = 4096;
+
+    private static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        void record(int status, long micros) {
+            latency.record(micros);
+            if(status < 0){
+                failures.increment();
+            }else if(status >= 500){
+                serverErrors.increment();
+            }else if(status >= 400){
+                rejected.increment();
+            }else{
+                ok.increment();
+            }
+        }
+
+        HttpLoadReport.Endpoint report(double seconds) {
+            long count = latency.count();
+            return new HttpLoadReport.Endpoint(count, ok.sum(), rejected.sum(), serverErrors.sum(), failures.sum(),
+                    seconds == 0 ? 0 : count / seconds, LoadReport.Latency.of(latency));
+        }
+    }
+
+    private final HttpClient http;
+    private final URI base;
+    private final JsonCodec codec;
+    private final HttpLoadOptions options;
+    private final String prefix = "http" + Long.toString(System.nanoTime(), 36) + "-";
+    private final Map<HttpOperation, Endpoint> endpoints = new EnumMap<>(HttpOperation.class);
+    private final AtomicIntegerArray recentGames = new AtomicIntegerArray(RECENT_GAMES);
+    private final AtomicLong gamesCreated = new AtomicLong();
+    private final AtomicLong registered = new AtomicLong();
+    private final HttpOperation[] weighted;
+    private List<AuthData> users;
+
+    private HttpLoadTest(HttpClient http, URI base, HttpLoadOptions options) {
+        this.http = http;
+        this.base = base;
+        this.codec = JsonCodec.named(options.codec());
+        this.options = options;
+        List<HttpOperation> choices = new ArrayList<>();
+        options.mix().forEach((operation, weight) -> {
+            endpoints.put(operation, new Endpoint());
+            for(int i = 0; i < weight; i++){
+                choices.add(operation);
+            }
+        });
+        this.weighted = choices.toArray(HttpOperation[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        HttpLoadOptions options = HttpLoadOptions.parse(args);
+        HttpLoadReport report = run(options);
+        Files.writeString(options.report(), report.toJson());
+        System.out.print(report.render());
+        System.out.println("report     " + options.report().toAbsolutePath());
+        System.exit(report.serverErrors() + report.failures() == 0 ? 0 : 1);
+    }
+
+    public static HttpLoadReport run(HttpLoadOptions options) throws Exception {
+        Server server = null;
+        URI base;
+        if(options.url() == null){
+            server = new Server(ServerConfig.fromSystemProperties().withJsonCodec(options.codec()));
+            base = URI.create("http://localhost:" + server.run(0) + "/");
+        }else{
+            base = URI.create(options.url().endsWith("/") ? options.url() : options.url() + "/");
+        }
+        try(HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()){
+            return new HttpLoadTest(http, base, options).load();
+        } finally {
+            if(server != null){
+                server.stop();
+            }
+        }
+    }
+
+    private HttpLoadReport load() throws Exception {
+        users = new SetupClient(http, base, codec).registerUsers(prefix, options.users());
+        HeapSampler heap = new HeapSampler(http, base);
+        String startedAt = Instant.now().toString();
+
+        long started = System.nanoTime();
+        long measureFrom = started + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        heap.start(options.heapInterval());
+        List<Thread> clients = new ArrayList<>();
+        for(int i = 0; i < options.clients(); i++){
+            int client = i;
+            clients.add(Thread.ofVirtual().name("http-client-" + i).start(() -> drive(client, started, measureFrom, end)));
+        }
+        for(Thread client : clients){
+            client.join();
+        }
+        List<HeapSampler.Sample> samples = heap.stop();
+
+        double seconds = options.duration().toNanos() / 1e9;
+        Map<String, HttpLoadReport.Endpoint> reports = new LinkedHashMap<>();
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        long requests = 0;
+        for(Map.Entry<HttpOperation, Endpoint> entry : endpoints.entrySet()){
+            HttpLoadReport.Endpoint report = entry.getValue().report(seconds);
+            reports.put(entry.getKey().route(), report);
+            mix.put(entry.getKey().name().toLowerCase(), options.mix().get(entry.getKey()));
+            requests += report.count();
+        }
+        return new HttpLoadReport(startedAt, seconds, options.clients(), options.rate(), mix, requests,
+                requests / seconds, reports, samples, HeapSampler.growthPerHour(samples));
+    }
+
+    private void drive(int client, long started, long measureFrom, long end) {
+        Random random = new Random(options.seed() * 31 + client);
+        // open loop: each client owns an equal share of the rate, offset so they do not fire together
+        long interval = options.rate() == 0 ? 0 : TimeUnit.SECONDS.toNanos(options.clients()) / options.rate();
+        long due = started + interval * client / options.clients();
+        while(true){
+            long now = System.nanoTime();
+            if(interval > 0){
+                if(due > now){
+                    try{
+                        TimeUnit.NANOSECONDS.sleep(due - now);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+                now = due;
+                due += interval;
+            }
+            if(now >= end){
+                return;
+            }
+            HttpOperation operation = weighted[random.nextInt(weighted.length)];
+            int status;
+            try{
+                status = send(operation, random);
+            } catch (IOException ex) {
+                status = -1;
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if(now >= measureFrom){
+                endpoints.get(operation).record(status, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - now));
+            }
+        }
+    }
+
+    private int send(HttpOperation operation, Random random) throws IOException, InterruptedException {
+        int i = random.nextInt(users.size());
+        AuthData user = users.get(i);
+        return switch(operation){
+            case REGISTER -> {
+                long n = registered.getAndIncrement();
+                yield call("POST", "user", null, new UserData(prefix + "r" + n, "password", prefix + n + "@load.test"))
+                        .statusCode();
+            }
+            case LOGIN -> call("POST", "session", null, new LoginRequest(user.username(), "password" + i)).statusCode();
+            case CREATE -> {
+                HttpResponse<String> response = call("POST", "game", user.authToken(),
+                        new CreateGameRequest(prefix + "g" + gamesCreated.get()));
+                if(response.statusCode() == 200){
+                    int gameID = codec.fromJson(response.body(), CreateGameResult.class).gameID();
+                    recentGames.set((int) (gamesCreated.getAndIncrement() % RECENT_GAMES), gameID);
+                }
+                yield response.statusCode();
+            }
+            case LIST -> call("GET", "game", user.authToken(), null).statusCode();
+            case GET -> call("GET", "game/" + recentGame(random), user.authToken(), null).statusCode();
+            case JOIN -> call("PUT", "game", user.authToken(),
+                    new JoinGameRequest(random.nextBoolean() ? "WHITE" : "BLACK", recentGame(random))).statusCode();
+        };
+    }
+
+    // before any game has been created this is an id the server will not find, which is still a fair request
+    private int recentGame(Random random) {
+        long created = Math.min(gamesCreated.get(), RECENT_GAMES);
+        return created == 0 ? 0 : recentGames.get(random.nextInt((int) created));
+    }
+
+    private HttpResponse<String> call(String method, String path, String authToken, Object body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(path));
+        if(body == null){
+            builder.method(method, HttpRequest.BodyPublishers.noBody());
+        }else{
+            builder.method(method, HttpRequest.BodyPublishers.ofString(codec.toJson(body)))
+                    .header("Content-Type", "application/json");
+        }
+        if(authToken != null){
+            builder.header("authorization", authToken);
+        }
+        return http.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,32 @@
+package loadtest;
+
+/**
+ * The API calls an HTTP load run mixes together, each labelled the way the server's metrics label routes
+ */
+public enum HttpOperation {
+    REGISTER("POST /user"),
+    LOGIN("POST /session"),
+    CREATE("POST /game"),
+    LIST("GET /game"),
+    GET("GET /game/:id"),
+    JOIN("PUT /game");
+
+    private final String route;
+
+    HttpOperation(String route) {
+        this.route = route;
+    }
+
+    public String route() {
+        return route;
+    }
+
+    static HttpOperation named(String name) {
+        for(HttpOperation operation : values()){
+            if(operation.name().equalsIgnoreCase(name)){
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("unknown operation " + name);
+    }
+}
@@ -0,0 +1,44 @@
+package loadtest;
+
+import util.LatencyHistogram;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What every simulated game reports into during a run
+ */
+final class LoadMetrics {
+    // from sending MAKE_MOVE until the mover sees the updated game
+    final LatencyHistogram moveLatency = new LatencyHistogram();
+    // from sending MAKE_MOVE until the opponent sees it
+    final LatencyHistogram deliveryLatency = new LatencyHistogram();
+    // from opening the socket until the CONNECT reply
+    final LatencyHistogram connectLatency = new LatencyHistogram();
+
+    final LongAdder moves = new LongAdder();
+    final LongAdder messages = new LongAdder();
+    final LongAdder bytes = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder resyncs = new LongAdder();
+    final LongAdder completed = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final AtomicReference<String> firstFailure = new AtomicReference<>();
+
+    final CountDownLatch done;
+
+    LoadMetrics(int games) {
+        this.done = new CountDownLatch(games);
+    }
+
+    void gameOver(boolean success, String failure) {
+        if(success){
+            completed.increment();
+        }else{
+            failed.increment();
+            firstFailure.compareAndSet(null, failure);
+        }
+        done.countDown();
+    }
+}
@@ -0,0 +1,59 @@
+package loadtest;
+
+import util.LatencyHistogram;
+
+/**
+ * The outcome of a load run. Latencies are in microseconds.
+ */
+public record LoadReport(int games, long completed, long failed, long moves, long errors, long resyncs,
+                         long messages, long bytes, long elapsedMillis, Latency move, Latency delivery,
+                         Latency connect, String firstFailure) {
+
+    public record Latency(long count, long p50, long p90, long p99, long p999, long max) {
+        static Latency of(LatencyHistogram histogram) {
+            return new Latency(histogram.count(), histogram.valueAtPercentile(50), histogram.valueAtPercentile(90),
+                    histogram.valueAtPercentile(99), histogram.valueAtPercentile(99.9),
+                    histogram.valueAtPercentile(100));
+        }
+    }
+
+    static LoadReport of(int games, LoadMetrics metrics, long elapsedMillis) {
+        return new LoadReport(games, metrics.completed.sum(), metrics.failed.sum(), metrics.moves.sum(),
+                metrics.errors.sum(), metrics.resyncs.sum(), metrics.messages.sum(), metrics.bytes.sum(),
+                elapsedMillis, Latency.of(metrics.moveLatency), Latency.of(metrics.deliveryLatency),
+                Latency.of(metrics.connectLatency), metrics.firstFailure.get());
+    }
+
+    public double movesPerSecond() {
+        return elapsedMillis == 0 ? 0 : moves * 1000.0 / elapsedMillis;
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("games      %d completed, %d failed, %d unfinished%n", completed, failed,
+                games - completed - failed));
+        out.append(String.format("moves      %d in %.1fs = %.0f moves/s%n", moves, elapsedMillis / 1000.0,
+                movesPerSecond()));
+        out.append(String.format("received   %d messages, %d bytes (%.0f bytes/message)%n", messages, bytes,
+                messages == 0 ? 0.0 : (double) bytes / messages));
+        out.append(String.format("errors     %d, resyncs %d%n", errors, resyncs));
+        out.append(String.format("%-10s %8s %8s %8s %8s %8s %8s%n", "latency", "count", "p50", "p90", "p99",
+                "p99.9", "max"));
+        row(out, "move", move);
+        row(out, "delivery", delivery);
+        row(out, "connect", connect);
+        if(firstFailure != null){
+            out.append("first failure: ").append(firstFailure).append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    private static void row(StringBuilder out, String name, Latency latency) {
+        out.append(String.format("%-10s %8d %8s %8s %8s %8s %8s%n", name, latency.count(), millis(latency.p50()),
+                millis(latency.p90()), millis(latency.p99()), millis(latency.p999()), millis(latency.max())));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2fms", micros / 1000.0);
+    }
+}
@@ -0,0 +1,82 @@
+package loadtest;
+
+import java.time.Duration;
+
+/**
+ * Settings for a websocket load run, given as --name=value arguments:
+ * <ul>
+ *     <li>url: server to test, e.g. http://host:8080; by default a server is started in this JVM</li>
+ *     <li>games: games played at once, default 1000</li>
+ *     <li>users: accounts the games are shared out between, default 200</li>
+ *     <li>moves: moves per game before it is counted as done, default 40</li>
+ *     <li>format: json (default) or binary frames</li>
+ *     <li>updates: full (default) LOAD_GAME after every move, or delta</li>
+ *     <li>codec: JSON codec, which must match the server's; default streaming</li>
+ *     <li>connects: websocket handshakes allowed in flight at once, default 256</li>
+ *     <li>timeout: seconds to wait for every game to finish, default 300</li>
+ *     <li>seed: for the random move choices, default 1</li>
+ * </ul>
+ */
+public record LoadTestOptions(String url, int games, int users, int moves, boolean binary, boolean deltas,
+                              String codec, int connects, Duration timeout, long seed) {
+
+    public static LoadTestOptions defaults() {
+        return new LoadTestOptions(null, 1000, 200, 40, false, false, "streaming", 256, Duration.ofSeconds(300), 1);
+    }
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = defaults();
+        for(String arg : args){
+            if(!arg.startsWith("--") || !arg.contains("=")){
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            options = options.with(name, value);
+        }
+        return options;
+    }
+
+    public LoadTestOptions with(String name, String value) {
+        return switch(name){
+            case "url" -> new LoadTestOptions(value, games, users, moves, binary, deltas, codec, connects, timeout, seed);
+            case "games" -> new LoadTestOptions(url, positive(name, value), users, moves, binary, deltas, codec,
+                    connects, timeout, seed);
+            case "users" -> new LoadTestOptions(url, games, positive(name, value), moves, binary, deltas, codec,
+                    connects, timeout, seed);
+            case "moves" -> new LoadTestOptions(url, games, users, positive(name, value), binary, deltas, codec,
+                    connects, timeout, seed);
+            case "format" -> new LoadTestOptions(url, games, users, moves, choice(name, value, "json", "binary"),
+                    deltas, codec, connects, timeout, seed);
+            case "updates" -> new LoadTestOptions(url, games, users, moves, binary, choice(name, value, "full", "delta"),
+                    codec, connects, timeout, seed);
+            case "codec" -> new LoadTestOptions(url, games, users, moves, binary, deltas, value, connects, timeout, seed);
+            case "connects" -> new LoadTestOptions(url, games, users, moves, binary, deltas, codec,
+                    positive(name, value), timeout, seed);
+            case "timeout" -> new LoadTestOptions(url, games, users, moves, binary, deltas, codec, connects,
+                    Duration.ofSeconds(positive(name, value)), seed);
+            case "seed" -> new LoadTestOptions(url, games, users, moves, binary, deltas, codec, connects, timeout,
+                    Long.parseLong(value));
+            default -> throw new IllegalArgumentException("unknown option --" + name);
+        };
+    }
+
+    private static int positive(String name, String value) {
+        int number = Integer.parseInt(value);
+        if(number <= 0){
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+        return number;
+    }
+
+    // true for the second choice
+    private static boolean choice(String name, String value, String first, String second) {
+        if(value.equals(first)){
+            return false;
+        }
+        if(value.equals(second)){
+            return true;
+        }
+        throw new IllegalArgumentException("--" + name + " must be " + first + " or " + second);
+    }
+}
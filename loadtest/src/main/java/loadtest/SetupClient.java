@@ -0,0 +1,87 @@
+package loadtest;
+
+import model.*;
+import serialization.JsonCodec;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The HTTP calls that get users and games ready before play starts
+ */
+final class SetupClient {
+    // the most the server takes in one batch call
+    private static final int BATCH = 10_000;
+
+    private final HttpClient http;
+    private final URI base;
+    private final JsonCodec codec;
+
+    SetupClient(HttpClient http, URI base, JsonCodec codec) {
+        this.http = http;
+        this.base = base;
+        this.codec = codec;
+    }
+
+    List<AuthData> registerUsers(String prefix, int count) throws IOException, InterruptedException {
+        List<AuthData> auths = new ArrayList<>(count);
+        for(int start = 0; start < count; start += BATCH){
+            List<UserData> users = new ArrayList<>();
+            for(int i = start; i < Math.min(count, start + BATCH); i++){
+                users.add(new UserData(prefix + i, "password" + i, prefix + i + "@load.test"));
+            }
+            RegisterBatchResult result = call("POST", "/user/batch", null, new RegisterBatchRequest(users),
+                    RegisterBatchResult.class);
+            auths.addAll(result.auths());
+        }
+        return auths;
+    }
+
+    List<Integer> createGames(String authToken, String prefix, int count) throws IOException, InterruptedException {
+        List<Integer> gameIDs = new ArrayList<>(count);
+        for(int start = 0; start < count; start += BATCH){
+            List<String> names = new ArrayList<>();
+            for(int i = start; i < Math.min(count, start + BATCH); i++){
+                names.add(prefix + i);
+            }
+            gameIDs.addAll(call("POST", "/game/batch", authToken, new CreateGamesRequest(names),
+                    CreateGamesResult.class).gameIDs());
+        }
+        return gameIDs;
+    }
+
+    CompletableFuture<Void> join(String authToken, int gameID, String color) {
+        return http.sendAsync(request("PUT", "/game", authToken, new JoinGameRequest(color, gameID)),
+                HttpResponse.BodyHandlers.ofString()).thenAccept(response -> check(response, "PUT /game"));
+    }
+
+    private <T> T call(String method, String path, String authToken, Object body, Class<T> type)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request(method, path, authToken, body),
+                HttpResponse.BodyHandlers.ofString());
+        check(response, method + " " + path);
+        return codec.fromJson(response.body(), type);
+    }
+
+    private HttpRequest request(String method, String path, String authToken, Object body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(path))
+                .method(method, HttpRequest.BodyPublishers.ofString(codec.toJson(body)))
+                .header("Content-Type", "application/json");
+        if(authToken != null){
+            builder.header("authorization", authToken);
+        }
+        return builder.build();
+    }
+
+    private static void check(HttpResponse<String> response, String call) {
+        if(response.statusCode() != 200){
+            throw new IllegalStateException(call + " failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package loadtest;
+
+import model.AuthData;
+import serialization.JsonCodec;
+import server.Server;
+import server.ServerConfig;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays many games at once over websockets and reports throughput and latency.
+ * <p>
+ * Users are registered and games created and joined over HTTP first; only the play itself
+ * is timed. Without --url a server is started in this JVM, set up from the usual chess.*
+ * system properties. See {@link LoadTestOptions} for the arguments.
+ */
+public class WebSocketLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        LoadReport report = run(options);
+        System.out.print(report.render());
+        System.exit(report.completed() == options.games() ? 0 : 1);
+    }
+
+    public static LoadReport run(LoadTestOptions options) throws Exception {
+        Server server = null;
+        URI base;
+        if(options.url() == null){
+            server = new Server(ServerConfig.fromSystemProperties().withJsonCodec(options.codec()));
+            base = URI.create("http://localhost:" + server.run(0) + "/");
+        }else{
+            base = URI.create(options.url().endsWith("/") ? options.url() : options.url() + "/");
+        }
+        try(HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()){
+            return play(http, base, options);
+        } finally {
+            if(server != null){
+                server.stop();
+            }
+        }
+    }
+
+    private static LoadReport play(HttpClient http, URI base, LoadTestOptions options) throws Exception {
+        JsonCodec codec = JsonCodec.named(options.codec());
+        SetupClient setup = new SetupClient(http, base, codec);
+        // names are unique per run so repeated runs against one server do not collide
+        String prefix = "load" + Long.toString(System.nanoTime(), 36) + "-";
+        int userCount = Math.max(2, Math.min(options.users(), options.games() * 2));
+        List<AuthData> users = setup.registerUsers(prefix, userCount);
+        List<Integer> gameIDs = setup.createGames(users.get(0).authToken(), prefix, options.games());
+
+        List<CompletableFuture<Void>> joins = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(options.connects());
+        for(int i = 0; i < gameIDs.size(); i++){
+            joins.add(join(setup, inFlight, whiteOf(users, i), gameIDs.get(i), "WHITE"));
+            joins.add(join(setup, inFlight, blackOf(users, i), gameIDs.get(i), "BLACK"));
+        }
+        CompletableFuture.allOf(joins.toArray(CompletableFuture[]::new)).join();
+
+        LoadMetrics metrics = new LoadMetrics(options.games());
+        URI socketUri = URI.create(base.toString().replaceFirst("^http", "ws") + "ws?format="
+                + (options.binary() ? "binary" : "json") + "&updates=" + (options.deltas() ? "delta" : "full"));
+        long started = System.nanoTime();
+        for(int i = 0; i < gameIDs.size(); i++){
+            new GameSimulation(gameIDs.get(i), whiteOf(users, i).authToken(), blackOf(users, i).authToken(), options,
+                    options.seed() * 31 + i, metrics, codec).start(http, socketUri, inFlight);
+        }
+        metrics.done.await(options.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return LoadReport.of(options.games(), metrics, elapsed);
+    }
+
+    private static CompletableFuture<Void> join(SetupClient setup, Semaphore inFlight, AuthData user, int gameID,
+                                                String color) throws InterruptedException {
+        inFlight.acquire();
+        return setup.join(user.authToken(), gameID, color).whenComplete((ignored, ex) -> inFlight.release());
+    }
+
+    private static AuthData whiteOf(List<AuthData> users, int game) {
+        return users.get(2 * game % users.size());
+    }
+
+    private static AuthData blackOf(List<AuthData> users, int game) {
+        return users.get((2 * game + 1) % users.size());
+    }
+}
@@ -0,0 +1,46 @@
+package loadtest;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Map;
+
+public class HttpLoadTestTests {
+
+    @Test
+    public void shortRunHitsEveryEndpoint() throws Exception {
+        HttpLoadReport report = HttpLoadTest.run(HttpLoadOptions.parse(new String[]{"--duration=2", "--warmup=0",
+                "--clients=4", "--users=8", "--heapInterval=1"}));
+
+        Assertions.assertEquals(0, report.serverErrors() + report.failures(), report.render());
+        Assertions.assertEquals(6, report.endpoints().size());
+        for(HttpLoadReport.Endpoint endpoint : report.endpoints().values()){
+            Assertions.assertTrue(endpoint.count() > 0, report.render());
+        }
+        Assertions.assertTrue(report.endpoints().get("GET /game").ok() > 0);
+        Assertions.assertFalse(report.heap().isEmpty());
+        Assertions.assertTrue(report.toJson().contains("\"POST /session\""));
+    }
+
+    @Test
+    public void rateLimitedRunStaysNearRate() throws Exception {
+        HttpLoadReport report = HttpLoadTest.run(HttpLoadOptions.parse(new String[]{"--duration=2", "--warmup=0",
+                "--clients=2", "--rate=50", "--users=2", "--mix=list=1"}));
+
+        Assertions.assertEquals(1, report.endpoints().size());
+        Assertions.assertEquals(100, report.requests(), 10);
+    }
+
+    @Test
+    public void optionsParse() {
+        HttpLoadOptions options = HttpLoadOptions.parse(new String[]{"--soak=2", "--mix=login=3,list=1"});
+        Assertions.assertEquals(120, options.duration().toMinutes());
+        Assertions.assertEquals(60, options.heapInterval().toSeconds());
+        Assertions.assertEquals(Map.of(HttpOperation.LOGIN, 3, HttpOperation.LIST, 1), options.mix());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> HttpLoadOptions.parse(new String[]{"--mix=list=0"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> HttpLoadOptions.parse(new String[]{"--mix=delete=1"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> HttpLoadOptions.parse(new String[]{"--clients=0"}));
+    }
+}
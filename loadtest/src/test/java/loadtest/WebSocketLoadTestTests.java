@@ -0,0 +1,41 @@
+package loadtest;
+
+import org.junit.jupiter.api.*;
+
+public class WebSocketLoadTestTests {
+
+    @Test
+    public void smallRunPlaysEveryGame() throws Exception {
+        LoadReport report = WebSocketLoadTest.run(small());
+
+        Assertions.assertEquals(8, report.completed(), report.render());
+        Assertions.assertEquals(0, report.errors());
+        Assertions.assertTrue(report.moves() > 0);
+        Assertions.assertEquals(report.moves(), report.move().count());
+        Assertions.assertEquals(16, report.connect().count());
+    }
+
+    @Test
+    public void binaryDeltaRunPlaysEveryGame() throws Exception {
+        LoadReport report = WebSocketLoadTest.run(small().with("format", "binary").with("updates", "delta"));
+
+        Assertions.assertEquals(8, report.completed(), report.render());
+        Assertions.assertEquals(0, report.errors());
+        Assertions.assertEquals(0, report.resyncs());
+    }
+
+    @Test
+    public void optionsParse() {
+        LoadTestOptions options = LoadTestOptions.parse(new String[]{"--games=12", "--format=binary", "--timeout=9"});
+        Assertions.assertEquals(12, options.games());
+        Assertions.assertTrue(options.binary());
+        Assertions.assertFalse(options.deltas());
+        Assertions.assertEquals(9, options.timeout().toSeconds());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse(new String[]{"--games=0"}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse(new String[]{"--speed=2"}));
+    }
+
+    private static LoadTestOptions small() {
+        return LoadTestOptions.parse(new String[]{"--games=8", "--users=6", "--moves=12", "--timeout=30"});
+    }
+}
@@ -1,15 +1,20 @@
 import chess.*;
-import spark.Spark;
-import java.util.UUID;
+import server.Server;
+import service.TokenService;
 public class Main {
+    private static final TokenService TOKENS = new TokenService();
+
     public static void main(String[] args) {
         var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         System.out.println("♕ 240 Chess Server: " + piece);
-        Spark.port(8080);
-        Spark.get("/", (req, res) -> "Server working on port 8080");
+        Server server = new Server();
+        int port = server.run(8080);
+        // a deploy's SIGTERM lets the games in progress drain instead of dropping their moves
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "server-drain"));
+        System.out.println("Server working on port " + port);
     }
 
     public static String generateToken(){
-        return UUID.randomUUID().toString(); //generates random authToken
+        return TOKENS.generateToken(); //generates random authToken
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of length-prefixed, checksummed records.
+ * <p>
+ * Each record is [int length][int crc32][payload]. Opening the log replays every
+ * record in order; a record that was only partly written when the process died
+ * fails its length or checksum check, and the file is cut back to the last good record.
+ */
+class AppendLog implements AutoCloseable {
+    private static final int HEADER_SIZE = 8;
+
+    private final Path path;
+    private FileChannel channel;
+    private int records = 0;
+
+    /**
+     * Opens (or creates) the log and hands each intact payload to onRecord
+     */
+    AppendLog(Path path, Consumer<ByteBuffer> onRecord) throws DataAccessException {
+        this.path = path;
+        try{
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long good = replay(onRecord);
+            if(good < channel.size()){
+                channel.truncate(good);
+            }
+            channel.position(good);
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to open " + path, ex);
+        }
+    }
+
+    private long replay(Consumer<ByteBuffer> onRecord) throws IOException {
+        long size = channel.size();
+        if(size == 0){
+            return 0;
+        }
+        ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        long good = 0;
+        while(file.remaining() >= HEADER_SIZE){
+            int length = file.getInt();
+            int crc = file.getInt();
+            if(length < 0 || length > file.remaining()){
+                break;
+            }
+            ByteBuffer payload = file.slice(file.position(), length);
+            if(checksum(payload.duplicate()) != crc){
+                break;
+            }
+            file.position(file.position() + length);
+            onRecord.accept(payload);
+            good = file.position();
+            records++;
+        }
+        return good;
+    }
+
+    void append(byte[] payload) throws DataAccessException {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt(checksum(ByteBuffer.wrap(payload)));
+        record.put(payload);
+        record.flip();
+        try{
+            while(record.hasRemaining()){
+                channel.write(record);
+            }
+            records++;
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to append to " + path, ex);
+        }
+    }
+
+    int recordCount() {
+        return records;
+    }
+
+    /**
+     * Replaces the log contents with the given payloads, via a temp file and an atomic rename
+     */
+    void rewrite(List<byte[]> payloads) throws DataAccessException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try{
+            try(var out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)){
+                for(byte[] payload : payloads){
+                    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+                    record.putInt(payload.length).putInt(checksum(ByteBuffer.wrap(payload))).put(payload).flip();
+                    while(record.hasRemaining()){
+                        out.write(record);
+                    }
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            records = payloads.size();
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to compact " + path, ex);
+        }
+    }
+
+    void truncate() throws DataAccessException {
+        try{
+            channel.truncate(0);
+            channel.position(0);
+            records = 0;
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to truncate " + path, ex);
+        }
+    }
+
+    void force() throws DataAccessException {
+        try{
+            channel.force(false);
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to sync " + path, ex);
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        try{
+            channel.force(false);
+            channel.close();
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to close " + path, ex);
+        }
+    }
+
+    private static int checksum(ByteBuffer bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    // nullable strings are written as a short byte length (-1 for null) and UTF-8 bytes
+    static void putString(ByteBuffer buffer, String value) throws DataAccessException {
+        if(value == null){
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length > Short.MAX_VALUE){
+            // the length would wrap negative and the record could not be read back
+            throw new DataAccessException("value too long to store: " + bytes.length + " bytes");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if(length < 0){
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int stringSize(String value) {
+        return 2 + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+}
@@ -0,0 +1,200 @@
+package dataaccess;
+
+import model.AuthData;
+import model.UserData;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache for auth tokens in front of a slower DAO.
+ * <p>
+ * Every authenticated request looks its token up, so getAuth answers from a bounded
+ * LRU map and only goes to the wrapped DAO on a miss. Entries live for at most ttl.
+ * deleteAuth and clear drop entries right away, and a lookup that raced with a delete
+ * is not cached, so a logged out token is never served from the cache.
+ * <p>
+ * Hits are passed on to the wrapped DAO's {@link dataAccess#touchAuth} at most once per
+ * touchInterval, so the store's sliding expiry sees sessions that only ever hit the cache;
+ * a token the store no longer knows is dropped.
+ */
+public class CachingAuthDataAccess extends ForwardingDataAccess {
+
+    private record Entry(AuthData auth, long expiresAt, long touchedAt) {}
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long touchIntervalNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> cache;
+    // bumped by every invalidation; a load only caches its result if this did not move
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Touches the wrapped DAO at most every ttl / 2 per token
+     */
+    public CachingAuthDataAccess(dataAccess delegate, int maxEntries, Duration ttl) {
+        this(delegate, maxEntries, ttl, ttl.dividedBy(2), System::nanoTime);
+    }
+
+    public CachingAuthDataAccess(dataAccess delegate, int maxEntries, Duration ttl, Duration touchInterval) {
+        this(delegate, maxEntries, ttl, touchInterval, System::nanoTime);
+    }
+
+    CachingAuthDataAccess(dataAccess delegate, int maxEntries, Duration ttl, LongSupplier clock) {
+        this(delegate, maxEntries, ttl, ttl.dividedBy(2), clock);
+    }
+
+    CachingAuthDataAccess(dataAccess delegate, int maxEntries, Duration ttl, Duration touchInterval,
+                          LongSupplier clock) {
+        super(delegate);
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.touchIntervalNanos = touchInterval.toNanos();
+        this.clock = clock;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if(size() > CachingAuthDataAccess.this.maxEntries){
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    //clear
+    @Override
+    public void clear() throws DataAccessException {
+        invalidateAll();
+        delegate.clear();
+    }
+
+    //auth
+    @Override
+    public void insertAuth(AuthData auth) throws DataAccessException {
+        delegate.insertAuth(auth);
+        long version = invalidations.get();
+        put(auth.authToken(), auth, version);
+    }
+
+    @Override
+    public void insertAuths(Collection<AuthData> auths) throws DataAccessException {
+        delegate.insertAuths(auths);
+        long version = invalidations.get();
+        for(AuthData auth : auths){
+            put(auth.authToken(), auth, version);
+        }
+    }
+
+    @Override
+    public void insertUsersWithAuths(Collection<UserData> users, Collection<AuthData> auths)
+            throws DataAccessException {
+        delegate.insertUsersWithAuths(users, auths);
+        long version = invalidations.get();
+        for(AuthData auth : auths){
+            put(auth.authToken(), auth, version);
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        long now = clock.getAsLong();
+        AuthData cached = null;
+        synchronized(cache){
+            Entry entry = cache.get(authToken);
+            if(entry != null){
+                if(now - entry.expiresAt() < 0){
+                    hits.increment();
+                    if(now - entry.touchedAt() < touchIntervalNanos){
+                        return entry.auth();
+                    }
+                    // restamped first, so only one of the lookups arriving together touches the store
+                    cache.put(authToken, new Entry(entry.auth(), entry.expiresAt(), now));
+                    cached = entry.auth();
+                }else{
+                    cache.remove(authToken);
+                }
+            }
+        }
+        if(cached != null){
+            if(delegate.touchAuth(authToken)){
+                return cached;
+            }
+            invalidate(authToken);
+            return null;
+        }
+        misses.increment();
+        long version = invalidations.get();
+        AuthData auth = delegate.getAuth(authToken);
+        if(auth != null){
+            put(authToken, auth, version);
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        invalidate(authToken);
+        delegate.deleteAuth(authToken);
+        invalidate(authToken);
+    }
+
+    private void put(String authToken, AuthData auth, long version) {
+        long now = clock.getAsLong();
+        Entry entry = new Entry(auth, now + ttlNanos, now);
+        synchronized(cache){
+            if(invalidations.get() == version){
+                cache.put(authToken, entry);
+            }
+        }
+    }
+
+    public void invalidate(String authToken) {
+        synchronized(cache){
+            invalidations.incrementAndGet();
+            cache.remove(authToken);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized(cache){
+            invalidations.incrementAndGet();
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized(cache){
+            return cache.size();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
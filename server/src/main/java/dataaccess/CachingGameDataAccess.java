@@ -0,0 +1,150 @@
+package dataaccess;
+
+import chess.ChessMove;
+import model.GameData;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the games being played resident in memory in front of a slower DAO.
+ * <p>
+ * getGame is served from a size-bounded LRU map; misses load from the wrapped DAO.
+ * Every write goes through to the wrapped DAO first and then refreshes the cached copy.
+ * A game that is over is dropped from the cache instead, since nobody plays it anymore.
+ */
+public class CachingGameDataAccess extends ForwardingDataAccess {
+    private final int capacity;
+    private final LinkedHashMap<Integer, GameData> cache;
+    // misses being loaded; a write to the game takes its token away so a stale read is not cached
+    private final Map<Integer, Object> loading = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder finishedEvictions = new LongAdder();
+
+    public CachingGameDataAccess(dataAccess delegate, int capacity) {
+        super(delegate);
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, GameData> eldest) {
+                if(size() > CachingGameDataAccess.this.capacity){
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    //clear
+    @Override
+    public void clear() throws DataAccessException {
+        synchronized(cache){
+            cache.clear();
+            loading.clear();
+        }
+        delegate.clear();
+    }
+
+    //game
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        Object token = new Object();
+        synchronized(cache){
+            GameData game = cache.get(gameID);
+            if(game != null){
+                hits.increment();
+                return game;
+            }
+            loading.put(gameID, token);
+        }
+        misses.increment();
+        GameData game = null;
+        try{
+            game = delegate.getGame(gameID);
+        } finally {
+            synchronized(cache){
+                // only cached if no write to the game finished while it was being read
+                if(loading.remove(gameID, token) && game != null && !isFinished(game)){
+                    cache.putIfAbsent(gameID, game);
+                }
+            }
+        }
+        return game;
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        delegate.updateGame(game);
+        refresh(game);
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        delegate.updateGames(games);
+        for(GameData game : games){
+            refresh(game);
+        }
+    }
+
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        delegate.recordMove(game, move);
+        refresh(game);
+    }
+
+    private void refresh(GameData game) {
+        synchronized(cache){
+            loading.remove(game.gameID());
+            if(isFinished(game)){
+                if(cache.remove(game.gameID()) != null){
+                    finishedEvictions.increment();
+                }
+            }else{
+                cache.put(game.gameID(), game);
+            }
+        }
+    }
+
+    private static boolean isFinished(GameData game) {
+        return game.chessGame() != null && game.chessGame().isGameOver();
+    }
+
+    public int size() {
+        synchronized(cache){
+            return cache.size();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public double occupancy() {
+        return (double) size() / capacity;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // games pushed out to make room
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    // games dropped because they ended
+    public long finishedEvictions() {
+        return finishedEvictions.sum();
+    }
+}
@@ -0,0 +1,11 @@
+package dataaccess;
+
+import java.sql.Connection;
+
+/**
+ * Opens a new database connection; the SQL stores call it again when theirs is lost
+ */
+@FunctionalInterface
+public interface ConnectionSource {
+    Connection open() throws DataAccessException;
+}
@@ -3,17 +3,43 @@ import model.AuthData;
 import model.GameData;
 import model.UserData;
 import chess.ChessGame;
+import util.TimerWheel;
 
+import java.time.Duration;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 public class DataAccessHelp implements dataAccess{
-    private final Map<String, UserData> users = new HashMap<>();
-    private final Map<Integer, GameData> games = new HashMap<>();
-    private final Map<String, AuthData> auths = new HashMap<>();
+    private final Map<String, UserData> users = new ConcurrentHashMap<>();
+    private final Map<Integer, GameData> games = new ConcurrentHashMap<>();
+    private final Map<String, AuthData> auths = new ConcurrentHashMap<>();
 
-    private int nextGameID = 1;
+    private final AtomicInteger nextGameID = new AtomicInteger(1);
+
+    //auth tokens expire after authTtl without use; the wheel finds them without scanning auths
+    public static final Duration DEFAULT_AUTH_TTL = Duration.ofHours(12);
+    private final long authTtlMillis;
+    private final LongSupplier clock;
+    private final TimerWheel<String> authExpiry;
+
+    public DataAccessHelp(){
+        this(DEFAULT_AUTH_TTL);
+    }
+
+    public DataAccessHelp(Duration authTtl){
+        this(authTtl, System::currentTimeMillis);
+    }
+
+    DataAccessHelp(Duration authTtl, LongSupplier clock){
+        this.authTtlMillis = authTtl.toMillis();
+        this.clock = clock;
+        this.authExpiry = new TimerWheel<>(1000, 4096, clock.getAsLong());
+    }
 
 
     //clear
@@ -22,16 +48,30 @@ public class DataAccessHelp implements dataAccess{
         users.clear();
         games.clear();
         auths.clear();
-        nextGameID = 1;
+        authExpiry.clear();
+        nextGameID.set(1);
     }
 
     //user
     @Override
     public void insertUser(UserData user) throws DataAccessException{
-        if(users.containsKey(user.username())){
+        if(users.putIfAbsent(user.username(), user) != null){
             throw new DataAccessException("Username taken");
         }
-        users.put(user.username(), user);
+    }
+
+    // all or nothing, like the SQL batch
+    @Override
+    public synchronized void insertUsers(Collection<UserData> batch) throws DataAccessException{
+        Set<String> names = new HashSet<>();
+        for(UserData user : batch){
+            if(!names.add(user.username()) || users.containsKey(user.username())){
+                throw new DataAccessException("Username taken");
+            }
+        }
+        for(UserData user : batch){
+            insertUser(user);
+        }
     }
 
     @Override
@@ -42,7 +82,7 @@ public class DataAccessHelp implements dataAccess{
     //Game
     @Override
     public int insertGame(GameData game){
-        int gameID = nextGameID++;
+        int gameID = nextGameID.getAndIncrement();
         GameData fullGame = new GameData(gameID, null, null, game.gameName(), new ChessGame());
         games.put(gameID, fullGame);
         return gameID;
@@ -60,28 +100,50 @@ public class DataAccessHelp implements dataAccess{
 
     @Override
     public void updateGame(GameData game) throws DataAccessException{
-        if(!games.containsKey(game.gameID())){
+        if(games.replace(game.gameID(), game) == null){
             throw new DataAccessException("GameID does not exist");
         }
-        games.put(game.gameID(),game);
     }
 
     //Auth
     @Override
     public void insertAuth(AuthData auth){
+        long now = clock.getAsLong();
+        expireAuths(now);
         auths.put(auth.authToken(), auth);
+        authExpiry.schedule(auth.authToken(), now + authTtlMillis);
     }
 
     @Override
     public AuthData getAuth(String authToken){
-        return auths.get(authToken);
+        long now = clock.getAsLong();
+        expireAuths(now);
+        AuthData auth = auths.get(authToken);
+        if(auth == null){
+            return null;
+        }
+        Long deadline = authExpiry.deadline(authToken);
+        if(deadline != null && deadline <= now){
+            deleteAuth(authToken);
+            return null;
+        }
+        authExpiry.touch(authToken, now + authTtlMillis); //sliding expiry
+        return auth;
     }
 
     @Override
     public void deleteAuth(String authToken){
         auths.remove(authToken);
+        authExpiry.cancel(authToken);
     }
 
+    private void expireAuths(long now){
+        for(String expired : authExpiry.advance(now)){
+            auths.remove(expired);
+        }
+    }
 
-
+    public int authCount(){
+        return auths.size();
+    }
 }
@@ -0,0 +1,132 @@
+package dataaccess;
+
+import chess.ChessMove;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Base class for dataAccess decorators. Every call goes straight to the wrapped
+ * DAO unless a subclass overrides it.
+ */
+public abstract class ForwardingDataAccess implements dataAccess, AutoCloseable {
+    protected final dataAccess delegate;
+
+    protected ForwardingDataAccess(dataAccess delegate) {
+        this.delegate = delegate;
+    }
+
+    //clear
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+    }
+
+    //user
+    @Override
+    public void insertUser(UserData user) throws DataAccessException {
+        delegate.insertUser(user);
+    }
+
+    @Override
+    public void insertUsers(Collection<UserData> users) throws DataAccessException {
+        delegate.insertUsers(users);
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    //game
+    @Override
+    public int insertGame(GameData game) throws DataAccessException {
+        return delegate.insertGame(game);
+    }
+
+    @Override
+    public List<Integer> insertGames(List<GameData> games) throws DataAccessException {
+        return delegate.insertGames(games);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        return delegate.getGame(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        return delegate.listGames();
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        delegate.updateGame(game);
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        delegate.updateGames(games);
+    }
+
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        delegate.recordMove(game, move);
+    }
+
+    //auth
+    @Override
+    public void insertAuth(AuthData auth) throws DataAccessException {
+        delegate.insertAuth(auth);
+    }
+
+    @Override
+    public void insertAuths(Collection<AuthData> auths) throws DataAccessException {
+        delegate.insertAuths(auths);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        return delegate.getAuth(authToken);
+    }
+
+    @Override
+    public void insertUsersWithAuths(Collection<UserData> users, Collection<AuthData> auths)
+            throws DataAccessException {
+        delegate.insertUsersWithAuths(users, auths);
+    }
+
+    @Override
+    public boolean touchAuth(String authToken) throws DataAccessException {
+        return delegate.touchAuth(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        delegate.deleteAuth(authToken);
+    }
+
+    @Override
+    public void flush() throws DataAccessException {
+        delegate.flush();
+    }
+
+    /**
+     * Closes the wrapped DAO if it holds resources
+     */
+    @Override
+    public void close() throws DataAccessException {
+        if(delegate instanceof AutoCloseable closeable){
+            try{
+                closeable.close();
+            } catch (DataAccessException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new DataAccessException("failed to close data access", ex);
+            }
+        }
+    }
+}
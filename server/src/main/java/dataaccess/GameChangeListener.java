@@ -0,0 +1,11 @@
+package dataaccess;
+
+/**
+ * Told about game writes by {@link VersionedDataAccess}, after the write has gone through
+ */
+public interface GameChangeListener {
+    void gameChanged(int gameID, long version);
+
+    // every game is gone, e.g. after clear
+    void allGamesChanged();
+}
@@ -0,0 +1,347 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.PackedGame;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Durable dataAccess for single node deployments, kept in a directory of plain files.
+ * <p>
+ * Reads are served from in-memory maps. Writes go to:
+ * <ul>
+ *     <li>games.dat - a memory-mapped file of fixed-size game records. Each game owns two
+ *     slots and writes alternate between them, so a torn write never loses the previous
+ *     version; recovery keeps the valid slot with the highest sequence number.</li>
+ *     <li>users.log / auths.log - {@link AppendLog}s of inserts (and auth deletes).</li>
+ * </ul>
+ * Writes land in the OS page cache and survive a process crash; {@link #sync()} (and close)
+ * force them to disk. Startup is a single scan of each file.
+ */
+public class MappedFileDataAccess implements dataAccess, AutoCloseable {
+    static final int RECORD_SIZE = 256;
+    static final int MAX_STRING_BYTES = MAX_NAME_BYTES;
+
+    private static final int ID_OFFSET = 0;
+    private static final int SEQ_OFFSET = 4;
+    private static final int CRC_OFFSET = 12;
+    private static final int GAME_OFFSET = 16;
+    private static final int STRINGS_OFFSET = GAME_OFFSET + PackedGame.PACKED_SIZE;
+    private static final int INITIAL_SLOTS = 1024;
+
+    private static final byte AUTH_INSERT = 1;
+    private static final byte AUTH_DELETE = 2;
+
+    private final Path gamesPath;
+    private final FileChannel gamesChannel;
+    private MappedByteBuffer gamesFile;
+
+    private final AppendLog userLog;
+    private final AppendLog authLog;
+
+    private final Map<String, UserData> users = new ConcurrentHashMap<>();
+    private final Map<Integer, GameData> games = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> gameSeqs = new HashMap<>();
+    private final Map<String, AuthData> auths = new ConcurrentHashMap<>();
+    private int nextGameID = 1;
+
+    public MappedFileDataAccess(Path directory) throws DataAccessException {
+        try{
+            Files.createDirectories(directory);
+            gamesPath = directory.resolve("games.dat");
+            gamesChannel = FileChannel.open(gamesPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long slots = Math.max(INITIAL_SLOTS, gamesChannel.size() / RECORD_SIZE);
+            gamesFile = gamesChannel.map(FileChannel.MapMode.READ_WRITE, 0, slots * RECORD_SIZE);
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to open game file", ex);
+        }
+        recoverGames();
+
+        userLog = new AppendLog(directory.resolve("users.log"), record -> {
+            UserData user = new UserData(AppendLog.getString(record), AppendLog.getString(record),
+                    AppendLog.getString(record));
+            users.put(user.username(), user);
+        });
+        authLog = new AppendLog(directory.resolve("auths.log"), record -> {
+            byte type = record.get();
+            String token = AppendLog.getString(record);
+            if(type == AUTH_INSERT){
+                auths.put(token, new AuthData(token, AppendLog.getString(record)));
+            }else{
+                auths.remove(token);
+            }
+        });
+        // logouts leave dead records behind; rewrite the log once they outnumber live tokens
+        if(authLog.recordCount() > 2 * auths.size() + 1024){
+            List<byte[]> live = new ArrayList<>(auths.size());
+            for(AuthData auth : auths.values()){
+                live.add(authRecord(AUTH_INSERT, auth.authToken(), auth.username()));
+            }
+            authLog.rewrite(live);
+        }
+    }
+
+    //clear
+    @Override
+    public synchronized void clear() throws DataAccessException {
+        users.clear();
+        games.clear();
+        gameSeqs.clear();
+        auths.clear();
+        nextGameID = 1;
+        userLog.truncate();
+        authLog.truncate();
+        for(int i = 0; i < gamesFile.capacity(); i += RECORD_SIZE){
+            gamesFile.putInt(i + ID_OFFSET, 0);
+        }
+    }
+
+    //user
+    @Override
+    public synchronized void insertUser(UserData user) throws DataAccessException {
+        if(users.containsKey(user.username())){
+            throw new DataAccessException("Username taken");
+        }
+        userLog.append(userRecord(user));
+        users.put(user.username(), user);
+    }
+
+    // all or nothing: every name is checked before anything is written
+    @Override
+    public synchronized void insertUsers(Collection<UserData> batch) throws DataAccessException {
+        insertUsersWithAuths(batch, List.of());
+    }
+
+    @Override
+    public synchronized void insertUsersWithAuths(Collection<UserData> batch, Collection<AuthData> newAuths)
+            throws DataAccessException {
+        Set<String> names = new HashSet<>();
+        List<byte[]> userRecords = new ArrayList<>(batch.size());
+        for(UserData user : batch){
+            if(!names.add(user.username()) || users.containsKey(user.username())){
+                throw new DataAccessException("Username taken");
+            }
+            userRecords.add(userRecord(user));
+        }
+        List<byte[]> authRecords = new ArrayList<>(newAuths.size());
+        for(AuthData auth : newAuths){
+            authRecords.add(authRecord(AUTH_INSERT, auth.authToken(), auth.username()));
+        }
+        for(byte[] record : userRecords){
+            userLog.append(record);
+        }
+        for(UserData user : batch){
+            users.put(user.username(), user);
+        }
+        for(byte[] record : authRecords){
+            authLog.append(record);
+        }
+        for(AuthData auth : newAuths){
+            auths.put(auth.authToken(), auth);
+        }
+    }
+
+    private static byte[] userRecord(UserData user) throws DataAccessException {
+        ByteBuffer record = ByteBuffer.allocate(AppendLog.stringSize(user.username())
+                + AppendLog.stringSize(user.password()) + AppendLog.stringSize(user.email()));
+        AppendLog.putString(record, user.username());
+        AppendLog.putString(record, user.password());
+        AppendLog.putString(record, user.email());
+        return record.array();
+    }
+
+    @Override
+    public UserData getUser(String username) {
+        return users.get(username);
+    }
+
+    //game
+    @Override
+    public synchronized int insertGame(GameData game) throws DataAccessException {
+        int gameID = nextGameID;
+        GameData fullGame = new GameData(gameID, null, null, game.gameName(), new ChessGame());
+        writeGame(fullGame);
+        nextGameID++;
+        return gameID;
+    }
+
+    @Override
+    public GameData getGame(int gameID) {
+        return games.get(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        return games.values();
+    }
+
+    @Override
+    public synchronized void updateGame(GameData game) throws DataAccessException {
+        if(!games.containsKey(game.gameID())){
+            throw new DataAccessException("GameID does not exist");
+        }
+        writeGame(game);
+    }
+
+    private void writeGame(GameData game) throws DataAccessException {
+        long seq = gameSeqs.getOrDefault(game.gameID(), 0L) + 1;
+        byte[] record = encodeRecord(game, seq);
+        long slot = slotIndex(game.gameID(), seq);
+        ensureCapacity(slot);
+        gamesFile.put((int) (slot * RECORD_SIZE), record);
+        gameSeqs.put(game.gameID(), seq);
+        games.put(game.gameID(), game);
+    }
+
+    private static long slotIndex(int gameID, long seq) {
+        return (gameID - 1) * 2L + (seq & 1);
+    }
+
+    private void ensureCapacity(long slot) throws DataAccessException {
+        long needed = (slot + 1) * RECORD_SIZE;
+        if(needed <= gamesFile.capacity()){
+            return;
+        }
+        long size = Math.max(needed, gamesFile.capacity() * 2L);
+        if(size > Integer.MAX_VALUE){
+            throw new DataAccessException("game file full");
+        }
+        try{
+            gamesFile.force();
+            gamesFile = gamesChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to grow game file", ex);
+        }
+    }
+
+    static byte[] encodeRecord(GameData game, long seq) throws DataAccessException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putInt(ID_OFFSET, game.gameID());
+        record.putLong(SEQ_OFFSET, seq);
+        byte[] packed = PackedGame.pack(game.chessGame());
+        record.put(GAME_OFFSET, packed);
+        record.position(STRINGS_OFFSET);
+        putBoundedString(record, game.whiteUsername());
+        putBoundedString(record, game.blackUsername());
+        putBoundedString(record, game.gameName());
+        record.putInt(CRC_OFFSET, recordChecksum(record.array()));
+        return record.array();
+    }
+
+    private static void putBoundedString(ByteBuffer record, String value) throws DataAccessException {
+        if(value != null && value.getBytes(StandardCharsets.UTF_8).length > MAX_STRING_BYTES){
+            throw new DataAccessException("value too long to store: " + value);
+        }
+        int start = record.position();
+        AppendLog.putString(record, value);
+        record.position(start + 2 + MAX_STRING_BYTES);
+    }
+
+    private static int recordChecksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, CRC_OFFSET);
+        crc.update(record, GAME_OFFSET, RECORD_SIZE - GAME_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private void recoverGames() {
+        int maxID = 0;
+        byte[] record = new byte[RECORD_SIZE];
+        int slots = gamesFile.capacity() / RECORD_SIZE;
+        for(int slot = 0; slot < slots; slot++){
+            gamesFile.get(slot * RECORD_SIZE, record);
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            int gameID = buffer.getInt(ID_OFFSET);
+            long seq = buffer.getLong(SEQ_OFFSET);
+            // skip empty slots, torn writes and anything not in the slot it claims
+            if(gameID <= 0 || buffer.getInt(CRC_OFFSET) != recordChecksum(record)
+                    || slotIndex(gameID, seq) != slot){
+                continue;
+            }
+            if(seq > gameSeqs.getOrDefault(gameID, 0L)){
+                gameSeqs.put(gameID, seq);
+                games.put(gameID, decodeRecord(buffer, gameID));
+                maxID = Math.max(maxID, gameID);
+            }
+        }
+        nextGameID = maxID + 1;
+    }
+
+    private static GameData decodeRecord(ByteBuffer record, int gameID) {
+        byte[] packed = new byte[PackedGame.PACKED_SIZE];
+        record.get(GAME_OFFSET, packed);
+        String[] strings = new String[3];
+        for(int i = 0; i < 3; i++){
+            record.position(STRINGS_OFFSET + i * (2 + MAX_STRING_BYTES));
+            strings[i] = AppendLog.getString(record);
+        }
+        return new GameData(gameID, strings[0], strings[1], strings[2], PackedGame.unpack(packed));
+    }
+
+    //auth
+    @Override
+    public synchronized void insertAuth(AuthData auth) throws DataAccessException {
+        authLog.append(authRecord(AUTH_INSERT, auth.authToken(), auth.username()));
+        auths.put(auth.authToken(), auth);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        return auths.get(authToken);
+    }
+
+    @Override
+    public synchronized void deleteAuth(String authToken) throws DataAccessException {
+        if(auths.remove(authToken) != null){
+            authLog.append(authRecord(AUTH_DELETE, authToken, null));
+        }
+    }
+
+    private static byte[] authRecord(byte type, String token, String username) throws DataAccessException {
+        ByteBuffer record = ByteBuffer.allocate(1 + AppendLog.stringSize(token) + AppendLog.stringSize(username));
+        record.put(type);
+        AppendLog.putString(record, token);
+        AppendLog.putString(record, username);
+        return record.array();
+    }
+
+    /**
+     * Forces every file to disk
+     */
+    public synchronized void sync() throws DataAccessException {
+        gamesFile.force();
+        userLog.force();
+        authLog.force();
+    }
+
+    @Override
+    public void flush() throws DataAccessException {
+        sync();
+    }
+
+    @Override
+    public synchronized void close() throws DataAccessException {
+        gamesFile.force();
+        userLog.close();
+        authLog.close();
+        try{
+            gamesChannel.close();
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to close game file", ex);
+        }
+    }
+}
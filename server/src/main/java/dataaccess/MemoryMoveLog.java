@@ -0,0 +1,87 @@
+package dataaccess;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MoveLog held in memory, one growable int array of moves per game
+ */
+public class MemoryMoveLog implements MoveLog {
+
+    private static class GameLog {
+        int[] moves = new int[64];
+        int size = 0;
+        final TreeMap<Integer, byte[]> snapshots = new TreeMap<>();
+    }
+
+    private final Map<Integer, GameLog> logs = new ConcurrentHashMap<>();
+
+    private GameLog log(int gameID) {
+        return logs.computeIfAbsent(gameID, id -> new GameLog());
+    }
+
+    @Override
+    public void append(int gameID, int ply, int packedMove) throws DataAccessException {
+        GameLog log = log(gameID);
+        synchronized(log){
+            if(ply != log.size + 1){
+                throw new DataAccessException("move out of order for game " + gameID);
+            }
+            if(log.size == log.moves.length){
+                log.moves = Arrays.copyOf(log.moves, log.size * 2);
+            }
+            log.moves[log.size++] = packedMove;
+        }
+    }
+
+    @Override
+    public void saveSnapshot(int gameID, int ply, byte[] packedGame) {
+        GameLog log = log(gameID);
+        synchronized(log){
+            log.snapshots.put(ply, packedGame.clone());
+        }
+    }
+
+    @Override
+    public Snapshot snapshotAtOrBefore(int gameID, int maxPly) {
+        GameLog log = logs.get(gameID);
+        if(log == null){
+            return null;
+        }
+        synchronized(log){
+            Map.Entry<Integer, byte[]> entry = log.snapshots.floorEntry(maxPly);
+            return entry == null ? null : new Snapshot(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public int[] moves(int gameID, int fromPly, int toPly) {
+        GameLog log = logs.get(gameID);
+        if(log == null){
+            return new int[0];
+        }
+        synchronized(log){
+            int end = Math.min(toPly, log.size);
+            return fromPly >= end ? new int[0] : Arrays.copyOfRange(log.moves, fromPly, end);
+        }
+    }
+
+    @Override
+    public int lastPly(int gameID) {
+        GameLog log = logs.get(gameID);
+        if(log == null){
+            return 0;
+        }
+        synchronized(log){
+            int lastSnapshot = log.snapshots.isEmpty() ? 0 : log.snapshots.lastKey();
+            return Math.max(log.size, lastSnapshot);
+        }
+    }
+
+    @Override
+    public void clear() {
+        logs.clear();
+    }
+}
@@ -0,0 +1,44 @@
+package dataaccess;
+
+import java.util.List;
+
+/**
+ * Append-only storage for the moves of each game.
+ * <p>
+ * Moves are kept in their 15-bit {@link chess.PackedGame#packMove} form, numbered by
+ * ply starting at 1. Snapshots are packed games taken at a given ply so a game can be
+ * rebuilt by replaying only the moves after the latest one.
+ */
+public interface MoveLog {
+
+    record Snapshot(int ply, byte[] packedGame) {}
+
+    record Move(int gameID, int ply, int packedMove) {}
+
+    // appends a move at the given ply
+    void append(int gameID, int ply, int packedMove) throws DataAccessException;
+
+    // appends moves of any number of games at once; logs that can batch should override
+    default void appendAll(List<Move> moves) throws DataAccessException {
+        for(Move move : moves){
+            append(move.gameID(), move.ply(), move.packedMove());
+        }
+    }
+
+    void saveSnapshot(int gameID, int ply, byte[] packedGame) throws DataAccessException;
+
+    // the newest snapshot taken at or before maxPly, or null if there is none
+    Snapshot snapshotAtOrBefore(int gameID, int maxPly) throws DataAccessException;
+
+    // packed moves with fromPly < ply <= toPly, in order
+    int[] moves(int gameID, int fromPly, int toPly) throws DataAccessException;
+
+    // highest ply stored for the game (move or snapshot), 0 if none
+    int lastPly(int gameID) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+
+    // writes out anything held back in memory; logs that write straight through have nothing to do
+    default void flush() throws DataAccessException {
+    }
+}
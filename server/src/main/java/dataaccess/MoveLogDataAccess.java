@@ -0,0 +1,187 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.PackedGame;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores game moves in an append-only {@link MoveLog} instead of rewriting the whole game.
+ * <p>
+ * recordMove appends one packed move (plus a packed snapshot every snapshotInterval plies and
+ * on the move that ends the game),
+ * so the cost of a move no longer depends on the size of the board. getGame takes the game row
+ * from the wrapped DAO and rebuilds the board from the latest snapshot plus the moves after it.
+ * listGames returns the stored rows as they are: the lobby only needs names and seats, so their
+ * boards may be behind.
+ * updateGame still writes through (player and name changes) and snapshots the board it was given.
+ */
+public class MoveLogDataAccess extends ForwardingDataAccess {
+    private final MoveLog log;
+    private final int snapshotInterval;
+    // last ply per game, loaded from the log the first time a game is touched
+    private final Map<Integer, AtomicInteger> plies = new ConcurrentHashMap<>();
+    // games known to have at least one snapshot to replay from
+    private final Set<Integer> snapshotted = ConcurrentHashMap.newKeySet();
+
+    public MoveLogDataAccess(dataAccess delegate, MoveLog log) {
+        this(delegate, log, 32);
+    }
+
+    public MoveLogDataAccess(dataAccess delegate, MoveLog log, int snapshotInterval) {
+        super(delegate);
+        this.log = log;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    private AtomicInteger ply(int gameID) throws DataAccessException {
+        AtomicInteger ply = plies.get(gameID);
+        if(ply == null){
+            ply = new AtomicInteger(log.lastPly(gameID));
+            AtomicInteger existing = plies.putIfAbsent(gameID, ply);
+            if(existing != null){
+                ply = existing;
+            }
+        }
+        return ply;
+    }
+
+    //clear
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+        log.clear();
+        plies.clear();
+        snapshotted.clear();
+    }
+
+    //game
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        GameData game = delegate.getGame(gameID);
+        return game == null ? null : withLoggedState(game);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        delegate.updateGame(game);
+        AtomicInteger ply = ply(game.gameID());
+        synchronized(ply){
+            log.saveSnapshot(game.gameID(), ply.get(), PackedGame.pack(game.chessGame()));
+        }
+        snapshotted.add(game.gameID());
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        delegate.updateGames(games);
+        for(GameData game : games){
+            AtomicInteger ply = ply(game.gameID());
+            synchronized(ply){
+                log.saveSnapshot(game.gameID(), ply.get(), PackedGame.pack(game.chessGame()));
+            }
+            snapshotted.add(game.gameID());
+        }
+    }
+
+    /**
+     * Appends the move; the full game is only written as a periodic snapshot
+     */
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        int gameID = game.gameID();
+        AtomicInteger ply = ply(gameID);
+        synchronized(ply){
+            int next = ply.get() + 1;
+            log.append(gameID, next, PackedGame.packMove(move));
+            ply.set(next);
+            // replay cannot tell that a move ended the game, so the final position is always snapshotted
+            if(next % snapshotInterval == 0 || game.chessGame().isGameOver() || !hasSnapshot(gameID, next)){
+                log.saveSnapshot(gameID, next, PackedGame.pack(game.chessGame()));
+                snapshotted.add(gameID);
+            }
+        }
+    }
+
+    private boolean hasSnapshot(int gameID, int ply) throws DataAccessException {
+        if(snapshotted.contains(gameID)){
+            return true;
+        }
+        if(log.snapshotAtOrBefore(gameID, ply) != null){
+            snapshotted.add(gameID);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return every move recorded for the game, oldest first
+     */
+    public List<ChessMove> moveHistory(int gameID) throws DataAccessException {
+        int[] packed = log.moves(gameID, 0, ply(gameID).get());
+        List<ChessMove> moves = new ArrayList<>(packed.length);
+        for(int move : packed){
+            moves.add(PackedGame.unpackMove(move));
+        }
+        return moves;
+    }
+
+    /**
+     * Rebuilds the game as it stood after the given ply, or null if the log cannot reach it
+     */
+    public ChessGame gameAtPly(int gameID, int ply) throws DataAccessException {
+        MoveLog.Snapshot snapshot = log.snapshotAtOrBefore(gameID, ply);
+        if(snapshot == null){
+            return null;
+        }
+        ChessGame game = PackedGame.unpack(snapshot.packedGame());
+        for(int move : log.moves(gameID, snapshot.ply(), ply)){
+            replay(game, PackedGame.unpackMove(move));
+        }
+        return game;
+    }
+
+    private GameData withLoggedState(GameData game) throws DataAccessException {
+        ChessGame state = gameAtPly(game.gameID(), ply(game.gameID()).get());
+        if(state == null){
+            return game;
+        }
+        return new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), state);
+    }
+
+    // moves in the log were validated when they were made, so replay skips the rules check
+    private static void replay(ChessGame game, ChessMove move) {
+        game.moveOnBoard(game.getBoard(), move);
+        game.setTeamTurn(game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+    }
+
+    // the log first, so no stored game row is ahead of the moves that led to it
+    @Override
+    public void flush() throws DataAccessException {
+        log.flush();
+        super.flush();
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        if(log instanceof AutoCloseable closeable){
+            try{
+                closeable.close();
+            } catch (DataAccessException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new DataAccessException("failed to close move log", ex);
+            }
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,610 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.PackedGame;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import util.TimerWheel;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * dataAccess backed by a SQL database (MySQL in production, anything JDBC compatible in tests).
+ * <p>
+ * The DAO keeps one connection open and prepares each statement only once, so every call
+ * after the first skips parsing and planning. A connection lost to a timeout or a database
+ * restart is replaced on the next call ({@link StatementCache#ensureOpen()}). Prepared statements are not thread safe,
+ * so the public methods hold one lock around their statements. It is a {@link ReentrantLock}
+ * rather than a monitor, since a virtual thread blocked on I/O inside synchronized would pin
+ * its carrier and stall unrelated requests. Games are stored in their
+ * {@link PackedGame} binary form (33 bytes) instead of a JSON document, and auth tokens
+ * by their 16 raw bytes ({@link TokenCodec}) rather than as text.
+ */
+public class SqlDataAccess implements dataAccess, AutoCloseable {
+    private static final String[] CREATE_STATEMENTS = {
+            """
+            CREATE TABLE IF NOT EXISTS users (
+              username VARCHAR(255) NOT NULL,
+              password VARCHAR(255) NOT NULL,
+              email VARCHAR(255) NOT NULL,
+              PRIMARY KEY (username)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS games (
+              game_id INT NOT NULL AUTO_INCREMENT,
+              white_username VARCHAR(255),
+              black_username VARCHAR(255),
+              game_name VARCHAR(255) NOT NULL,
+              game VARBINARY(64) NOT NULL,
+              PRIMARY KEY (game_id)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS auths (
+              auth_token BINARY(16) NOT NULL,
+              username VARCHAR(255) NOT NULL,
+              expires_at BIGINT NOT NULL,
+              PRIMARY KEY (auth_token)
+            )
+            """
+    };
+
+    private static final String INSERT_USER = "INSERT INTO users (username, password, email) VALUES (?, ?, ?)";
+    private static final String SELECT_USER = "SELECT username, password, email FROM users WHERE username = ?";
+    private static final String INSERT_GAME =
+            "INSERT INTO games (white_username, black_username, game_name, game) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_GAME =
+            "SELECT game_id, white_username, black_username, game_name, game FROM games WHERE game_id = ?";
+    private static final String SELECT_GAMES =
+            "SELECT game_id, white_username, black_username, game_name, game FROM games";
+    private static final String UPDATE_GAME =
+            "UPDATE games SET white_username = ?, black_username = ?, game_name = ?, game = ? WHERE game_id = ?";
+    private static final String INSERT_AUTH = "INSERT INTO auths (auth_token, username, expires_at) VALUES (?, ?, ?)";
+    private static final String SELECT_AUTH = "SELECT username, expires_at FROM auths WHERE auth_token = ?";
+    private static final String REFRESH_AUTH = "UPDATE auths SET expires_at = ? WHERE auth_token = ?";
+    private static final String DELETE_AUTH = "DELETE FROM auths WHERE auth_token = ?";
+    private static final String DELETE_EXPIRED_AUTH = "DELETE FROM auths WHERE auth_token = ? AND expires_at <= ?";
+    private static final String DELETE_ALL_EXPIRED_AUTHS = "DELETE FROM auths WHERE expires_at <= ?";
+
+    private final StatementCache statements;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // tokens expire authTtl after last use. the stored expiry is only pushed back once less than
+    // half the TTL is left, so most lookups stay reads; the wheel deletes tokens as they lapse.
+    // tokens the wheel never saw (from before a restart, or another node) go in a periodic full sweep
+    private static final long FULL_SWEEP_MILLIS = Duration.ofMinutes(10).toMillis();
+    private final long authTtlMillis;
+    private final LongSupplier clock;
+    private final TimerWheel<String> authExpiry;
+    private long lastFullSweep;
+
+    /**
+     * Connects using db.properties, creating the database and tables if needed
+     */
+    public SqlDataAccess() throws DataAccessException {
+        this(SqlDataAccess::connectToDatabase);
+    }
+
+    /**
+     * Opens connections from source, again whenever the current one is lost
+     */
+    public SqlDataAccess(ConnectionSource source) throws DataAccessException {
+        this(source, DataAccessHelp.DEFAULT_AUTH_TTL, System::currentTimeMillis);
+    }
+
+    /**
+     * Uses an already open connection, e.g. an embedded database in tests. It cannot be replaced if lost.
+     */
+    public SqlDataAccess(Connection conn) throws DataAccessException {
+        this(() -> conn);
+    }
+
+    SqlDataAccess(Connection conn, Duration authTtl, LongSupplier clock) throws DataAccessException {
+        this(() -> conn, authTtl, clock);
+    }
+
+    SqlDataAccess(ConnectionSource source, Duration authTtl, LongSupplier clock) throws DataAccessException {
+        this.statements = new StatementCache(source);
+        this.authTtlMillis = authTtl.toMillis();
+        this.clock = clock;
+        this.authExpiry = new TimerWheel<>(1000, 4096, clock.getAsLong());
+        statements.createTables(CREATE_STATEMENTS);
+        deleteAllExpiredAuths(clock.getAsLong());
+    }
+
+    static Connection connectToDatabase() throws DataAccessException {
+        DatabaseManager.createDatabase();
+        return DatabaseManager.getConnection();
+    }
+
+    //clear
+    @Override
+    public void clear() throws DataAccessException {
+        acquire();
+        try{
+            try(var statement = statements.connection().createStatement()){
+                statement.addBatch("TRUNCATE TABLE users");
+                statement.addBatch("TRUNCATE TABLE games");
+                statement.addBatch("TRUNCATE TABLE auths");
+                statement.executeBatch();
+                authExpiry.clear();
+            } catch (SQLException ex) {
+                throw new DataAccessException("failed to clear database", ex);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //user
+    @Override
+    public void insertUser(UserData user) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(INSERT_USER);
+            statement.setString(1, user.username());
+            statement.setString(2, user.password());
+            statement.setString(3, user.email());
+            statement.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException ex) {
+            throw new DataAccessException("Username taken", ex);
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to insert user", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts every user in one batch inside one transaction; none are kept if any name is taken
+     */
+    @Override
+    public void insertUsers(Collection<UserData> users) throws DataAccessException {
+        if(users.isEmpty()){
+            return;
+        }
+        inTransaction("failed to insert users", () -> {
+            batchInsertUsers(users);
+            return null;
+        });
+    }
+
+    private void batchInsertUsers(Collection<UserData> users) throws SQLException, DataAccessException {
+        var statement = statements.prepare(INSERT_USER);
+        for(UserData user : users){
+            statement.setString(1, user.username());
+            statement.setString(2, user.password());
+            statement.setString(3, user.email());
+            statement.addBatch();
+        }
+        try{
+            statement.executeBatch();
+        } catch (SQLException ex) {
+            if(isConstraintViolation(ex)){
+                throw new DataAccessException("Username taken", ex);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Inserts the users and their tokens in one transaction; nothing is kept if either fails
+     */
+    @Override
+    public void insertUsersWithAuths(Collection<UserData> users, Collection<AuthData> auths)
+            throws DataAccessException {
+        acquire();
+        try{
+            long now = clock.getAsLong();
+            expireAuths(now);
+            inTransaction("failed to register users", () -> {
+                batchInsertUsers(users);
+                batchInsertAuths(auths, now);
+                return null;
+            });
+            for(AuthData auth : auths){
+                authExpiry.schedule(auth.authToken(), now + authTtlMillis);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(SELECT_USER);
+            statement.setString(1, username);
+            try(var rs = statement.executeQuery()){
+                if(!rs.next()){
+                    return null;
+                }
+                return new UserData(rs.getString("username"), rs.getString("password"), rs.getString("email"));
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to read user", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //game
+    @Override
+    public int insertGame(GameData game) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepareWithKeys(INSERT_GAME);
+            ChessGame chessGame = game.chessGame() != null ? game.chessGame() : new ChessGame();
+            statement.setString(1, game.whiteUsername());
+            statement.setString(2, game.blackUsername());
+            statement.setString(3, game.gameName());
+            statement.setBytes(4, PackedGame.pack(chessGame));
+            statement.executeUpdate();
+            try(var keys = statement.getGeneratedKeys()){
+                if(!keys.next()){
+                    throw new DataAccessException("no gameID generated");
+                }
+                return keys.getInt(1);
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to insert game", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts every game in one batch inside one transaction
+     */
+    @Override
+    public List<Integer> insertGames(List<GameData> games) throws DataAccessException {
+        if(games.isEmpty()){
+            return List.of();
+        }
+        return inTransaction("failed to insert games", () -> {
+            var statement = statements.prepareWithKeys(INSERT_GAME);
+            for(GameData game : games){
+                ChessGame chessGame = game.chessGame() != null ? game.chessGame() : new ChessGame();
+                statement.setString(1, game.whiteUsername());
+                statement.setString(2, game.blackUsername());
+                statement.setString(3, game.gameName());
+                statement.setBytes(4, PackedGame.pack(chessGame));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            List<Integer> gameIDs = new ArrayList<>(games.size());
+            try(var keys = statement.getGeneratedKeys()){
+                while(keys.next()){
+                    gameIDs.add(keys.getInt(1));
+                }
+            }
+            if(gameIDs.size() != games.size()){
+                throw new DataAccessException("expected " + games.size() + " gameIDs, got " + gameIDs.size());
+            }
+            return gameIDs;
+        });
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(SELECT_GAME);
+            statement.setInt(1, gameID);
+            try(var rs = statement.executeQuery()){
+                return rs.next() ? readGame(rs) : null;
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to read game", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(SELECT_GAMES);
+            Collection<GameData> games = new ArrayList<>();
+            try(var rs = statement.executeQuery()){
+                while(rs.next()){
+                    games.add(readGame(rs));
+                }
+            }
+            return games;
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to list games", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(UPDATE_GAME);
+            bindUpdate(statement, game);
+            if(statement.executeUpdate() == 0){
+                throw new DataAccessException("GameID does not exist");
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to update game", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends every update in a single batch inside one transaction
+     */
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        if(games.isEmpty()){
+            return;
+        }
+        inTransaction("failed to update games", () -> {
+            var statement = statements.prepare(UPDATE_GAME);
+            for(GameData game : games){
+                bindUpdate(statement, game);
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            for(int count : counts){
+                if(count == 0){
+                    throw new DataAccessException("GameID does not exist");
+                }
+            }
+            return null;
+        });
+    }
+
+    private void bindUpdate(PreparedStatement statement, GameData game) throws SQLException {
+        statement.setString(1, game.whiteUsername());
+        statement.setString(2, game.blackUsername());
+        statement.setString(3, game.gameName());
+        statement.setBytes(4, PackedGame.pack(game.chessGame()));
+        statement.setInt(5, game.gameID());
+    }
+
+    private GameData readGame(ResultSet rs) throws SQLException {
+        return new GameData(rs.getInt("game_id"), rs.getString("white_username"), rs.getString("black_username"),
+                rs.getString("game_name"), PackedGame.unpack(rs.getBytes("game")));
+    }
+
+    //auth
+    @Override
+    public void insertAuth(AuthData auth) throws DataAccessException {
+        acquire();
+        try{
+            byte[] key = TokenCodec.toBytes(auth.authToken());
+            if(key == null){
+                throw new DataAccessException("malformed auth token");
+            }
+            long now = clock.getAsLong();
+            expireAuths(now);
+            try{
+                var statement = statements.prepare(INSERT_AUTH);
+                statement.setBytes(1, key);
+                statement.setString(2, auth.username());
+                statement.setLong(3, now + authTtlMillis);
+                statement.executeUpdate();
+            } catch (SQLException ex) {
+                throw new DataAccessException("failed to insert auth", ex);
+            }
+            authExpiry.schedule(auth.authToken(), now + authTtlMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts every token in one batch inside one transaction
+     */
+    @Override
+    public void insertAuths(Collection<AuthData> auths) throws DataAccessException {
+        acquire();
+        try{
+            if(auths.isEmpty()){
+                return;
+            }
+            long now = clock.getAsLong();
+            expireAuths(now);
+            inTransaction("failed to insert auths", () -> {
+                batchInsertAuths(auths, now);
+                return null;
+            });
+            for(AuthData auth : auths){
+                authExpiry.schedule(auth.authToken(), now + authTtlMillis);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void batchInsertAuths(Collection<AuthData> auths, long now) throws SQLException, DataAccessException {
+        var statement = statements.prepare(INSERT_AUTH);
+        for(AuthData auth : auths){
+            byte[] key = TokenCodec.toBytes(auth.authToken());
+            if(key == null){
+                throw new DataAccessException("malformed auth token");
+            }
+            statement.setBytes(1, key);
+            statement.setString(2, auth.username());
+            statement.setLong(3, now + authTtlMillis);
+            statement.addBatch();
+        }
+        statement.executeBatch();
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        acquire();
+        try{
+            byte[] key = TokenCodec.toBytes(authToken);
+            if(key == null){
+                return null;
+            }
+            long now = clock.getAsLong();
+            expireAuths(now);
+            try{
+                var statement = statements.prepare(SELECT_AUTH);
+                statement.setBytes(1, key);
+                String username;
+                long expiresAt;
+                try(var rs = statement.executeQuery()){
+                    if(!rs.next()){
+                        return null;
+                    }
+                    username = rs.getString("username");
+                    expiresAt = rs.getLong("expires_at");
+                }
+                if(expiresAt <= now){
+                    deleteAuth(authToken);
+                    return null;
+                }
+                if(expiresAt - now < authTtlMillis / 2){
+                    expiresAt = now + authTtlMillis;
+                    var refresh = statements.prepare(REFRESH_AUTH);
+                    refresh.setLong(1, expiresAt);
+                    refresh.setBytes(2, key);
+                    refresh.executeUpdate();
+                }
+                // tokens from before a restart are not on the wheel yet
+                if(authExpiry.deadline(authToken) == null){
+                    authExpiry.schedule(authToken, expiresAt);
+                }else{
+                    authExpiry.touch(authToken, expiresAt);
+                }
+                return new AuthData(authToken, username);
+            } catch (SQLException ex) {
+                throw new DataAccessException("failed to read auth", ex);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        acquire();
+        try{
+            byte[] key = TokenCodec.toBytes(authToken);
+            if(key == null){
+                return;
+            }
+            authExpiry.cancel(authToken);
+            try{
+                var statement = statements.prepare(DELETE_AUTH);
+                statement.setBytes(1, key);
+                statement.executeUpdate();
+            } catch (SQLException ex) {
+                throw new DataAccessException("failed to delete auth", ex);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // deletes the tokens the wheel says have lapsed, in one batch
+    private void expireAuths(long now) throws DataAccessException {
+        if(now - lastFullSweep >= FULL_SWEEP_MILLIS){
+            deleteAllExpiredAuths(now);
+        }
+        var expired = authExpiry.advance(now);
+        if(expired.isEmpty()){
+            return;
+        }
+        try{
+            var statement = statements.prepare(DELETE_EXPIRED_AUTH);
+            for(String token : expired){
+                statement.setBytes(1, TokenCodec.toBytes(token));
+                statement.setLong(2, now);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to delete expired auths", ex);
+        }
+    }
+
+    private void deleteAllExpiredAuths(long now) throws DataAccessException {
+        lastFullSweep = now;
+        try{
+            var statement = statements.prepare(DELETE_ALL_EXPIRED_AUTHS);
+            statement.setLong(1, now);
+            statement.executeUpdate();
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to delete expired auths", ex);
+        }
+    }
+
+    private interface SqlWork<T> {
+        T run() throws SQLException, DataAccessException;
+    }
+
+    // runs work as one transaction under the lock, rolling everything back if any of it fails
+    private <T> T inTransaction(String failure, SqlWork<T> work) throws DataAccessException {
+        acquire();
+        try{
+            Connection conn = statements.connection();
+            conn.setAutoCommit(false);
+            try{
+                T result = work.run();
+                conn.commit();
+                return result;
+            } catch (SQLException | DataAccessException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException(failure, ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isConstraintViolation(SQLException ex) {
+        for(SQLException next = ex; next != null; next = next.getNextException()){
+            if(next instanceof SQLIntegrityConstraintViolationException
+                    || (next.getSQLState() != null && next.getSQLState().startsWith("23"))){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // takes the lock and makes sure there is a working connection to use under it
+    private void acquire() throws DataAccessException {
+        lock.lock();
+        try{
+            statements.ensureOpen();
+        } catch (DataAccessException ex) {
+            lock.unlock();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        lock.lock();
+        try{
+            statements.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
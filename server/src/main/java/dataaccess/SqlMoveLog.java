@@ -0,0 +1,227 @@
+package dataaccess;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MoveLog stored in two SQL tables: one row per move (a SMALLINT) and one row per snapshot.
+ * Calls share one connection under a lock, for the same reasons as {@link SqlDataAccess}.
+ */
+public class SqlMoveLog implements MoveLog, AutoCloseable {
+    private static final String[] CREATE_STATEMENTS = {
+            """
+            CREATE TABLE IF NOT EXISTS game_moves (
+              game_id INT NOT NULL,
+              ply INT NOT NULL,
+              move SMALLINT NOT NULL,
+              PRIMARY KEY (game_id, ply)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game_snapshots (
+              game_id INT NOT NULL,
+              ply INT NOT NULL,
+              game VARBINARY(64) NOT NULL,
+              PRIMARY KEY (game_id, ply)
+            )
+            """
+    };
+
+    private static final String INSERT_MOVE = "INSERT INTO game_moves (game_id, ply, move) VALUES (?, ?, ?)";
+    private static final String UPSERT_SNAPSHOT =
+            "INSERT INTO game_snapshots (game_id, ply, game) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE game = ?";
+    private static final String SELECT_SNAPSHOT =
+            "SELECT ply, game FROM game_snapshots WHERE game_id = ? AND ply <= ? ORDER BY ply DESC LIMIT 1";
+    private static final String SELECT_MOVES =
+            "SELECT move FROM game_moves WHERE game_id = ? AND ply > ? AND ply <= ? ORDER BY ply";
+    private static final String SELECT_LAST_PLY = """
+            SELECT GREATEST(
+              COALESCE((SELECT MAX(ply) FROM game_moves WHERE game_id = ?), 0),
+              COALESCE((SELECT MAX(ply) FROM game_snapshots WHERE game_id = ?), 0))
+            """;
+
+    private final StatementCache statements;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SqlMoveLog() throws DataAccessException {
+        this(SqlDataAccess::connectToDatabase);
+    }
+
+    // a fixed connection cannot be replaced if lost
+    public SqlMoveLog(Connection conn) throws DataAccessException {
+        this(() -> conn);
+    }
+
+    public SqlMoveLog(ConnectionSource source) throws DataAccessException {
+        this.statements = new StatementCache(source);
+        statements.createTables(CREATE_STATEMENTS);
+    }
+
+    @Override
+    public void append(int gameID, int ply, int packedMove) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(INSERT_MOVE);
+            statement.setInt(1, gameID);
+            statement.setInt(2, ply);
+            statement.setShort(3, (short) packedMove);
+            statement.executeUpdate();
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to append move", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts every move in one batch inside one transaction
+     */
+    @Override
+    public void appendAll(List<Move> moves) throws DataAccessException {
+        if(moves.isEmpty()){
+            return;
+        }
+        acquire();
+        try{
+            Connection conn = statements.connection();
+            conn.setAutoCommit(false);
+            try{
+                var statement = statements.prepare(INSERT_MOVE);
+                for(Move move : moves){
+                    statement.setInt(1, move.gameID());
+                    statement.setInt(2, move.ply());
+                    statement.setShort(3, (short) move.packedMove());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to append moves", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void saveSnapshot(int gameID, int ply, byte[] packedGame) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(UPSERT_SNAPSHOT);
+            statement.setInt(1, gameID);
+            statement.setInt(2, ply);
+            statement.setBytes(3, packedGame);
+            statement.setBytes(4, packedGame);
+            statement.executeUpdate();
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to save snapshot", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Snapshot snapshotAtOrBefore(int gameID, int maxPly) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(SELECT_SNAPSHOT);
+            statement.setInt(1, gameID);
+            statement.setInt(2, maxPly);
+            try(var rs = statement.executeQuery()){
+                return rs.next() ? new Snapshot(rs.getInt("ply"), rs.getBytes("game")) : null;
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to read snapshot", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int[] moves(int gameID, int fromPly, int toPly) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(SELECT_MOVES);
+            statement.setInt(1, gameID);
+            statement.setInt(2, fromPly);
+            statement.setInt(3, toPly);
+            int[] moves = new int[16];
+            int size = 0;
+            try(var rs = statement.executeQuery()){
+                while(rs.next()){
+                    if(size == moves.length){
+                        moves = Arrays.copyOf(moves, size * 2);
+                    }
+                    moves[size++] = rs.getShort("move") & 0xFFFF;
+                }
+            }
+            return Arrays.copyOf(moves, size);
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to read moves", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int lastPly(int gameID) throws DataAccessException {
+        acquire();
+        try{
+            var statement = statements.prepare(SELECT_LAST_PLY);
+            statement.setInt(1, gameID);
+            statement.setInt(2, gameID);
+            try(var rs = statement.executeQuery()){
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to read last ply", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        acquire();
+        try{
+            try(var statement = statements.connection().createStatement()){
+                statement.addBatch("TRUNCATE TABLE game_moves");
+                statement.addBatch("TRUNCATE TABLE game_snapshots");
+                statement.executeBatch();
+            } catch (SQLException ex) {
+                throw new DataAccessException("failed to clear move log", ex);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // takes the lock and makes sure there is a working connection to use under it
+    private void acquire() throws DataAccessException {
+        lock.lock();
+        try{
+            statements.ensureOpen();
+        } catch (DataAccessException ex) {
+            lock.unlock();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        lock.lock();
+        try{
+            statements.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prepares each SQL string once per connection and hands back the same statement
+ * afterwards. Not thread safe; callers lock around their use of it.
+ * <p>
+ * {@link #ensureOpen()} replaces a connection that was closed (drivers close theirs after a
+ * communication failure) or that sat idle and no longer answers, e.g. after a server side
+ * timeout or a database restart. The statements prepared on the old one are dropped with it.
+ */
+class StatementCache implements AutoCloseable {
+    // a connection used this recently is trusted without a round trip to check it
+    private static final long VALIDATE_AFTER_NANOS = 30_000_000_000L;
+    private static final int VALIDATE_TIMEOUT_SECONDS = 2;
+
+    private final ConnectionSource source;
+    private Connection conn;
+    private long lastUsed;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    StatementCache(ConnectionSource source) throws DataAccessException {
+        this.source = source;
+        this.conn = source.open();
+        this.lastUsed = System.nanoTime();
+    }
+
+    /**
+     * Reopens the connection if it is closed, or idle and failing a validity check
+     */
+    void ensureOpen() throws DataAccessException {
+        long now = System.nanoTime();
+        boolean idle = now - lastUsed > VALIDATE_AFTER_NANOS;
+        lastUsed = now;
+        try{
+            if(!conn.isClosed() && (!idle || conn.isValid(VALIDATE_TIMEOUT_SECONDS))){
+                return;
+            }
+        } catch (SQLException ex) {
+            // no better sign that it is unusable
+        }
+        closeQuietly();
+        conn = source.open();
+    }
+
+    private void closeQuietly() {
+        for(PreparedStatement statement : statements.values()){
+            try{
+                statement.close();
+            } catch (SQLException ex) {
+                // belongs to the dead connection anyway
+            }
+        }
+        statements.clear();
+        try{
+            conn.close();
+        } catch (SQLException ex) {
+            // already gone
+        }
+    }
+
+    Connection connection() {
+        return conn;
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, false);
+    }
+
+    PreparedStatement prepareWithKeys(String sql) throws SQLException {
+        return prepare(sql, true);
+    }
+
+    private PreparedStatement prepare(String sql, boolean generatedKeys) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if(statement == null || statement.isClosed()){
+            statement = generatedKeys ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : conn.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    void createTables(String... creates) throws DataAccessException {
+        try(var statement = conn.createStatement()){
+            for(String create : creates){
+                statement.executeUpdate(create);
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to create tables", ex);
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        try{
+            for(PreparedStatement statement : statements.values()){
+                statement.close();
+            }
+            statements.clear();
+            conn.close();
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to close connection", ex);
+        }
+    }
+}
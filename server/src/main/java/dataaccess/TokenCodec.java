@@ -0,0 +1,40 @@
+package dataaccess;
+
+import java.util.Base64;
+
+/**
+ * Converts auth tokens between their text form (22 characters of unpadded base64url)
+ * and the 16 raw bytes the database stores as the key.
+ */
+public final class TokenCodec {
+    public static final int TOKEN_BYTES = 16;
+    public static final int TOKEN_CHARS = 22;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private TokenCodec() {
+    }
+
+    public static String toText(byte[] token) {
+        return ENCODER.encodeToString(token);
+    }
+
+    /**
+     * @return the 16 token bytes, or null if the text is not a token this server issued
+     */
+    public static byte[] toBytes(String token) {
+        if(token == null || token.length() != TOKEN_CHARS){
+            return null;
+        }
+        byte[] bytes;
+        try{
+            bytes = DECODER.decode(token);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        // the last character carries 2 unused bits, so four strings decode to the same bytes;
+        // only the one we would have issued may match the stored key
+        return ENCODER.encodeToString(bytes).equals(token) ? bytes : null;
+    }
+}
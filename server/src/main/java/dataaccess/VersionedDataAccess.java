@@ -0,0 +1,139 @@
+package dataaccess;
+
+import chess.ChessMove;
+import model.GameData;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Gives every game a version that changes whenever the game is written, plus a version
+ * for the game list as a whole, so callers can tell whether something they derived from
+ * a game (e.g. its JSON) is still current without reading the game.
+ * <p>
+ * The list shows names and seats, not boards, so the list version only moves when a game
+ * is created, a seat or name changes, a game ends or everything is cleared. Plain moves
+ * bump only their own game.
+ * <p>
+ * Versions come from one counter that starts at the clock time in milliseconds shifted up
+ * 20 bits, so a run can make a million writes per millisecond it is up before it reaches the
+ * next run's starting point. They keep increasing across clears and restarts and are never
+ * reused for different contents. A version is
+ * bumped only after the write has gone through: read the version first, then the game,
+ * and whatever was read is at least as new as that version.
+ */
+public class VersionedDataAccess extends ForwardingDataAccess {
+
+    // what the game list shows of a game
+    private record Listing(String whiteUsername, String blackUsername, String gameName, boolean over) {
+        static Listing of(GameData game) {
+            return new Listing(game.whiteUsername(), game.blackUsername(), game.gameName(),
+                    game.chessGame() != null && game.chessGame().isGameOver());
+        }
+    }
+
+    // room between the starting points of runs started a millisecond apart
+    static final int WRITES_PER_MILLI_BITS = 20;
+
+    private final AtomicLong counter;
+    private final Map<Integer, Long> gameVersions = new ConcurrentHashMap<>();
+    private final Map<Integer, Listing> listings = new ConcurrentHashMap<>();
+    private final List<GameChangeListener> listeners = new CopyOnWriteArrayList<>();
+    // games not written since the last clear
+    private volatile long baseVersion;
+    private final AtomicLong listVersion;
+
+    public VersionedDataAccess(dataAccess delegate) {
+        this(delegate, System::currentTimeMillis);
+    }
+
+    VersionedDataAccess(dataAccess delegate, LongSupplier clock) {
+        super(delegate);
+        counter = new AtomicLong(clock.getAsLong() << WRITES_PER_MILLI_BITS);
+        baseVersion = counter.get();
+        listVersion = new AtomicLong(baseVersion);
+    }
+
+    public void addListener(GameChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public long gameVersion(int gameID) {
+        return gameVersions.getOrDefault(gameID, baseVersion);
+    }
+
+    // changes whenever a game is created, joined, renamed or ended, or everything is cleared
+    public long listVersion() {
+        return listVersion.get();
+    }
+
+    //clear
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+        long version = counter.incrementAndGet();
+        gameVersions.clear();
+        listings.clear();
+        baseVersion = version;
+        listVersion.accumulateAndGet(version, Math::max);
+        for(GameChangeListener listener : listeners){
+            listener.allGamesChanged();
+        }
+    }
+
+    //game
+    @Override
+    public int insertGame(GameData game) throws DataAccessException {
+        int gameID = delegate.insertGame(game);
+        changed(gameID, game, true);
+        return gameID;
+    }
+
+    @Override
+    public List<Integer> insertGames(List<GameData> games) throws DataAccessException {
+        List<Integer> gameIDs = delegate.insertGames(games);
+        for(int i = 0; i < gameIDs.size(); i++){
+            changed(gameIDs.get(i), games.get(i), true);
+        }
+        return gameIDs;
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        delegate.updateGame(game);
+        changed(game.gameID(), game, false);
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        delegate.updateGames(games);
+        for(GameData game : games){
+            changed(game.gameID(), game, false);
+        }
+    }
+
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        delegate.recordMove(game, move);
+        changed(game.gameID(), game, false);
+    }
+
+    // a game never listed before counts as a list change, so one written before this wrapper saw it still shows
+    private void changed(int gameID, GameData written, boolean created) {
+        long version = counter.incrementAndGet();
+        // two writes of one game can finish in either order; the later version must win
+        gameVersions.merge(gameID, version, Math::max);
+        Listing listing = Listing.of(written);
+        if(!listing.equals(listings.put(gameID, listing)) || created){
+            listVersion.accumulateAndGet(version, Math::max);
+        }
+        for(GameChangeListener listener : listeners){
+            listener.gameChanged(gameID, version);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package dataaccess;
+
+import chess.ChessMove;
+import model.GameData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps game updates in memory and writes them to the wrapped DAO in the background.
+ * <p>
+ * updateGame returns as soon as the game is recorded as dirty. Repeated updates to the
+ * same game before a flush collapse into one write of the latest state, and all dirty
+ * games are sent together through {@link dataAccess#updateGames}. A flush runs every
+ * flushInterval (the most an update can sit unwritten) or early once maxPending games
+ * are dirty. {@link #close()} flushes whatever is left. Reads see unflushed updates.
+ * <p>
+ * A batch that fails is retried one game at a time, so one bad row cannot hold back the rest.
+ * A game that fails {@link #MAX_ATTEMPTS} flushes in which other games were written is
+ * quarantined: reads still see it, but it is not retried until the game is updated again.
+ */
+public class WriteBehindDataAccess extends ForwardingDataAccess {
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindDataAccess.class);
+    static final int MAX_ATTEMPTS = 5;
+    // this many single writes failing with none succeeding means the store is down, not one row
+    private static final int MAX_FAILURES_IN_A_ROW = 8;
+    // forgetting which games exist only costs one read of each, so the set is simply emptied when full
+    private static final int MAX_KNOWN_GAMES = 65_536;
+
+    // identity matters here: a flush only clears the entry it actually wrote
+    private static final class Pending {
+        final GameData game;
+        // flushes that failed to write this entry while other games were written; flush thread only
+        int failures = 0;
+
+        Pending(GameData game) {
+            this.game = game;
+        }
+    }
+
+    private final Map<Integer, Pending> dirty = new ConcurrentHashMap<>();
+    private final Map<Integer, GameData> quarantined = new ConcurrentHashMap<>();
+    private final Set<Integer> knownGames = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher;
+    private final int maxPending;
+    // a lock rather than a monitor: the delegate does I/O while it is held
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong gamesWritten = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private volatile boolean closed = false;
+
+    public WriteBehindDataAccess(dataAccess delegate) {
+        this(delegate, Duration.ofMillis(250), 512);
+    }
+
+    public WriteBehindDataAccess(dataAccess delegate, Duration flushInterval, int maxPending) {
+        super(delegate);
+        this.maxPending = maxPending;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "game-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    //clear
+    @Override
+    public void clear() throws DataAccessException {
+        flushLock.lock();
+        try{
+            dirty.clear();
+            quarantined.clear();
+            knownGames.clear();
+            delegate.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //game
+    @Override
+    public int insertGame(GameData game) throws DataAccessException {
+        int gameID = delegate.insertGame(game);
+        know(gameID);
+        return gameID;
+    }
+
+    @Override
+    public List<Integer> insertGames(List<GameData> games) throws DataAccessException {
+        List<Integer> gameIDs = delegate.insertGames(games);
+        for(int gameID : gameIDs){
+            know(gameID);
+        }
+        return gameIDs;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        Pending pending = dirty.get(gameID);
+        if(pending != null){
+            return pending.game;
+        }
+        GameData stuck = quarantined.get(gameID);
+        if(stuck != null){
+            return stuck;
+        }
+        GameData game = delegate.getGame(gameID);
+        if(game != null){
+            know(gameID);
+        }
+        return game;
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        Collection<GameData> stored = delegate.listGames();
+        if(dirty.isEmpty() && quarantined.isEmpty()){
+            return stored;
+        }
+        List<GameData> games = new ArrayList<>(stored.size());
+        for(GameData game : stored){
+            Pending pending = dirty.get(game.gameID());
+            games.add(pending != null ? pending.game : quarantined.getOrDefault(game.gameID(), game));
+        }
+        return games;
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        if(closed){
+            // under the flush lock, and dropping any older pending copy so close cannot write it on top
+            flushLock.lock();
+            try{
+                dirty.remove(game.gameID());
+                quarantined.remove(game.gameID());
+                delegate.updateGame(game);
+            } finally {
+                flushLock.unlock();
+            }
+            return;
+        }
+        if(!knownGames.contains(game.gameID())){
+            // only the first update of a game we have not seen costs a read
+            if(delegate.getGame(game.gameID()) == null){
+                throw new DataAccessException("GameID does not exist");
+            }
+            know(game.gameID());
+        }
+        dirty.put(game.gameID(), new Pending(game));
+        // a newer state gets its own chance to be written
+        quarantined.remove(game.gameID());
+        if(closed){
+            // close may have written out the dirty set just before this joined it
+            writeDirty();
+        }else if(dirty.size() >= maxPending){
+            requestFlush();
+        }
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        for(GameData game : games){
+            updateGame(game);
+        }
+    }
+
+    // a move is just another coalesced update here; the flush writes the resulting state
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        updateGame(game);
+    }
+
+    /**
+     * Writes every dirty game to the wrapped DAO in one batch, then flushes the wrapped DAO.
+     * Games updated again while the batch is in flight stay dirty for the next flush.
+     */
+    @Override
+    public void flush() throws DataAccessException {
+        writeDirty();
+        super.flush();
+    }
+
+    private void writeDirty() throws DataAccessException {
+        flushLock.lock();
+        try{
+            if(dirty.isEmpty()){
+                return;
+            }
+            Map<Integer, Pending> batch = new HashMap<>(dirty);
+            List<GameData> games = new ArrayList<>(batch.size());
+            for(Pending pending : batch.values()){
+                games.add(pending.game);
+            }
+            try{
+                delegate.updateGames(games);
+            } catch (DataAccessException ex) {
+                writeOneByOne(batch, ex);
+                return;
+            }
+            for(Map.Entry<Integer, Pending> entry : batch.entrySet()){
+                dirty.remove(entry.getKey(), entry.getValue());
+            }
+            gamesWritten.addAndGet(games.size());
+            flushes.incrementAndGet();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // after a failed batch: writes what can be written and counts a failure against the rest
+    private void writeOneByOne(Map<Integer, Pending> batch, DataAccessException batchFailure)
+            throws DataAccessException {
+        Map<Integer, Pending> failed = new HashMap<>();
+        int written = 0;
+        for(Map.Entry<Integer, Pending> entry : batch.entrySet()){
+            try{
+                delegate.updateGame(entry.getValue().game);
+                dirty.remove(entry.getKey(), entry.getValue());
+                written++;
+            } catch (DataAccessException ex) {
+                failed.put(entry.getKey(), entry.getValue());
+                if(written == 0 && failed.size() >= MAX_FAILURES_IN_A_ROW){
+                    break;
+                }
+            }
+        }
+        gamesWritten.addAndGet(written);
+        flushes.incrementAndGet();
+        if(written == 0){
+            // nothing got through, so no single game is to blame
+            throw batchFailure;
+        }
+        for(Map.Entry<Integer, Pending> entry : failed.entrySet()){
+            Pending pending = entry.getValue();
+            if(++pending.failures >= MAX_ATTEMPTS && dirty.remove(entry.getKey(), pending)){
+                quarantined.put(entry.getKey(), pending.game);
+                LOG.error("game {} failed to write {} times, no longer retried", entry.getKey(), pending.failures);
+            }
+        }
+        if(!failed.isEmpty()){
+            throw new DataAccessException(failed.size() + " games could not be written", batchFailure);
+        }
+    }
+
+    private void know(int gameID) {
+        if(knownGames.size() >= MAX_KNOWN_GAMES){
+            knownGames.clear();
+        }
+        knownGames.add(gameID);
+    }
+
+    // at most one early flush waits on the flusher at a time
+    private void requestFlush() {
+        if(flushScheduled.compareAndSet(false, true)){
+            try{
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException ex) {
+                // shutting down; close writes out what is left
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        flushScheduled.set(false);
+        try{
+            writeDirty();
+        } catch (DataAccessException ex) {
+            // entries stay dirty and are retried on the next tick
+            LOG.warn("write-behind flush failed, {} games pending", dirty.size(), ex);
+        }
+    }
+
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    /**
+     * @return games that kept failing to write and are only held in memory
+     */
+    public int quarantinedCount() {
+        return quarantined.size();
+    }
+
+    public long gamesWritten() {
+        return gamesWritten.get();
+    }
+
+    public long flushCount() {
+        return flushes.get();
+    }
+
+    /**
+     * Stops the background flusher and writes out everything still pending
+     */
+    @Override
+    public void close() throws DataAccessException {
+        closed = true;
+        flusher.shutdown();
+        try{
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        writeDirty();
+        super.close();
+    }
+}
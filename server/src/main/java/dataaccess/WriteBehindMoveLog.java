@@ -0,0 +1,418 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps appended moves and snapshots in memory and writes them to the wrapped log in the background.
+ * <p>
+ * This does for the move log what {@link WriteBehindDataAccess} does for game rows: append and
+ * saveSnapshot return as soon as the entry is buffered, so no database write sits on the move path.
+ * Buffered moves of every game go out together through {@link MoveLog#appendAll} every
+ * flushInterval, or early once maxPending moves are waiting. {@link #flush()} and {@link #close()}
+ * write out whatever is left. Reads see buffered moves and snapshots.
+ * <p>
+ * A batch that fails is retried one game at a time. A game that fails {@link #MAX_ATTEMPTS}
+ * flushes in which other games were written is quarantined: its entries stay readable in
+ * memory, but they and any later moves of that game are no longer written.
+ */
+public class WriteBehindMoveLog implements MoveLog, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindMoveLog.class);
+    static final int MAX_ATTEMPTS = 5;
+    // this many games failing with none succeeding means the store is down, not one game
+    private static final int MAX_FAILURES_IN_A_ROW = 8;
+
+    // one game's entries not written yet; the moves are consecutive plies following the stored ones
+    private static final class Buffer {
+        int firstPly;
+        int[] moves = new int[16];
+        int size = 0;
+        final TreeMap<Integer, byte[]> snapshots = new TreeMap<>();
+        // flushes that failed to write this game while others were written; flush thread only
+        int failures = 0;
+        // no longer written; moves after a missing one could not be stored anyway
+        boolean quarantined = false;
+
+        void add(int ply, int packedMove) {
+            if(size == 0){
+                firstPly = ply;
+            }
+            if(size == moves.length){
+                moves = Arrays.copyOf(moves, size * 2);
+            }
+            moves[size++] = packedMove;
+        }
+
+        // drops the oldest count moves, which have been written
+        void drop(int count) {
+            System.arraycopy(moves, count, moves, 0, size - count);
+            size -= count;
+            firstPly += count;
+        }
+
+        int lastPly() {
+            int lastMove = size == 0 ? 0 : firstPly + size - 1;
+            return snapshots.isEmpty() ? lastMove : Math.max(lastMove, snapshots.lastKey());
+        }
+
+        boolean isEmpty() {
+            return size == 0 && snapshots.isEmpty();
+        }
+    }
+
+    private final MoveLog delegate;
+    private final Map<Integer, Buffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger quarantinedMoves = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final int maxPending;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean closed = false;
+
+    public WriteBehindMoveLog(MoveLog delegate) {
+        this(delegate, Duration.ofMillis(250), 4096);
+    }
+
+    public WriteBehindMoveLog(MoveLog delegate, Duration flushInterval, int maxPending) {
+        this.delegate = delegate;
+        this.maxPending = maxPending;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "move-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void append(int gameID, int ply, int packedMove) throws DataAccessException {
+        if(closed){
+            delegate.append(gameID, ply, packedMove);
+            return;
+        }
+        boolean[] stuck = new boolean[1];
+        buffers.compute(gameID, (id, buffer) -> {
+            Buffer target = buffer == null ? new Buffer() : buffer;
+            synchronized(target){
+                target.add(ply, packedMove);
+                stuck[0] = target.quarantined;
+            }
+            return target;
+        });
+        if(stuck[0]){
+            quarantinedMoves.incrementAndGet();
+            return;
+        }
+        int waiting = pending.incrementAndGet();
+        if(closed){
+            // close may have written the buffer out just before this landed in it
+            writeBuffered();
+        }else if(waiting >= maxPending){
+            requestFlush();
+        }
+    }
+
+    @Override
+    public void saveSnapshot(int gameID, int ply, byte[] packedGame) throws DataAccessException {
+        if(closed){
+            // under the flush lock, so an older snapshot of this ply still buffered cannot land on top
+            flushLock.lock();
+            try{
+                release(gameID, buffer -> buffer.snapshots.remove(ply));
+                delegate.saveSnapshot(gameID, ply, packedGame);
+            } finally {
+                flushLock.unlock();
+            }
+            return;
+        }
+        buffers.compute(gameID, (id, buffer) -> {
+            Buffer target = buffer == null ? new Buffer() : buffer;
+            synchronized(target){
+                target.snapshots.put(ply, packedGame);
+            }
+            return target;
+        });
+        if(closed){
+            writeBuffered();
+        }
+    }
+
+    // snapshots are only ever taken at the latest ply, so a buffered one beats anything stored
+    @Override
+    public Snapshot snapshotAtOrBefore(int gameID, int maxPly) throws DataAccessException {
+        Buffer buffer = buffers.get(gameID);
+        if(buffer != null){
+            synchronized(buffer){
+                Map.Entry<Integer, byte[]> entry = buffer.snapshots.floorEntry(maxPly);
+                if(entry != null){
+                    return new Snapshot(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return delegate.snapshotAtOrBefore(gameID, maxPly);
+    }
+
+    @Override
+    public int[] moves(int gameID, int fromPly, int toPly) throws DataAccessException {
+        // the buffer is read first: anything that has left it by then is already stored
+        int bufferedFrom = Integer.MAX_VALUE;
+        int[] buffered = new int[0];
+        Buffer buffer = buffers.get(gameID);
+        if(buffer != null){
+            synchronized(buffer){
+                if(buffer.size > 0){
+                    bufferedFrom = buffer.firstPly;
+                    int start = Math.max(fromPly + 1, buffer.firstPly) - buffer.firstPly;
+                    int end = Math.min(toPly, buffer.firstPly + buffer.size - 1) - buffer.firstPly + 1;
+                    if(start < end){
+                        buffered = Arrays.copyOfRange(buffer.moves, start, end);
+                    }
+                }
+            }
+        }
+        if(fromPly + 1 >= bufferedFrom){
+            return buffered;
+        }
+        int[] stored = delegate.moves(gameID, fromPly, Math.min(toPly, bufferedFrom - 1));
+        if(buffered.length == 0){
+            return stored;
+        }
+        int[] moves = Arrays.copyOf(stored, stored.length + buffered.length);
+        System.arraycopy(buffered, 0, moves, stored.length, buffered.length);
+        return moves;
+    }
+
+    @Override
+    public int lastPly(int gameID) throws DataAccessException {
+        int buffered = 0;
+        Buffer buffer = buffers.get(gameID);
+        if(buffer != null){
+            synchronized(buffer){
+                buffered = buffer.lastPly();
+            }
+        }
+        return Math.max(buffered, delegate.lastPly(gameID));
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        flushLock.lock();
+        try{
+            buffers.clear();
+            pending.set(0);
+            quarantinedMoves.set(0);
+            delegate.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every buffered move and snapshot to the wrapped log, then flushes it
+     */
+    @Override
+    public void flush() throws DataAccessException {
+        writeBuffered();
+        delegate.flush();
+    }
+
+    // one game's share of a flush
+    private record GameWrite(int gameID, Buffer buffer, List<Move> moves, Map<Integer, byte[]> snapshots) {}
+
+    private void writeBuffered() throws DataAccessException {
+        flushLock.lock();
+        try{
+            List<GameWrite> writes = new ArrayList<>();
+            List<Move> moves = new ArrayList<>();
+            for(Map.Entry<Integer, Buffer> entry : buffers.entrySet()){
+                int gameID = entry.getKey();
+                Buffer buffer = entry.getValue();
+                List<Move> gameMoves = new ArrayList<>();
+                Map<Integer, byte[]> snapshots;
+                synchronized(buffer){
+                    if(buffer.quarantined){
+                        continue;
+                    }
+                    for(int i = 0; i < buffer.size; i++){
+                        gameMoves.add(new Move(gameID, buffer.firstPly + i, buffer.moves[i]));
+                    }
+                    snapshots = new TreeMap<>(buffer.snapshots);
+                }
+                moves.addAll(gameMoves);
+                writes.add(new GameWrite(gameID, buffer, gameMoves, snapshots));
+            }
+            try{
+                delegate.appendAll(moves);
+            } catch (DataAccessException ex) {
+                writeOneByOne(writes, ex);
+                return;
+            }
+            // moves are let go of as soon as they are stored, so a failed snapshot cannot append them twice
+            for(GameWrite write : writes){
+                releaseMoves(write);
+            }
+            List<GameWrite> failed = new ArrayList<>();
+            DataAccessException failure = null;
+            for(GameWrite write : writes){
+                try{
+                    writeSnapshots(write);
+                } catch (DataAccessException ex) {
+                    failed.add(write);
+                    failure = ex;
+                }
+            }
+            countFailures(writes.size() - failed.size(), failed, failure);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // after a failed batch: writes each game on its own and counts a failure against the ones that still fail
+    private void writeOneByOne(List<GameWrite> writes, DataAccessException batchFailure) throws DataAccessException {
+        List<GameWrite> failed = new ArrayList<>();
+        DataAccessException failure = batchFailure;
+        int written = 0;
+        for(GameWrite write : writes){
+            try{
+                if(!write.moves().isEmpty()){
+                    delegate.appendAll(write.moves());
+                    releaseMoves(write);
+                }
+                writeSnapshots(write);
+                written++;
+            } catch (DataAccessException ex) {
+                failed.add(write);
+                failure = ex;
+                if(written == 0 && failed.size() >= MAX_FAILURES_IN_A_ROW){
+                    break;
+                }
+            }
+        }
+        if(written == 0){
+            // nothing got through, so no single game is to blame
+            throw batchFailure;
+        }
+        countFailures(written, failed, failure);
+    }
+
+    private void countFailures(int written, List<GameWrite> failed, DataAccessException failure)
+            throws DataAccessException {
+        if(failed.isEmpty()){
+            return;
+        }
+        if(written > 0){
+            for(GameWrite write : failed){
+                if(++write.buffer().failures >= MAX_ATTEMPTS){
+                    quarantine(write);
+                }
+            }
+        }
+        throw new DataAccessException(failed.size() + " games' moves could not be written", failure);
+    }
+
+    private void quarantine(GameWrite write) {
+        int moves;
+        synchronized(write.buffer()){
+            write.buffer().quarantined = true;
+            moves = write.buffer().size;
+        }
+        pending.addAndGet(-moves);
+        quarantinedMoves.addAndGet(moves);
+        LOG.error("moves of game {} failed to write {} times, no longer retried", write.gameID(), write.buffer().failures);
+    }
+
+    private void releaseMoves(GameWrite write) {
+        if(write.moves().isEmpty()){
+            return;
+        }
+        release(write.gameID(), buffer -> buffer.drop(write.moves().size()));
+        pending.addAndGet(-write.moves().size());
+    }
+
+    private void writeSnapshots(GameWrite write) throws DataAccessException {
+        for(Map.Entry<Integer, byte[]> snapshot : write.snapshots().entrySet()){
+            delegate.saveSnapshot(write.gameID(), snapshot.getKey(), snapshot.getValue());
+            // a newer snapshot taken at the same ply in the meantime stays buffered
+            release(write.gameID(), buffer -> buffer.snapshots.remove(snapshot.getKey(), snapshot.getValue()));
+        }
+    }
+
+    private interface BufferChange {
+        void apply(Buffer buffer);
+    }
+
+    private void release(int gameID, BufferChange change) {
+        buffers.computeIfPresent(gameID, (id, buffer) -> {
+            synchronized(buffer){
+                change.apply(buffer);
+                return buffer.isEmpty() ? null : buffer;
+            }
+        });
+    }
+
+    // at most one early flush waits on the flusher at a time
+    private void requestFlush() {
+        if(flushScheduled.compareAndSet(false, true)){
+            try{
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException ex) {
+                // shutting down; close writes out what is left
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        flushScheduled.set(false);
+        try{
+            writeBuffered();
+        } catch (DataAccessException ex) {
+            // entries stay buffered and are retried on the next tick
+            LOG.warn("move log flush failed, {} moves pending", pending.get(), ex);
+        }
+    }
+
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * @return moves of quarantined games, which are only held in memory
+     */
+    public int quarantinedCount() {
+        return quarantinedMoves.get();
+    }
+
+    /**
+     * Stops the background flusher, writes out everything still buffered and closes the wrapped log
+     */
+    @Override
+    public void close() throws DataAccessException {
+        closed = true;
+        flusher.shutdown();
+        try{
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        writeBuffered();
+        if(delegate instanceof AutoCloseable closeable){
+            try{
+                closeable.close();
+            } catch (DataAccessException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new DataAccessException("failed to close move log", ex);
+            }
+        }
+    }
+}
@@ -1,23 +1,81 @@
 package dataaccess;
+import chess.ChessMove;
 import model.AuthData;
 import model.UserData;
 import model.GameData;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public interface dataAccess {
+    // longest username or game name, in UTF-8 bytes, that every store can hold; the services refuse longer ones
+    int MAX_NAME_BYTES = 60;
+
     // clears stored data
     void clear() throws DataAccessException;
     //user
     void insertUser(UserData user) throws DataAccessException;
     UserData getUser(String username) throws DataAccessException;
+    // inserts several users in one round trip where the store can; implementations that can batch should override
+    default void insertUsers(Collection<UserData> users) throws DataAccessException {
+        for(UserData user : users){
+            insertUser(user);
+        }
+    }
     //game
     int insertGame(GameData game) throws DataAccessException;
+    // inserts several games and returns their gameIDs in the same order
+    default List<Integer> insertGames(List<GameData> games) throws DataAccessException {
+        List<Integer> gameIDs = new ArrayList<>(games.size());
+        for(GameData game : games){
+            gameIDs.add(insertGame(game));
+        }
+        return gameIDs;
+    }
     GameData getGame(int gameID) throws DataAccessException;
     Collection<GameData> listGames() throws DataAccessException;
     void updateGame(GameData game) throws DataAccessException;
+    // writes several games at once; implementations that can batch should override
+    default void updateGames(Collection<GameData> games) throws DataAccessException {
+        for(GameData game : games){
+            updateGame(game);
+        }
+    }
+    // records a single move; game is the state after the move. stores with a move log override this
+    default void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        updateGame(game);
+    }
     //auth
     void insertAuth(AuthData auth) throws DataAccessException;
+    default void insertAuths(Collection<AuthData> auths) throws DataAccessException {
+        for(AuthData auth : auths){
+            insertAuth(auth);
+        }
+    }
+    // inserts users together with their first tokens, all or nothing. the default checks every name
+    // before writing, which is only atomic against concurrent inserts if the store overrides it
+    default void insertUsersWithAuths(Collection<UserData> users, Collection<AuthData> auths)
+            throws DataAccessException {
+        Set<String> names = new HashSet<>();
+        for(UserData user : users){
+            if(!names.add(user.username()) || getUser(user.username()) != null){
+                throw new DataAccessException("Username taken");
+            }
+        }
+        insertUsers(users);
+        insertAuths(auths);
+    }
     AuthData getAuth(String authToken) throws DataAccessException;
+    // records a use of the token, pushing its expiry back; false if it is no longer valid.
+    // every store already slides expiry on lookup, so by default this is just one
+    default boolean touchAuth(String authToken) throws DataAccessException {
+        return getAuth(authToken) != null;
+    }
     void deleteAuth(String authToken) throws DataAccessException;
+    // writes out anything held back in memory; stores that write straight through have nothing to do
+    default void flush() throws DataAccessException {
+    }
 }
@@ -0,0 +1,72 @@
+package server;
+
+import model.*;
+import serialization.JsonCodec;
+import service.GameService;
+import service.ServiceException;
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+
+public class GameHandler {
+    private final GameService games;
+    private final JsonCodec codec;
+    private final SerializedGameCache serialized;
+
+    public GameHandler(GameService games, JsonCodec codec, SerializedGameCache serialized) {
+        this.games = games;
+        this.codec = codec;
+        this.serialized = serialized;
+    }
+
+    //GET /game
+    public Object listGames(Request req, Response res) throws ServiceException, IOException {
+        String authToken = req.headers("authorization");
+        games.authenticate(authToken);
+        if(HttpCaching.notModified(req, res, HttpCaching.etag("list", serialized.listVersion()))){
+            return "";
+        }
+        var entry = serialized.list(() -> new ListGamesResult(games.listGames(authToken)));
+        return HttpCaching.send(req, res, entry, HttpCaching.etag("list", entry.version()));
+    }
+
+    //GET /game/:id
+    public Object getGame(Request req, Response res) throws ServiceException, IOException {
+        String authToken = req.headers("authorization");
+        games.authenticate(authToken);
+        int gameID = gameID(req);
+        if(HttpCaching.notModified(req, res, HttpCaching.etag("game" + gameID, serialized.gameVersion(gameID)))){
+            return "";
+        }
+        var entry = serialized.game(gameID, () -> games.getGame(authToken, gameID));
+        return HttpCaching.send(req, res, entry, HttpCaching.etag("game" + gameID, entry.version()));
+    }
+
+    //POST /game
+    public Object createGame(Request req, Response res) throws ServiceException {
+        CreateGameRequest request = Server.readBody(codec, req, CreateGameRequest.class);
+        return codec.toJson(new CreateGameResult(games.createGame(req.headers("authorization"), request)));
+    }
+
+    //POST /game/batch
+    public Object createGames(Request req, Response res) throws ServiceException {
+        CreateGamesRequest request = Server.readBody(codec, req, CreateGamesRequest.class);
+        return codec.toJson(new CreateGamesResult(games.createGames(req.headers("authorization"), request == null ? null : request.gameNames())));
+    }
+
+    //PUT /game
+    public Object joinGame(Request req, Response res) throws ServiceException {
+        JoinGameRequest request = Server.readBody(codec, req, JoinGameRequest.class);
+        games.joinGame(req.headers("authorization"), request);
+        return "{}";
+    }
+
+    private static int gameID(Request req) throws ServiceException {
+        try{
+            return Integer.parseInt(req.params(":id"));
+        } catch (NumberFormatException ex) {
+            throw new ServiceException(400, "Error: bad request", ex);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package server;
+
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+
+/**
+ * Conditional requests and compression for responses built from {@link SerializedGameCache}.
+ * <p>
+ * ETags are weak validators made from the game or list version, so checking
+ * If-None-Match costs a map lookup and an unchanged poll gets a 304 with no body and
+ * no serialization. Bodies go out gzipped when the client accepts it; the compressed
+ * bytes are cached alongside the JSON, so each version is compressed once.
+ */
+final class HttpCaching {
+    // below this gzip's own overhead eats most of the savings
+    static final int MIN_GZIP_SIZE = 256;
+
+    private HttpCaching() {
+    }
+
+    static String etag(String resource, long version) {
+        return "W/\"" + resource + "-" + version + "\"";
+    }
+
+    /**
+     * Answers 304 if the client already has etag
+     *
+     * @return true if the response is done
+     */
+    static boolean notModified(Request req, Response res, String etag) {
+        String ifNoneMatch = req.headers("If-None-Match");
+        if(ifNoneMatch == null || !matches(ifNoneMatch, etag)){
+            return false;
+        }
+        res.status(304);
+        res.header("ETag", etag);
+        res.header("Cache-Control", "no-cache");
+        return true;
+    }
+
+    // If-None-Match uses weak comparison: W/ prefixes are ignored
+    static boolean matches(String ifNoneMatch, String etag) {
+        String wanted = stripWeak(etag);
+        for(String candidate : ifNoneMatch.split(",")){
+            String tag = candidate.trim();
+            if(tag.equals("*") || stripWeak(tag).equals(wanted)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /**
+     * Writes the entry with its ETag, gzipped if the client takes it
+     *
+     * @return the value for the route to return
+     */
+    static Object send(Request req, Response res, SerializedGameCache.Entry entry, String etag) throws IOException {
+        res.header("ETag", etag);
+        res.header("Cache-Control", "no-cache");
+        res.header("Vary", "Accept-Encoding");
+        if(entry.body().length < MIN_GZIP_SIZE || !acceptsGzip(req.headers("Accept-Encoding"))){
+            return entry.body();
+        }
+        // written here rather than returned: Spark would compress the bytes again. once the
+        // response is committed Spark leaves the body alone
+        byte[] gzipped = entry.gzipped();
+        var raw = res.raw();
+        raw.setHeader("Content-Encoding", "gzip");
+        raw.setContentLength(gzipped.length);
+        raw.getOutputStream().write(gzipped);
+        raw.flushBuffer();
+        return "";
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if(acceptEncoding == null){
+            return false;
+        }
+        for(String coding : acceptEncoding.split(",")){
+            String[] parts = coding.trim().split(";");
+            if(parts[0].trim().equalsIgnoreCase("gzip")){
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,176 @@
+package server;
+
+import spark.Request;
+import spark.Response;
+import spark.Route;
+import util.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-route request counts, status classes and latency histograms, written out in the
+ * Prometheus text format.
+ * <p>
+ * A before filter stamps the start time on the request and an afterAfter filter, which
+ * Spark runs even when the route threw, records the outcome. Routes are labelled by
+ * their pattern (e.g. "GET /game/:id") through {@link #label}, never by the raw path,
+ * so the number of series stays fixed; anything unlabelled (static files, unknown
+ * paths) is counted as "other".
+ */
+public class RequestMetrics {
+    private static final String START = "metrics.start";
+    private static final String ROUTE = "metrics.route";
+    private static final String OTHER = "other";
+    // bucket bounds for the exported histogram, in seconds
+    private static final double[] BOUNDS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    // the same bounds moved up to the end of the histogram bucket holding each, so every
+    // exported le counts exactly the requests at or below it (at most ~6% above the round figure)
+    private static final long[] BOUND_MICROS = Arrays.stream(BOUNDS)
+            .mapToLong(bound -> LatencyHistogram.bucketEnd(Math.round(bound * 1_000_000)))
+            .distinct()
+            .toArray();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static class RouteStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        // index 0 for 1xx through 4 for 5xx
+        final LongAdder[] statuses = new LongAdder[5];
+
+        RouteStats() {
+            for(int i = 0; i < statuses.length; i++){
+                statuses[i] = new LongAdder();
+            }
+        }
+    }
+
+    // type is the Prometheus TYPE, gauge or counter
+    private record Gauge(String type, String help, DoubleSupplier value) {}
+
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Wraps route so its requests are counted under name
+     */
+    public Route label(String name, Route route) {
+        routes.computeIfAbsent(name, key -> new RouteStats());
+        return (req, res) -> {
+            req.attribute(ROUTE, name);
+            return route.handle(req, res);
+        };
+    }
+
+    /**
+     * Exports value under name, sampled each time the metrics are read
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        gauges.put(name, new Gauge("gauge", help, value));
+    }
+
+    /**
+     * Exports value under name as a counter, so rate() and reset handling apply; value must never go down
+     */
+    public void counter(String name, String help, LongSupplier value) {
+        gauges.put(name, new Gauge("counter", help, () -> value.getAsLong()));
+    }
+
+    //filters
+    public void before(Request req, Response res) {
+        req.attribute(START, System.nanoTime());
+    }
+
+    public void afterAfter(Request req, Response res) {
+        Long start = req.attribute(START);
+        if(start == null){
+            return;
+        }
+        String name = req.attribute(ROUTE);
+        record(name != null ? name : OTHER, res.status(), System.nanoTime() - start);
+    }
+
+    void record(String route, int status, long nanos) {
+        RouteStats stats = routes.computeIfAbsent(route, key -> new RouteStats());
+        stats.latency.record(nanos / 1000);
+        int statusClass = status / 100 - 1;
+        stats.statuses[Math.max(0, Math.min(4, statusClass))].increment();
+    }
+
+    public long requestCount(String route) {
+        RouteStats stats = routes.get(route);
+        return stats == null ? 0 : stats.latency.count();
+    }
+
+    /**
+     * @return the share of the route's requests that ended in a 5xx
+     */
+    public double errorRate(String route) {
+        RouteStats stats = routes.get(route);
+        long total = stats == null ? 0 : stats.latency.count();
+        return total == 0 ? 0.0 : (double) stats.statuses[4].sum() / total;
+    }
+
+    //GET /metrics
+    public Object scrape(Request req, Response res) {
+        res.type("text/plain; version=0.0.4; charset=utf-8");
+        return render();
+    }
+
+    String render() {
+        StringBuilder out = new StringBuilder(4096);
+        Map<String, RouteStats> sorted = new TreeMap<>(routes);
+
+        out.append("# HELP chess_http_responses_total Responses by route and status class.\n");
+        out.append("# TYPE chess_http_responses_total counter\n");
+        sorted.forEach((route, stats) -> {
+            for(int i = 0; i < stats.statuses.length; i++){
+                long n = stats.statuses[i].sum();
+                if(n > 0){
+                    out.append("chess_http_responses_total{route=\"").append(route)
+                            .append("\",status=\"").append(i + 1).append("xx\"} ").append(n).append('\n');
+                }
+            }
+        });
+
+        out.append("# HELP chess_http_request_duration_seconds Request latency by route.\n");
+        out.append("# TYPE chess_http_request_duration_seconds histogram\n");
+        sorted.forEach((route, stats) -> {
+            LatencyHistogram latency = stats.latency;
+            for(long bound : BOUND_MICROS){
+                out.append("chess_http_request_duration_seconds_bucket{route=\"").append(route)
+                        .append("\",le=\"").append(bound / 1e6).append("\"} ")
+                        .append(latency.countAtOrBelow(bound)).append('\n');
+            }
+            long count = latency.count();
+            out.append("chess_http_request_duration_seconds_bucket{route=\"").append(route)
+                    .append("\",le=\"+Inf\"} ").append(count).append('\n');
+            out.append("chess_http_request_duration_seconds_sum{route=\"").append(route).append("\"} ")
+                    .append(latency.sumMicros() / 1e6).append('\n');
+            out.append("chess_http_request_duration_seconds_count{route=\"").append(route).append("\"} ")
+                    .append(count).append('\n');
+        });
+
+        out.append("# HELP chess_http_request_latency_quantile_seconds Latency quantiles since start, from the histogram.\n");
+        out.append("# TYPE chess_http_request_latency_quantile_seconds gauge\n");
+        sorted.forEach((route, stats) -> {
+            for(double quantile : QUANTILES){
+                out.append("chess_http_request_latency_quantile_seconds{route=\"").append(route)
+                        .append("\",quantile=\"").append(quantile).append("\"} ")
+                        .append(stats.latency.valueAtPercentile(quantile * 100) / 1e6).append('\n');
+            }
+        });
+
+        new TreeMap<>(gauges).forEach((name, gauge) -> {
+            out.append("# HELP ").append(name).append(' ').append(gauge.help()).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(gauge.type()).append('\n');
+            out.append(name).append(' ').append(gauge.value().getAsDouble()).append('\n');
+        });
+        return out.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package server;
+
+import dataaccess.GameChangeListener;
+import dataaccess.VersionedDataAccess;
+import serialization.JsonCodec;
+import service.ServiceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the JSON bytes of recently served games and of the game list, tagged with the
+ * version they were made from (see {@link VersionedDataAccess}).
+ * <p>
+ * A request whose game has not changed gets the stored bytes as they are, so a game with
+ * many spectators is serialized once per change instead of once per request. Entries
+ * are dropped as soon as their game is written and are never served for another version.
+ */
+public class SerializedGameCache implements GameChangeListener {
+
+    /**
+     * JSON bytes for one version, with the gzipped form made the first time it is asked for
+     */
+    public static final class Entry {
+        private final long version;
+        private final byte[] body;
+        private volatile byte[] gzipped;
+
+        Entry(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        public byte[] gzipped() {
+            byte[] compressed = gzipped;
+            if(compressed == null){
+                compressed = gzip(body);
+                gzipped = compressed;
+            }
+            return compressed;
+        }
+
+        private static byte[] gzip(byte[] body) {
+            var out = new ByteArrayOutputStream(body.length / 4 + 32);
+            try(var zip = new GZIPOutputStream(out)){
+                zip.write(body);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    // produces the value to serialize on a miss
+    public interface Loader {
+        Object load() throws ServiceException;
+    }
+
+    private final VersionedDataAccess versions;
+    private final JsonCodec codec;
+    private final int capacity;
+    private final Map<Integer, Entry> games = new ConcurrentHashMap<>();
+    private volatile Entry list;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SerializedGameCache(VersionedDataAccess versions, JsonCodec codec, int capacity) {
+        this.versions = versions;
+        this.codec = codec;
+        this.capacity = capacity;
+        versions.addListener(this);
+    }
+
+    public Entry game(int gameID, Loader loader) throws ServiceException {
+        // version before contents, so the contents are never older than the version
+        long version = versions.gameVersion(gameID);
+        Entry entry = games.get(gameID);
+        if(entry != null && entry.version() == version){
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        Entry fresh = new Entry(version, serialize(loader.load()));
+        if(games.size() >= capacity){
+            evictOne();
+        }
+        games.merge(gameID, fresh, (old, loaded) -> old.version() >= loaded.version() ? old : loaded);
+        return fresh;
+    }
+
+    // the version game(gameID, ...) would serve right now, without loading anything
+    public long gameVersion(int gameID) {
+        return versions.gameVersion(gameID);
+    }
+
+    public long listVersion() {
+        return versions.listVersion();
+    }
+
+    public Entry list(Loader loader) throws ServiceException {
+        long version = versions.listVersion();
+        Entry entry = list;
+        if(entry != null && entry.version() == version){
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        Entry fresh = new Entry(version, serialize(loader.load()));
+        list = fresh;
+        return fresh;
+    }
+
+    private byte[] serialize(Object value) {
+        return codec.toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // any entry will do; popular games come straight back on their next request
+    private void evictOne() {
+        Iterator<Integer> keys = games.keySet().iterator();
+        if(keys.hasNext()){
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    @Override
+    public void gameChanged(int gameID, long version) {
+        games.remove(gameID);
+    }
+
+    @Override
+    public void allGamesChanged() {
+        games.clear();
+        list = null;
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+}
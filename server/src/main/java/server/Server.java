@@ -1,25 +1,368 @@
 package server;
 
+import dataaccess.DataAccessException;
+import dataaccess.VersionedDataAccess;
+import dataaccess.dataAccess;
+import model.ErrorResult;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import serialization.CodecException;
+import serialization.JsonCodec;
+import server.websocket.ConnectionManager;
+import server.websocket.WebSocketHandler;
+import service.*;
 import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Server {
+    private static final Logger LOG = LoggerFactory.getLogger(Server.class);
+    private static final int SERIALIZED_GAME_CAPACITY = 4096;
+    private static final String COUNTED = "server.inFlight";
+
+    private final dataAccess dao;
+    private final boolean ownsDataAccess;
+    private final ServerConfig config;
+    private ThreadPool threadPool;
+    private final PasswordService passwords = new PasswordService();
+    private final JsonCodec codec;
+
+    private final UserHandler userHandler;
+    private final GameHandler gameHandler;
+    private final ClearService clearService;
+    private final SerializedGameCache serializedGames;
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final GameActors actors = new GameActors();
+    private final GameClocks clocks;
+    private final ConnectionManager connections;
+    private final WebSocketHandler webSocketHandler;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean draining = false;
+    private volatile boolean stopped = false;
+
+    /**
+     * Configured by the system properties (see {@link ServerConfig})
+     */
+    public Server() {
+        this(ServerConfig.fromSystemProperties());
+    }
+
+    public Server(ServerConfig config) {
+        this(openDataAccess(config), true, config);
+    }
+
+    public Server(dataAccess dao) {
+        this(dao, ServerConfig.fromSystemProperties());
+    }
+
+    public Server(dataAccess dao, ServerConfig config) {
+        this(dao, false, config);
+    }
+
+    private Server(dataAccess dao, boolean ownsDataAccess, ServerConfig config) {
+        this.dao = dao;
+        this.ownsDataAccess = ownsDataAccess;
+        this.config = config;
+        this.codec = config.createJsonCodec();
+        VersionedDataAccess versioned = new VersionedDataAccess(dao);
+        this.serializedGames = new SerializedGameCache(versioned, codec, SERIALIZED_GAME_CAPACITY);
+        UserService userService = new UserService(versioned, passwords, new TokenService());
+        this.clocks = new GameClocks(config.timeControl());
+        this.userHandler = new UserHandler(userService, codec);
+        this.gameHandler = new GameHandler(new GameService(versioned, userService, actors, clocks), codec,
+                serializedGames);
+        this.clearService = new ClearService(versioned);
+        this.connections = new ConnectionManager(codec);
+        this.webSocketHandler = new WebSocketHandler(new GameplayService(versioned, userService, clocks), actors,
+                connections, codec);
+        registerGauges();
+    }
+
+    private static dataAccess openDataAccess(ServerConfig config) {
+        try{
+            return config.openDataAccess();
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("could not open " + config.storage() + " storage", ex);
+        }
+    }
 
     public int run(int desiredPort) {
+        // the factory is global to Spark, so set it every time in case another mode ran before
+        threadPool = config.createThreadPool();
+        EmbeddedServers.add(EmbeddedServers.defaultIdentifier(), new EmbeddedJettyFactory().withThreadPool(threadPool));
         Spark.port(desiredPort);
 
         Spark.staticFiles.location("web");
+        // websockets have to be registered before any route
+        Spark.webSocket("/ws", webSocketHandler);
+
+        Spark.before((req, res) -> res.type("application/json"));
+        Spark.before(metrics::before);
+        Spark.afterAfter(metrics::afterAfter);
+        Spark.before(this::admit);
+        Spark.afterAfter(this::release);
 
-        // Register your endpoints and handle exceptions here.
+        //clear
+        delete("/db", (req, res) -> {
+            clearService.clear();
+            clocks.clear();
+            return "{}";
+        });
+        //user
+        post("/user/batch", userHandler::registerAll);
+        post("/user", userHandler::register);
+        post("/session", userHandler::login);
+        delete("/session", userHandler::logout);
+        //game
+        get("/game", gameHandler::listGames);
+        get("/game/:id", gameHandler::getGame);
+        post("/game/batch", gameHandler::createGames);
+        post("/game", gameHandler::createGame);
+        put("/game", gameHandler::joinGame);
+        //metrics, only for scrapers on this machine
+        get("/metrics", (req, res) -> {
+            if(!isLoopback(req.ip())){
+                throw new ServiceException(403, "Error: metrics are only served locally");
+            }
+            return metrics.scrape(req, res);
+        });
+
+        Spark.exception(ServiceException.class, (ex, req, res) -> error(res, ex.statusCode(), ex.getMessage()));
+        Spark.exception(Exception.class, (ex, req, res) -> {
+            LOG.error("unhandled error on {} {}", req.requestMethod(), req.pathInfo(), ex);
+            error(res, 500, "Error: " + ex.getMessage());
+        });
 
-        //This line initializes the server and can be removed once you have a functioning endpoint 
         Spark.init();
 
         Spark.awaitInitialization();
+        // one thread for every game's clock; the flag itself is dealt with on the game's actor
+        clocks.run(gameID -> actors.execute(gameID, () -> webSocketHandler.timeOut(gameID)));
         return Spark.port();
     }
 
+    // while draining only the metrics stay up, so the drain itself can be watched
+    private void admit(Request req, Response res) {
+        if(draining && !"/metrics".equals(req.pathInfo())){
+            Spark.halt(503, codec.toJson(new ErrorResult("Error: server is shutting down")));
+        }
+        req.attribute(COUNTED, true);
+        inFlight.incrementAndGet();
+    }
+
+    private void release(Request req, Response res) {
+        if(req.attribute(COUNTED) != null){
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void get(String path, Route route) {
+        Spark.get(path, metrics.label("GET " + path, route));
+    }
+
+    private void post(String path, Route route) {
+        Spark.post(path, metrics.label("POST " + path, route));
+    }
+
+    private void put(String path, Route route) {
+        Spark.put(path, metrics.label("PUT " + path, route));
+    }
+
+    private void delete(String path, Route route) {
+        Spark.delete(path, metrics.label("DELETE " + path, route));
+    }
+
+    private static boolean isLoopback(String ip) {
+        try{
+            return ip != null && InetAddress.getByName(ip).isLoopbackAddress();
+        } catch (UnknownHostException ex) {
+            return false;
+        }
+    }
+
+    private void registerGauges() {
+        metrics.gauge("chess_password_queue_depth", "Password hashes waiting for a thread.", passwords::queueDepth);
+        metrics.gauge("chess_password_active", "Password hashes running.", passwords::activeCount);
+        metrics.counter("chess_password_rejected_total", "Password hashes refused because the queue was full.",
+                passwords::rejectedCount);
+        metrics.counter("chess_password_abandoned_total", "Password hashes skipped because the caller gave up waiting.",
+                passwords::abandonedCount);
+        metrics.counter("chess_serialized_game_hits_total", "Game and list responses served from cached JSON.",
+                serializedGames::hits);
+        metrics.counter("chess_serialized_game_misses_total", "Game and list responses that had to be serialized.",
+                serializedGames::misses);
+        metrics.gauge("chess_ws_sessions", "Websocket sessions connected to a game.", connections::sessionCount);
+        metrics.counter("chess_ws_send_failures_total", "Websocket writes that failed and dropped their session.",
+                connections::failedCount);
+        metrics.counter("chess_ws_dropped_frames_total", "Websocket frames dropped because a session's queue was full.",
+                connections::droppedCount);
+        metrics.counter("chess_ws_replaced_games_total", "Queued LOAD_GAME frames replaced by a newer game.",
+                connections::replacedCount);
+        metrics.counter("chess_ws_slow_disconnects_total", "Websocket sessions closed for falling too far behind.",
+                connections::slowDisconnectCount);
+        metrics.gauge("chess_game_actors", "Games with commands queued or running.", actors::activeCount);
+        metrics.gauge("chess_game_mailbox_depth", "Game commands queued or running, over all games.",
+                actors::totalDepth);
+        metrics.gauge("chess_game_mailbox_max_depth", "Deepest single game mailbox.", actors::maxDepth);
+        metrics.gauge("chess_game_clocks", "Timed games with a clock running.", clocks::size);
+        metrics.counter("chess_game_flags_total", "Games lost on time.", clocks::flagCount);
+        metrics.gauge("chess_jvm_heap_used_bytes", "Heap in use, garbage included.",
+                () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        metrics.gauge("chess_jvm_heap_after_gc_bytes", "Heap still in use after each pool's last collection.",
+                Server::heapAfterGc);
+        metrics.gauge("chess_http_in_flight", "HTTP requests being handled.", inFlight::get);
+        metrics.gauge("chess_http_threads", "Threads currently in the request pool.",
+                () -> threadPool == null ? 0 : threadPool.getThreads());
+    }
+
+    // what survives collection is what grows when something leaks
+    private static double heapAfterGc() {
+        long used = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if(pool.getType() == MemoryType.HEAP && afterGc != null){
+                used += afterGc.getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Drains for up to the configured drain timeout, then stops (see {@link #stop(Duration)})
+     */
     public void stop() {
+        stop(config.drainTimeout());
+    }
+
+    /**
+     * Shuts down without losing moves that were already accepted.
+     * <p>
+     * New HTTP requests get a 503 and new websocket connections and commands are turned away.
+     * Then, for up to timeout in total, the requests being handled finish, every game's queued
+     * commands run and the resulting frames are sent. Only then are the remaining sessions
+     * closed with a restart code, anything the storage holds back is flushed and Jetty stops.
+     * Whatever is still running when timeout runs out is cut off, but the flush happens anyway.
+     *
+     * @return true if everything in flight finished within timeout
+     */
+    public synchronized boolean stop(Duration timeout) {
+        if(stopped){
+            return true;
+        }
+        stopped = true;
+        long started = System.nanoTime();
+        long deadline = started + timeout.toNanos();
+        draining = true;
+        webSocketHandler.drain();
+        clocks.close();
+        boolean drained = false;
+        try{
+            drained = awaitRequests(deadline)
+                    && actors.awaitIdle(remaining(deadline))
+                    && connections.awaitFlushed(remaining(deadline));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        int closed = connections.closeAll(StatusCode.SERVICE_RESTART, "server restarting");
+        try{
+            dao.flush();
+        } catch (DataAccessException ex) {
+            drained = false;
+            LOG.error("failed to flush data access on shutdown", ex);
+        }
+        if(drained){
+            LOG.info("drained in {} ms, closed {} websocket sessions", elapsedMillis(started), closed);
+        }else{
+            LOG.warn("drain cut off after {} ms with {} requests and {} game commands still running",
+                    elapsedMillis(started), inFlight.get(), actors.totalDepth());
+        }
         Spark.stop();
         Spark.awaitStop();
+        passwords.close();
+        if(ownsDataAccess && dao instanceof AutoCloseable closeable){
+            try{
+                closeable.close();
+            } catch (Exception ex) {
+                LOG.warn("failed to close data access", ex);
+            }
+        }
+        return drained;
+    }
+
+    private boolean awaitRequests(long deadline) throws InterruptedException {
+        while(inFlight.get() > 0){
+            if(System.nanoTime() - deadline >= 0){
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private static Duration remaining(long deadline) {
+        return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+
+    private static long elapsedMillis(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public RequestMetrics metrics() {
+        return metrics;
+    }
+
+    public GameActors actors() {
+        return actors;
+    }
+
+    public GameClocks clocks() {
+        return clocks;
+    }
+
+    public ConnectionManager connections() {
+        return connections;
+    }
+
+    public SerializedGameCache serializedGames() {
+        return serializedGames;
+    }
+
+    /**
+     * The pool requests run on; null until the server has been started
+     */
+    public ThreadPool threadPool() {
+        return threadPool;
+    }
+
+    private void error(Response res, int status, String message) {
+        res.status(status);
+        res.type("application/json");
+        res.body(codec.toJson(new ErrorResult(message)));
+    }
+
+    /**
+     * Parses the request body, or returns null if there is none
+     */
+    static <T> T readBody(JsonCodec codec, Request req, Class<T> type) throws ServiceException {
+        try{
+            return codec.fromJson(req.body(), type);
+        } catch (CodecException ex) {
+            throw new ServiceException(400, "Error: bad request", ex);
+        }
     }
 }
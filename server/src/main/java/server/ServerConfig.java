@@ -0,0 +1,104 @@
+package server;
+
+import dataaccess.*;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import serialization.JsonCodec;
+import service.TimeControl;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * How the server is set up, read from system properties:
+ * <ul>
+ *     <li>chess.storage: memory (default), sql or file</li>
+ *     <li>chess.dataDir: directory for file storage, default "data"</li>
+ *     <li>chess.threads: platform (default) for Jetty's bounded pool, or virtual for a virtual thread per task</li>
+ *     <li>chess.maxThreads: size of the platform pool, default 200</li>
+ *     <li>chess.json: streaming (default) for the hand-written chess serializers, or gson for plain reflection</li>
+ *     <li>chess.clockSeconds: time each player starts with; 0 (default) leaves games untimed</li>
+ *     <li>chess.incrementSeconds: added to a player's clock after each move, default 0</li>
+ *     <li>chess.delaySeconds: grace at the start of each turn before the clock runs, default 0</li>
+ *     <li>chess.drainSeconds: how long {@link Server#stop()} waits for in-flight work, default 10</li>
+ * </ul>
+ */
+public record ServerConfig(Storage storage, Path dataDirectory, PoolMode poolMode, int maxThreads,
+                           String jsonCodec, TimeControl timeControl, Duration drainTimeout) {
+    public static final int DEFAULT_MAX_THREADS = 200;
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
+    public enum Storage {
+        MEMORY, SQL, FILE
+    }
+
+    public enum PoolMode {
+        PLATFORM, VIRTUAL
+    }
+
+    public static ServerConfig defaults() {
+        return new ServerConfig(Storage.MEMORY, Path.of("data"), PoolMode.PLATFORM, DEFAULT_MAX_THREADS, "streaming",
+                TimeControl.UNTIMED, DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    public static ServerConfig fromSystemProperties() {
+        Storage storage = Storage.valueOf(System.getProperty("chess.storage", "memory").trim().toUpperCase());
+        Path dataDirectory = Path.of(System.getProperty("chess.dataDir", "data"));
+        PoolMode poolMode = PoolMode.valueOf(System.getProperty("chess.threads", "platform").trim().toUpperCase());
+        int maxThreads = Integer.getInteger("chess.maxThreads", DEFAULT_MAX_THREADS);
+        String jsonCodec = System.getProperty("chess.json", "streaming");
+        TimeControl timeControl = TimeControl.ofSeconds(Long.getLong("chess.clockSeconds", 0),
+                Long.getLong("chess.incrementSeconds", 0), Long.getLong("chess.delaySeconds", 0));
+        Duration drainTimeout = Duration.ofSeconds(Long.getLong("chess.drainSeconds",
+                DEFAULT_DRAIN_TIMEOUT.toSeconds()));
+        return new ServerConfig(storage, dataDirectory, poolMode, maxThreads, jsonCodec, timeControl, drainTimeout);
+    }
+
+    public ServerConfig withPoolMode(PoolMode mode) {
+        return new ServerConfig(storage, dataDirectory, mode, maxThreads, jsonCodec, timeControl, drainTimeout);
+    }
+
+    public ServerConfig withJsonCodec(String codec) {
+        return new ServerConfig(storage, dataDirectory, poolMode, maxThreads, codec, timeControl, drainTimeout);
+    }
+
+    public ServerConfig withTimeControl(TimeControl control) {
+        return new ServerConfig(storage, dataDirectory, poolMode, maxThreads, jsonCodec, control, drainTimeout);
+    }
+
+    public ServerConfig withDrainTimeout(Duration timeout) {
+        return new ServerConfig(storage, dataDirectory, poolMode, maxThreads, jsonCodec, timeControl, timeout);
+    }
+
+    public JsonCodec createJsonCodec() {
+        return JsonCodec.named(jsonCodec);
+    }
+
+    /**
+     * Creates the pool Jetty runs acceptors, selectors and requests on
+     */
+    public ThreadPool createThreadPool() {
+        return switch(poolMode){
+            case PLATFORM -> new QueuedThreadPool(maxThreads, Math.min(8, maxThreads));
+            case VIRTUAL -> new VirtualThreadPool("http");
+        };
+    }
+
+    /**
+     * Opens the configured store. SQL gets the full stack: auth and game caches in front,
+     * moves appended to a log, and both the log and whole-game writes held back and batched
+     * before they reach the database, so a move never waits on it.
+     */
+    public dataAccess openDataAccess() throws DataAccessException {
+        return switch(storage){
+            case MEMORY -> new DataAccessHelp();
+            case FILE -> new MappedFileDataAccess(dataDirectory);
+            case SQL -> new CachingAuthDataAccess(
+                    new CachingGameDataAccess(
+                            new MoveLogDataAccess(new WriteBehindDataAccess(new SqlDataAccess()),
+                                    new WriteBehindMoveLog(new SqlMoveLog())),
+                            4096),
+                    65536, Duration.ofSeconds(30));
+        };
+    }
+}
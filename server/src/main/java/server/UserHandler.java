@@ -0,0 +1,42 @@
+package server;
+
+import model.*;
+import serialization.JsonCodec;
+import service.ServiceException;
+import service.UserService;
+import spark.Request;
+import spark.Response;
+
+public class UserHandler {
+    private final UserService users;
+    private final JsonCodec codec;
+
+    public UserHandler(UserService users, JsonCodec codec) {
+        this.users = users;
+        this.codec = codec;
+    }
+
+    //POST /user
+    public Object register(Request req, Response res) throws ServiceException {
+        UserData user = Server.readBody(codec, req, UserData.class);
+        return codec.toJson(users.register(user));
+    }
+
+    //POST /user/batch
+    public Object registerAll(Request req, Response res) throws ServiceException {
+        RegisterBatchRequest request = Server.readBody(codec, req, RegisterBatchRequest.class);
+        return codec.toJson(new RegisterBatchResult(users.registerAll(request == null ? null : request.users())));
+    }
+
+    //POST /session
+    public Object login(Request req, Response res) throws ServiceException {
+        LoginRequest request = Server.readBody(codec, req, LoginRequest.class);
+        return codec.toJson(users.login(request));
+    }
+
+    //DELETE /session
+    public Object logout(Request req, Response res) throws ServiceException {
+        users.logout(req.headers("authorization"));
+        return "{}";
+    }
+}
@@ -0,0 +1,97 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.TryExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Jetty thread pool that runs every task on a new virtual thread.
+ * <p>
+ * A request that blocks on the database or on bcrypt parks its virtual thread and hands
+ * the carrier back, so the number of requests in flight is no longer capped by a fixed set
+ * of platform threads. Jetty's acceptors and selectors run here too; blocking accepts and
+ * selects are handled by the JDK without pinning a carrier for good.
+ * <p>
+ * There is no pool to run out of, so the server is never low on threads. Limits on
+ * expensive work belong to the resources themselves (e.g. {@link service.PasswordService}).
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool, TryExecutor {
+    private final ThreadFactory factory;
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder started = new LongAdder();
+    private final Object stopLock = new Object();
+
+    public VirtualThreadPool(String name) {
+        this.factory = Thread.ofVirtual().name(name + "-", 0).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if(!isRunning() && !isStarting()){
+            throw new RejectedExecutionException("thread pool is not running");
+        }
+        running.incrementAndGet();
+        started.increment();
+        factory.newThread(() -> {
+            try{
+                task.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        }).start();
+    }
+
+    // a virtual thread is always available
+    @Override
+    public boolean tryExecute(Runnable task) {
+        try{
+            execute(task);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        synchronized(stopLock){
+            stopLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        synchronized(stopLock){
+            while(!isStopped()){
+                stopLock.wait();
+            }
+        }
+    }
+
+    // threads currently running a task
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+
+    // tasks run since the pool started
+    public long startedCount() {
+        return started.sum();
+    }
+}
@@ -0,0 +1,25 @@
+package server.websocket;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a websocket client asked for when it connected, from the upgrade request's query:
+ * {@code format=binary} for {@link websocket.BinaryProtocol} frames instead of JSON text,
+ * {@code updates=delta} for MOVE_UPDATE instead of LOAD_GAME after moves.
+ */
+public record ClientOptions(boolean binary, boolean deltas) {
+    public static final ClientOptions DEFAULT = new ClientOptions(false, false);
+
+    public static ClientOptions fromParameters(Map<String, List<String>> parameters) {
+        if(parameters == null){
+            return DEFAULT;
+        }
+        return new ClientOptions(has(parameters, "format", "binary"), has(parameters, "updates", "delta"));
+    }
+
+    private static boolean has(Map<String, List<String>> parameters, String name, String value) {
+        List<String> values = parameters.get(name);
+        return values != null && values.contains(value);
+    }
+}
@@ -0,0 +1,293 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import serialization.JsonCodec;
+import websocket.BinaryProtocol;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveUpdateMessage;
+import websocket.messages.ServerMessage;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks which sessions are watching which game and fans messages out to them.
+ * <p>
+ * A broadcast is serialized once and the same frame is handed to every session. Writes are
+ * asynchronous, so a slow or dead client never holds up the sender or the other sessions;
+ * a session whose write fails, or that is found closed, is dropped from its game. What a
+ * session has not taken yet waits in its own bounded {@link Outbox}, which also closes
+ * sessions that stay too far behind.
+ * <p>
+ * Sessions that asked for deltas get a MOVE_UPDATE after each move instead of the whole
+ * game, and sessions that asked for binary get {@link BinaryProtocol} frames instead of JSON
+ * text (see {@link ClientOptions}); each form is still encoded at most once per broadcast.
+ */
+public class ConnectionManager {
+    public static final int DEFAULT_QUEUE_CAPACITY = 32;
+    public static final int DEFAULT_MAX_OVERFLOWS = 8;
+    public static final long DEFAULT_STALL_MILLIS = 10_000;
+
+    private final JsonCodec codec;
+    private final int queueCapacity;
+    private final int maxOverflows;
+    private final long stallMillis;
+    private final ConcurrentHashMap<Integer, Set<Session>> games = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, Integer> gameOf = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, ClientOptions> options = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, Outbox> outboxes = new ConcurrentHashMap<>();
+    private final Outbox.Listener outboxListener = new Outbox.Listener() {
+        @Override
+        public void sent() {
+            sent.increment();
+        }
+
+        @Override
+        public void failed(Session session) {
+            failed.increment();
+            forget(session);
+        }
+
+        @Override
+        public void dropped() {
+            dropped.increment();
+        }
+
+        @Override
+        public void replaced() {
+            replaced.increment();
+        }
+
+        @Override
+        public void tooSlow(Session session) {
+            slowDisconnects.increment();
+            forget(session);
+        }
+    };
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+    private final LongAdder slowDisconnects = new LongAdder();
+
+    public ConnectionManager(JsonCodec codec) {
+        this(codec, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_OVERFLOWS, DEFAULT_STALL_MILLIS);
+    }
+
+    /**
+     * @param queueCapacity frames a session may have waiting behind the one being written
+     * @param maxOverflows  times its queue may overflow before it catches up, after which it is closed
+     * @param stallMillis   how long one write may take before the session is closed on the next send
+     */
+    public ConnectionManager(JsonCodec codec, int queueCapacity, int maxOverflows, long stallMillis) {
+        this.codec = codec;
+        this.queueCapacity = queueCapacity;
+        this.maxOverflows = maxOverflows;
+        this.stallMillis = stallMillis;
+    }
+
+    /**
+     * Puts session in gameID's group, taking it out of any game it was in before
+     */
+    public void add(int gameID, Session session) {
+        Integer previous = gameOf.put(session, gameID);
+        if(previous != null && previous != gameID){
+            leaveGroup(previous, session);
+        }
+        // inside compute so a group being emptied and dropped cannot swallow the add
+        games.compute(gameID, (id, group) -> {
+            Set<Session> members = group == null ? ConcurrentHashMap.newKeySet() : group;
+            members.add(session);
+            return members;
+        });
+    }
+
+    /**
+     * Stops sending anything to session; call when it closes
+     */
+    public void forget(Session session) {
+        options.remove(session);
+        outboxes.remove(session);
+        remove(session);
+    }
+
+    /**
+     * Takes session out of its game
+     */
+    public void remove(Session session) {
+        Integer gameID = gameOf.remove(session);
+        if(gameID != null){
+            leaveGroup(gameID, session);
+        }
+    }
+
+    private void leaveGroup(int gameID, Session session) {
+        games.computeIfPresent(gameID, (id, group) -> {
+            group.remove(session);
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+    /**
+     * @return the game session is watching, or null
+     */
+    public Integer gameOf(Session session) {
+        return gameOf.get(session);
+    }
+
+    public void send(Session session, ServerMessage message) {
+        new Encoded(message).sendTo(session);
+    }
+
+    /**
+     * Sends message to everyone in gameID's group except exclude, which may be null
+     */
+    public void broadcast(int gameID, ServerMessage message, Session exclude) {
+        Set<Session> group = games.get(gameID);
+        if(group == null){
+            return;
+        }
+        Encoded encoded = new Encoded(message);
+        for(Session session : group){
+            if(session != exclude){
+                encoded.sendTo(session);
+            }
+        }
+    }
+
+    /**
+     * Sends the game after a move: update to sessions that take deltas, full to the rest
+     */
+    public void broadcastMove(int gameID, LoadGameMessage full, MoveUpdateMessage update) {
+        Set<Session> group = games.get(gameID);
+        if(group == null){
+            return;
+        }
+        Encoded fullGame = new Encoded(full);
+        Encoded delta = new Encoded(update);
+        for(Session session : group){
+            (optionsOf(session).deltas() ? delta : fullGame).sendTo(session);
+        }
+    }
+
+    public void setOptions(Session session, ClientOptions clientOptions) {
+        options.put(session, clientOptions);
+    }
+
+    public ClientOptions optionsOf(Session session) {
+        return options.getOrDefault(session, ClientOptions.DEFAULT);
+    }
+
+    // one message, encoded the first time a session needs each format
+    private final class Encoded {
+        private final ServerMessage message;
+        private String text;
+        private byte[] bytes;
+
+        Encoded(ServerMessage message) {
+            this.message = message;
+        }
+
+        void sendTo(Session session) {
+            if(optionsOf(session).binary()){
+                if(bytes == null){
+                    bytes = BinaryProtocol.encode(message);
+                }
+                write(session, new Outbox.Frame(null, bytes, replaceable()));
+            }else{
+                if(text == null){
+                    text = codec.toJson(message);
+                }
+                write(session, new Outbox.Frame(text, null, replaceable()));
+            }
+        }
+
+        private boolean replaceable() {
+            return message.getServerMessageType() == ServerMessage.ServerMessageType.LOAD_GAME;
+        }
+    }
+
+    private void write(Session session, Outbox.Frame frame) {
+        if(!session.isOpen()){
+            forget(session);
+            return;
+        }
+        outboxes.computeIfAbsent(session,
+                s -> new Outbox(s, queueCapacity, maxOverflows, stallMillis, outboxListener)).offer(frame);
+    }
+
+    /**
+     * @return frames waiting to be written to session
+     */
+    public int queued(Session session) {
+        Outbox outbox = outboxes.get(session);
+        return outbox == null ? 0 : outbox.queued();
+    }
+
+    /**
+     * Waits until every session has been sent everything queued for it
+     *
+     * @return false if some frames were still waiting when timeout ran out
+     */
+    public boolean awaitFlushed(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while(!outboxes.values().stream().allMatch(Outbox::idle)){
+            if(System.nanoTime() - deadline >= 0){
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    /**
+     * Closes every connected session, whether or not it has joined a game
+     *
+     * @return the number of sessions closed
+     */
+    public int closeAll(int statusCode, String reason) {
+        int closed = 0;
+        for(Session session : options.keySet()){
+            if(session.isOpen()){
+                session.close(statusCode, reason);
+                closed++;
+            }
+            forget(session);
+        }
+        return closed;
+    }
+
+    public int groupSize(int gameID) {
+        Set<Session> group = games.get(gameID);
+        return group == null ? 0 : group.size();
+    }
+
+    public int sessionCount() {
+        return gameOf.size();
+    }
+
+    public long sentCount() {
+        return sent.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    // frames thrown away because a session's queue was full
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    // full games replaced by a newer one before they were sent
+    public long replacedCount() {
+        return replaced.sum();
+    }
+
+    public long slowDisconnectCount() {
+        return slowDisconnects.sum();
+    }
+}
@@ -0,0 +1,161 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * One session's outgoing frames: at most one write in flight, the rest waiting in a bounded queue.
+ * <p>
+ * A new full game replaces one still waiting, since the client only needs the latest. When
+ * the queue is full the oldest other frame is dropped; a client that takes deltas notices
+ * the gap from the position hash and asks for the full game. A session that overflows too
+ * many times before it catches up, or whose current write has been stuck too long, is closed.
+ */
+final class Outbox {
+    /**
+     * @param replaceable a full game, which a later full game makes pointless
+     */
+    record Frame(String text, byte[] bytes, boolean replaceable) {}
+
+    interface Listener {
+        void sent();
+
+        void failed(Session session);
+
+        void dropped();
+
+        void replaced();
+
+        void tooSlow(Session session);
+    }
+
+    private final Session session;
+    private final int capacity;
+    private final int maxOverflows;
+    private final long stallNanos;
+    private final Listener listener;
+
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private boolean writing = false;
+    private long writeStarted;
+    private int overflows = 0;
+    private boolean closed = false;
+
+    Outbox(Session session, int capacity, int maxOverflows, long stallMillis, Listener listener) {
+        this.session = session;
+        this.capacity = capacity;
+        this.maxOverflows = maxOverflows;
+        this.stallNanos = stallMillis * 1_000_000;
+        this.listener = listener;
+    }
+
+    void offer(Frame frame) {
+        boolean slow = false;
+        synchronized(this){
+            if(closed){
+                return;
+            }
+            if(writing && System.nanoTime() - writeStarted > stallNanos){
+                slow = true;
+            }else if(!writing){
+                writing = true;
+                writeStarted = System.nanoTime();
+            }else{
+                enqueue(frame);
+                slow = overflows > maxOverflows;
+                frame = null;
+            }
+            if(slow){
+                closed = true;
+                queue.clear();
+            }
+        }
+        if(slow){
+            listener.tooSlow(session);
+            session.close(StatusCode.TRY_AGAIN_LATER, "too slow");
+        }else if(frame != null){
+            write(frame);
+        }
+    }
+
+    // called holding the lock while a write is in flight
+    private void enqueue(Frame frame) {
+        if(frame.replaceable()){
+            Iterator<Frame> waiting = queue.iterator();
+            while(waiting.hasNext()){
+                if(waiting.next().replaceable()){
+                    waiting.remove();
+                    listener.replaced();
+                    break;
+                }
+            }
+        }
+        if(queue.size() >= capacity){
+            overflows++;
+            Iterator<Frame> waiting = queue.iterator();
+            while(waiting.hasNext()){
+                if(!waiting.next().replaceable()){
+                    waiting.remove();
+                    break;
+                }
+            }
+            listener.dropped();
+        }
+        queue.add(frame);
+    }
+
+    private void write(Frame frame) {
+        WriteCallback callback = new WriteCallback() {
+            @Override
+            public void writeFailed(Throwable ex) {
+                synchronized(Outbox.this){
+                    closed = true;
+                    queue.clear();
+                }
+                listener.failed(session);
+            }
+
+            @Override
+            public void writeSuccess() {
+                listener.sent();
+                Frame next;
+                synchronized(Outbox.this){
+                    next = closed ? null : queue.poll();
+                    if(next == null){
+                        writing = false;
+                        // caught up, so earlier overflows no longer count against it
+                        overflows = 0;
+                        return;
+                    }
+                    writeStarted = System.nanoTime();
+                }
+                write(next);
+            }
+        };
+        try{
+            if(frame.bytes() != null){
+                // each session gets its own view, since sending moves the buffer's position
+                session.getRemote().sendBytes(ByteBuffer.wrap(frame.bytes()), callback);
+            }else{
+                session.getRemote().sendString(frame.text(), callback);
+            }
+        } catch (RuntimeException ex) {
+            // the connection went away under us
+            callback.writeFailed(ex);
+        }
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    // nothing being written and nothing waiting, or nothing ever will be
+    synchronized boolean idle() {
+        return closed || !writing && queue.isEmpty();
+    }
+}
@@ -0,0 +1,218 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.PositionHash;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import serialization.ChessNotation;
+import serialization.CodecException;
+import serialization.JsonCodec;
+import service.GameActors;
+import service.GameplayService;
+import service.ServiceException;
+import websocket.BinaryProtocol;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveUpdateMessage;
+import websocket.messages.NotificationMessage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The /ws endpoint: turns client commands into gameplay calls and the results into messages.
+ * <p>
+ * Commands run on their game's actor, so moves, the board broadcasts that follow them and
+ * joins from HTTP all happen in one order per game. Errors only ever go back to the session
+ * that sent the command.
+ * <p>
+ * Commands may come as JSON text or {@link BinaryProtocol} frames; replies go out in the
+ * format the client chose when it connected (see {@link ClientOptions}). Sending CONNECT
+ * again for the game a session is already in just resends the full game, which is how a
+ * client taking deltas gets back in step.
+ */
+@WebSocket
+public class WebSocketHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(WebSocketHandler.class);
+
+    private final GameplayService gameplay;
+    private final GameActors actors;
+    private final ConnectionManager connections;
+    private final JsonCodec codec;
+    private volatile boolean draining = false;
+
+    public WebSocketHandler(GameplayService gameplay, GameActors actors, ConnectionManager connections,
+                            JsonCodec codec) {
+        this.gameplay = gameplay;
+        this.actors = actors;
+        this.connections = connections;
+        this.codec = codec;
+    }
+
+    @OnWebSocketMessage
+    public void onMessage(Session session, String text) {
+        try{
+            dispatch(session, readCommand(text));
+        } catch (ServiceException ex) {
+            connections.send(session, new ErrorMessage(ex.getMessage()));
+        }
+    }
+
+    @OnWebSocketMessage
+    public void onBinary(Session session, byte[] payload, int offset, int length) {
+        try{
+            dispatch(session, BinaryProtocol.decodeCommand(ByteBuffer.wrap(payload, offset, length)));
+        } catch (CodecException ex) {
+            connections.send(session, new ErrorMessage("Error: bad command"));
+        } catch (ServiceException ex) {
+            connections.send(session, new ErrorMessage(ex.getMessage()));
+        }
+    }
+
+    private void dispatch(Session session, UserGameCommand command) throws ServiceException {
+        if(command.getCommandType() == null || command.getGameID() == null){
+            throw new ServiceException(400, "Error: bad command");
+        }
+        if(draining){
+            throw new ServiceException(503, "Error: server is shutting down");
+        }
+        actors.execute(command.getGameID(), () -> handle(session, command));
+    }
+
+    private void handle(Session session, UserGameCommand command) {
+        try{
+            switch(command.getCommandType()){
+                case CONNECT -> connect(session, command);
+                case MAKE_MOVE -> makeMove(session, (MakeMoveCommand) command);
+                case LEAVE -> leave(session, command);
+                case RESIGN -> resign(session, command);
+            }
+        } catch (ServiceException ex) {
+            connections.send(session, new ErrorMessage(ex.getMessage()));
+        } catch (RuntimeException ex) {
+            LOG.error("websocket command failed", ex);
+            connections.send(session, new ErrorMessage("Error: " + ex.getMessage()));
+        }
+    }
+
+    /**
+     * Stops taking new connections and commands; commands already queued still run
+     */
+    public void drain() {
+        draining = true;
+    }
+
+    @OnWebSocketConnect
+    public void onConnect(Session session) {
+        if(draining){
+            // clients treat this as a cue to reconnect, by which time another server has them
+            session.close(StatusCode.SERVICE_RESTART, "server restarting");
+            return;
+        }
+        connections.setOptions(session, ClientOptions.fromParameters(session.getUpgradeRequest().getParameterMap()));
+    }
+
+    @OnWebSocketClose
+    public void onClose(Session session, int statusCode, String reason) {
+        connections.forget(session);
+    }
+
+    @OnWebSocketError
+    public void onError(Session session, Throwable error) {
+        connections.forget(session);
+    }
+
+    private void connect(Session session, UserGameCommand command) throws ServiceException {
+        GameplayService.Connected connected = gameplay.connect(command.getAuthToken(), command.getGameID());
+        int gameID = connected.game().gameID();
+        boolean resync = Integer.valueOf(gameID).equals(connections.gameOf(session));
+        connections.add(gameID, session);
+        connections.send(session, new LoadGameMessage(connected.game().chessGame()));
+        if(resync){
+            return;
+        }
+        String joined = switch(connected.role()){
+            case WHITE -> connected.username() + " joined as white";
+            case BLACK -> connected.username() + " joined as black";
+            case OBSERVER -> connected.username() + " is observing";
+        };
+        connections.broadcast(gameID, new NotificationMessage(joined), session);
+    }
+
+    private void makeMove(Session session, MakeMoveCommand command) throws ServiceException {
+        GameplayService.Moved moved = gameplay.makeMove(command.getAuthToken(), command.getGameID(),
+                command.getPackedMove());
+        GameData game = moved.game();
+        ChessGame chessGame = game.chessGame();
+        connections.broadcastMove(game.gameID(), new LoadGameMessage(chessGame),
+                new MoveUpdateMessage(moved.move(), PositionHash.of(chessGame), moved.status()));
+        connections.broadcast(game.gameID(), new NotificationMessage(moved.username() + " moved "
+                + ChessNotation.square(moved.move().getStartPosition()) + " to "
+                + ChessNotation.square(moved.move().getEndPosition())), session);
+        // the side to move is the one the status is about
+        ChessGame.TeamColor side = chessGame.getTeamTurn();
+        String player = side == ChessGame.TeamColor.WHITE ? game.whiteUsername() : game.blackUsername();
+        String name = player != null ? player : side.name().toLowerCase();
+        String status = switch(moved.status()){
+            case CHECK -> name + " is in check";
+            case CHECKMATE -> name + " is in checkmate";
+            case STALEMATE -> "stalemate, the game is a draw";
+            case ACTIVE -> null;
+        };
+        if(status != null){
+            connections.broadcast(game.gameID(), new NotificationMessage(status), null);
+        }
+    }
+
+    /**
+     * Ends the game if its clock has run out; call on the game's actor when its deadline comes up
+     */
+    public void timeOut(int gameID) {
+        try{
+            GameplayService.TimedOut timedOut = gameplay.timeOut(gameID);
+            if(timedOut == null){
+                return;
+            }
+            GameData game = timedOut.game();
+            String loser = timedOut.loser() == ChessGame.TeamColor.WHITE ? game.whiteUsername() : game.blackUsername();
+            connections.broadcast(gameID, new LoadGameMessage(game.chessGame()), null);
+            connections.broadcast(gameID, new NotificationMessage((loser != null ? loser
+                    : timedOut.loser().name().toLowerCase()) + " ran out of time"), null);
+        } catch (ServiceException ex) {
+            LOG.warn("could not end game {} on time", gameID, ex);
+        }
+    }
+
+    private void leave(Session session, UserGameCommand command) throws ServiceException {
+        String username = gameplay.leave(command.getAuthToken(), command.getGameID());
+        connections.remove(session);
+        connections.broadcast(command.getGameID(), new NotificationMessage(username + " left the game"), null);
+    }
+
+    private void resign(Session session, UserGameCommand command) throws ServiceException {
+        String username = gameplay.resign(command.getAuthToken(), command.getGameID());
+        connections.broadcast(command.getGameID(), new NotificationMessage(username + " resigned"), null);
+    }
+
+    private UserGameCommand readCommand(String text) throws ServiceException {
+        try{
+            UserGameCommand command = codec.fromJson(text, UserGameCommand.class);
+            if(command == null){
+                throw new ServiceException(400, "Error: bad command");
+            }
+            // a plain Gson codec does not know about the subclass, so read it again as a move
+            if(command.getCommandType() == UserGameCommand.CommandType.MAKE_MOVE
+                    && !(command instanceof MakeMoveCommand)){
+                command = codec.fromJson(text, MakeMoveCommand.class);
+            }
+            return command;
+        } catch (CodecException ex) {
+            throw new ServiceException(400, "Error: bad command", ex);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package service;
+
+import dataaccess.DataAccessException;
+import dataaccess.dataAccess;
+
+public class ClearService {
+    private final dataAccess dao;
+
+    public ClearService(dataAccess dao) {
+        this.dao = dao;
+    }
+
+    // removes every user, game and auth token
+    public void clear() throws ServiceException {
+        try{
+            dao.clear();
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gives every active game a single writer.
+ * <p>
+ * Each game gets a mailbox; commands for the game wait there and are run one at a time,
+ * in the order they arrived, by whichever task is currently draining that mailbox. Only one
+ * task drains a given mailbox at once, so nothing that touches a game needs a lock, while
+ * different games drain side by side on as many threads as the executor gives them.
+ * An actor that runs out of work is dropped and made again on the next command.
+ */
+public class GameActors {
+    private static final Logger LOG = LoggerFactory.getLogger(GameActors.class);
+
+    public interface Action<T> {
+        T run() throws ServiceException;
+    }
+
+    private final Executor executor;
+    private final ConcurrentHashMap<Integer, Actor> actors = new ConcurrentHashMap<>();
+    private final LongAdder processed = new LongAdder();
+
+    /**
+     * Drains each mailbox on its own virtual thread
+     */
+    public GameActors() {
+        this(virtualThreads());
+    }
+
+    public GameActors(Executor executor) {
+        this.executor = executor;
+    }
+
+    private static Executor virtualThreads() {
+        ThreadFactory factory = Thread.ofVirtual().name("game-actor-", 0).factory();
+        return task -> factory.newThread(task).start();
+    }
+
+    /**
+     * Queues task behind the game's earlier commands and returns right away
+     */
+    public void execute(int gameID, Runnable task) {
+        Actor[] idle = new Actor[1];
+        actors.compute(gameID, (id, actor) -> {
+            Actor owner = actor == null ? new Actor(id) : actor;
+            if(owner.enqueue(task)){
+                idle[0] = owner;
+            }
+            return owner;
+        });
+        // started outside compute, since a drain that finishes at once removes itself from the map
+        if(idle[0] != null){
+            executor.execute(idle[0]);
+        }
+    }
+
+    /**
+     * Runs action on the game's actor and waits for its result
+     */
+    public <T> T call(int gameID, Action<T> action) throws ServiceException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        execute(gameID, () -> {
+            try{
+                result.complete(action.run());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        try{
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(503, "Error: interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if(cause instanceof ServiceException serviceException){
+                throw serviceException;
+            }
+            if(cause instanceof RuntimeException runtime){
+                throw runtime;
+            }
+            if(cause instanceof Error error){
+                throw error;
+            }
+            throw new ServiceException(500, "Error: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * @return commands waiting or running for gameID
+     */
+    public int mailboxDepth(int gameID) {
+        Actor actor = actors.get(gameID);
+        return actor == null ? 0 : actor.depth.get();
+    }
+
+    /**
+     * @return mailbox depth of every game with work queued
+     */
+    public Map<Integer, Integer> mailboxDepths() {
+        Map<Integer, Integer> depths = new HashMap<>();
+        actors.forEach((id, actor) -> {
+            int depth = actor.depth.get();
+            if(depth > 0){
+                depths.put(id, depth);
+            }
+        });
+        return depths;
+    }
+
+    /**
+     * Waits for every mailbox to run dry, e.g. before shutting down. Commands queued while
+     * waiting are waited for too, so stop whatever feeds the actors first.
+     *
+     * @return false if commands were still queued when timeout ran out
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while(totalDepth() > 0){
+            if(System.nanoTime() - deadline >= 0){
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    public int totalDepth() {
+        int total = 0;
+        for(Actor actor : actors.values()){
+            total += actor.depth.get();
+        }
+        return total;
+    }
+
+    public int maxDepth() {
+        int max = 0;
+        for(Actor actor : actors.values()){
+            max = Math.max(max, actor.depth.get());
+        }
+        return max;
+    }
+
+    public int activeCount() {
+        return actors.size();
+    }
+
+    public long processedCount() {
+        return processed.sum();
+    }
+
+    private final class Actor implements Runnable {
+        private final int gameID;
+        private final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        // counts queued plus running; whoever moves it off zero starts the drain
+        private final AtomicInteger depth = new AtomicInteger();
+
+        Actor(int gameID) {
+            this.gameID = gameID;
+        }
+
+        /**
+         * @return true if the actor was idle and now has to be started
+         */
+        boolean enqueue(Runnable task) {
+            mailbox.add(task);
+            return depth.getAndIncrement() == 0;
+        }
+
+        @Override
+        public void run() {
+            do{
+                Runnable task = mailbox.poll();
+                try{
+                    task.run();
+                } catch (RuntimeException ex) {
+                    LOG.error("command for game {} failed", gameID, ex);
+                }
+                processed.increment();
+            } while(depth.decrementAndGet() != 0);
+            // execute takes the same map lock, so no command can slip in between the check and the removal
+            actors.computeIfPresent(gameID, (id, actor) -> actor == this && depth.get() == 0 ? null : actor);
+        }
+    }
+}
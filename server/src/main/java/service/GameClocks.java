@@ -0,0 +1,213 @@
+package service;
+
+import chess.ChessGame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.TimerWheel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Chess clocks for every timed game, all run off one timer wheel.
+ * <p>
+ * A game's clock is only read and changed by the game's own actor, so it needs no lock.
+ * The running side's flag-fall time is the game's deadline in a shared {@link TimerWheel};
+ * a single scheduler thread advances the wheel every tick and hands each game whose
+ * deadline passed to a listener, which should check {@link #expire} on the game's actor,
+ * since a move may have got in first. Nothing else runs per game, so clocked games
+ * cost a map entry and a wheel slot each.
+ * <p>
+ * With an untimed {@link TimeControl} every call does nothing.
+ */
+public class GameClocks implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(GameClocks.class);
+    public static final long TICK_MILLIS = 100;
+
+    private static final class Clock {
+        // millis left for each side, by TeamColor ordinal, as of when the running side's turn started
+        final long[] remaining = new long[2];
+        ChessGame.TeamColor running;
+        long turnStarted;
+    }
+
+    private final TimeControl control;
+    private final LongSupplier clock;
+    private final TimerWheel<Integer> deadlines;
+    private final Map<Integer, Clock> clocks = new ConcurrentHashMap<>();
+    private final LongAdder flags = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    public GameClocks(TimeControl control) {
+        this(control, System::currentTimeMillis);
+    }
+
+    GameClocks(TimeControl control, LongSupplier clock) {
+        this.control = control;
+        this.clock = clock;
+        this.deadlines = new TimerWheel<>(TICK_MILLIS, 1024, clock.getAsLong());
+    }
+
+    public TimeControl timeControl() {
+        return control;
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Starts the clock of the side to move, if the game's clock is not already running
+     */
+    public void start(int gameID, ChessGame.TeamColor toMove) {
+        if(control.isTimed() && !clocks.containsKey(gameID)){
+            begin(gameID, toMove, now());
+        }
+    }
+
+    /**
+     * @return false if side is the one on the clock and its time ran out before now
+     */
+    public boolean hasTime(int gameID, ChessGame.TeamColor side, long now) {
+        Clock game = clocks.get(gameID);
+        return game == null || game.running != side || left(game, now) > 0;
+    }
+
+    /**
+     * Charges side for its turn, adds the increment and starts the opponent's clock. A game
+     * with no clock yet, such as one left over from before a restart, starts with full time.
+     */
+    public void moved(int gameID, ChessGame.TeamColor side, long now) {
+        if(!control.isTimed()){
+            return;
+        }
+        Clock game = clocks.get(gameID);
+        if(game == null){
+            game = begin(gameID, side, now);
+        }
+        if(game.running == side){
+            game.remaining[side.ordinal()] = left(game, now) + control.increment().toMillis();
+        }
+        game.running = side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        game.turnStarted = now;
+        deadlines.schedule(gameID, deadline(game));
+    }
+
+    /**
+     * Checks a game whose deadline came up. If the side on the clock really is out of time
+     * the clock is stopped; otherwise its deadline is put back on the wheel.
+     *
+     * @return the side that ran out of time, or null
+     */
+    public ChessGame.TeamColor expire(int gameID) {
+        Clock game = clocks.get(gameID);
+        if(game == null){
+            return null;
+        }
+        if(left(game, now()) > 0){
+            deadlines.schedule(gameID, deadline(game));
+            return null;
+        }
+        stop(gameID);
+        flags.increment();
+        return game.running;
+    }
+
+    public void stop(int gameID) {
+        if(clocks.remove(gameID) != null){
+            deadlines.cancel(gameID);
+        }
+    }
+
+    // game ids start again after a clear, so old clocks must not outlive it
+    public void clear() {
+        clocks.clear();
+        deadlines.clear();
+    }
+
+    /**
+     * @return millis side has left as of now, or -1 if the game has no clock
+     */
+    public long remaining(int gameID, ChessGame.TeamColor side) {
+        Clock game = clocks.get(gameID);
+        if(game == null){
+            return -1;
+        }
+        return game.running == side ? Math.max(0, left(game, now())) : game.remaining[side.ordinal()];
+    }
+
+    /**
+     * Advances the wheel to now and hands every game whose deadline passed to onDeadline
+     */
+    public void tick(IntConsumer onDeadline) {
+        for(Integer gameID : deadlines.advance(now())){
+            onDeadline.accept(gameID);
+        }
+    }
+
+    /**
+     * Ticks on one background thread until closed
+     */
+    public synchronized void run(IntConsumer onDeadline) {
+        if(!control.isTimed() || scheduler != null){
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "game-clocks");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try{
+                tick(onDeadline);
+            } catch (RuntimeException ex) {
+                LOG.error("game clock tick failed", ex);
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if(scheduler != null){
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // games with a clock running
+    public int size() {
+        return clocks.size();
+    }
+
+    // games lost on time
+    public long flagCount() {
+        return flags.sum();
+    }
+
+    private Clock begin(int gameID, ChessGame.TeamColor toMove, long now) {
+        Clock game = new Clock();
+        game.remaining[0] = control.initial().toMillis();
+        game.remaining[1] = control.initial().toMillis();
+        game.running = toMove;
+        game.turnStarted = now;
+        clocks.put(gameID, game);
+        deadlines.schedule(gameID, deadline(game));
+        return game;
+    }
+
+    // the delay comes off the turn before the clock does
+    private long left(Clock game, long now) {
+        long charged = Math.max(0, now - game.turnStarted - control.delay().toMillis());
+        return game.remaining[game.running.ordinal()] - charged;
+    }
+
+    private long deadline(Clock game) {
+        return game.turnStarted + control.delay().toMillis() + game.remaining[game.running.ordinal()];
+    }
+}
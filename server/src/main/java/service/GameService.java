@@ -0,0 +1,151 @@
+package service;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.dataAccess;
+import model.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Listing, creating and joining games. Every call needs a valid auth token.
+ * <p>
+ * {@link #createGames} creates a whole batch of games with a single DAO call.
+ */
+public class GameService {
+    public static final int MAX_BATCH = 10_000;
+
+    private final dataAccess dao;
+    private final UserService users;
+    private final GameActors actors;
+    private final GameClocks clocks;
+
+    public GameService(dataAccess dao, UserService users) {
+        this(dao, users, new GameActors());
+    }
+
+    /**
+     * @param actors where joins run, so they take turns with moves on the same game
+     */
+    public GameService(dataAccess dao, UserService users, GameActors actors) {
+        this(dao, users, actors, new GameClocks(TimeControl.UNTIMED));
+    }
+
+    /**
+     * @param clocks started once a game has both its players
+     */
+    public GameService(dataAccess dao, UserService users, GameActors actors, GameClocks clocks) {
+        this.dao = dao;
+        this.users = users;
+        this.actors = actors;
+        this.clocks = clocks;
+    }
+
+    public AuthData authenticate(String authToken) throws ServiceException {
+        return users.authenticate(authToken);
+    }
+
+    public GameData getGame(String authToken, int gameID) throws ServiceException {
+        users.authenticate(authToken);
+        try{
+            GameData game = dao.getGame(gameID);
+            if(game == null){
+                throw new ServiceException(400, "Error: bad request");
+            }
+            return game;
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+    }
+
+    public Collection<GameListEntry> listGames(String authToken) throws ServiceException {
+        users.authenticate(authToken);
+        try{
+            Collection<GameData> games = dao.listGames();
+            List<GameListEntry> entries = new ArrayList<>(games.size());
+            for(GameData game : games){
+                entries.add(new GameListEntry(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName()));
+            }
+            return entries;
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+    }
+
+    public int createGame(String authToken, CreateGameRequest request) throws ServiceException {
+        users.authenticate(authToken);
+        if(request == null || !UserService.fitsName(request.gameName())){
+            throw new ServiceException(400, "Error: bad request");
+        }
+        try{
+            return dao.insertGame(new GameData(0, null, null, request.gameName(), new ChessGame()));
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+    }
+
+    /**
+     * @return the new gameIDs, in the same order as the names
+     */
+    public List<Integer> createGames(String authToken, List<String> gameNames) throws ServiceException {
+        users.authenticate(authToken);
+        if(gameNames == null || gameNames.isEmpty() || gameNames.size() > MAX_BATCH){
+            throw new ServiceException(400, "Error: bad request");
+        }
+        List<GameData> games = new ArrayList<>(gameNames.size());
+        for(String name : gameNames){
+            if(!UserService.fitsName(name)){
+                throw new ServiceException(400, "Error: bad request");
+            }
+            games.add(new GameData(0, null, null, name, new ChessGame()));
+        }
+        try{
+            return dao.insertGames(games);
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+    }
+
+    public void joinGame(String authToken, JoinGameRequest request) throws ServiceException {
+        AuthData auth = users.authenticate(authToken);
+        if(request == null || request.gameID() == null){
+            throw new ServiceException(400, "Error: bad request");
+        }
+        ChessGame.TeamColor color = parseColor(request.playerColor());
+        // a join reads then writes the game, so it runs on the game's actor like a move does
+        actors.call(request.gameID(), () -> {
+            try{
+                GameData game = dao.getGame(request.gameID());
+                if(game == null){
+                    throw new ServiceException(400, "Error: bad request");
+                }
+                String current = color == ChessGame.TeamColor.WHITE ? game.whiteUsername() : game.blackUsername();
+                if(current != null){
+                    throw new ServiceException(403, "Error: already taken");
+                }
+                GameData joined = color == ChessGame.TeamColor.WHITE
+                        ? new GameData(game.gameID(), auth.username(), game.blackUsername(), game.gameName(), game.chessGame())
+                        : new GameData(game.gameID(), game.whiteUsername(), auth.username(), game.gameName(), game.chessGame());
+                dao.updateGame(joined);
+                if(joined.whiteUsername() != null && joined.blackUsername() != null && !joined.chessGame().isGameOver()){
+                    clocks.start(joined.gameID(), joined.chessGame().getTeamTurn());
+                }
+                return null;
+            } catch (DataAccessException ex) {
+                throw UserService.serverError(ex);
+            }
+        });
+    }
+
+    private static ChessGame.TeamColor parseColor(String color) throws ServiceException {
+        if("WHITE".equals(color)){
+            return ChessGame.TeamColor.WHITE;
+        }
+        if("BLACK".equals(color)){
+            return ChessGame.TeamColor.BLACK;
+        }
+        throw new ServiceException(400, "Error: bad request");
+    }
+}
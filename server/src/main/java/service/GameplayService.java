@@ -0,0 +1,221 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.PackedGame;
+import dataaccess.DataAccessException;
+import dataaccess.dataAccess;
+import model.AuthData;
+import model.GameData;
+import model.GameStatus;
+
+/**
+ * The rules side of live play: connecting to a game, moving, leaving and resigning.
+ * <p>
+ * Games are never changed in place, since caches may be handing the current object to
+ * other readers; a move is made on a copy and the copy is stored.
+ * <p>
+ * Nothing here locks: commands for one game must not run at the same time, which the
+ * caller ensures by running them on that game's {@link GameActors} actor.
+ */
+public class GameplayService {
+    public enum Role {
+        WHITE, BLACK, OBSERVER
+    }
+
+    public record Connected(GameData game, String username, Role role) {}
+
+    /**
+     * @param status where the game stands for the side to move next
+     */
+    public record Moved(GameData game, String username, ChessMove move, GameStatus status) {}
+
+    public record TimedOut(GameData game, ChessGame.TeamColor loser) {}
+
+    private final dataAccess dao;
+    private final UserService users;
+    private final GameClocks clocks;
+
+    public GameplayService(dataAccess dao, UserService users) {
+        this(dao, users, new GameClocks(TimeControl.UNTIMED));
+    }
+
+    public GameplayService(dataAccess dao, UserService users, GameClocks clocks) {
+        this.dao = dao;
+        this.users = users;
+        this.clocks = clocks;
+    }
+
+    public Connected connect(String authToken, Integer gameID) throws ServiceException {
+        AuthData auth = users.authenticate(authToken);
+        GameData game = loadGame(gameID);
+        // covers games seated before a restart, whose clocks were lost with it
+        if(game.whiteUsername() != null && game.blackUsername() != null && !game.chessGame().isGameOver()){
+            clocks.start(game.gameID(), game.chessGame().getTeamTurn());
+        }
+        return new Connected(game, auth.username(), roleOf(game, auth.username()));
+    }
+
+    /**
+     * @param move packed as by {@link PackedGame#packMove(int, int, int)}, or -1 for none; it is
+     *             checked in that form and only turned into a ChessMove once it has been made
+     */
+    public Moved makeMove(String authToken, Integer gameID, int move) throws ServiceException {
+        AuthData auth = users.authenticate(authToken);
+        if(move < 0){
+            throw new ServiceException(400, "Error: no move given");
+        }
+        GameData game = loadGame(gameID);
+        ChessGame chessGame = game.chessGame();
+        if(chessGame.isGameOver()){
+            throw new ServiceException(400, "Error: game is over");
+        }
+        ChessGame.TeamColor turn = chessGame.getTeamTurn();
+        String mover = turn == ChessGame.TeamColor.WHITE ? game.whiteUsername() : game.blackUsername();
+        if(!auth.username().equals(mover)){
+            throw new ServiceException(403, roleOf(game, auth.username()) == Role.OBSERVER
+                    ? "Error: observers cannot move" : "Error: not your turn");
+        }
+        // the flag falling ends the game, which the clock's own deadline takes care of
+        long now = clocks.now();
+        if(!clocks.hasTime(game.gameID(), turn, now)){
+            throw new ServiceException(400, "Error: out of time");
+        }
+        ChessGame next = copyOf(chessGame);
+        try{
+            next.makeMove(move);
+        } catch (InvalidMoveException ex) {
+            throw new ServiceException(400, "Error: invalid move", ex);
+        }
+        ChessGame.TeamColor opponent = next.getTeamTurn();
+        // one search for a reply settles checkmate and stalemate together
+        boolean check = next.isInCheck(opponent);
+        GameStatus status = check ? GameStatus.CHECK : GameStatus.ACTIVE;
+        if(!next.hasValidMove(opponent)){
+            next.setGameOver(true);
+            status = check ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        GameData updated = new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), next);
+        ChessMove made = PackedGame.unpackMove(move);
+        try{
+            dao.recordMove(updated, made);
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+        if(next.isGameOver()){
+            clocks.stop(game.gameID());
+        }else{
+            clocks.moved(game.gameID(), turn, now);
+        }
+        return new Moved(updated, auth.username(), made, status);
+    }
+
+    /**
+     * Gives up the caller's seat, if they had one
+     *
+     * @return the caller's username
+     */
+    public String leave(String authToken, Integer gameID) throws ServiceException {
+        AuthData auth = users.authenticate(authToken);
+        String username = auth.username();
+        GameData game = loadGame(gameID);
+        boolean white = username.equals(game.whiteUsername());
+        boolean black = username.equals(game.blackUsername());
+        if(white || black){
+            try{
+                dao.updateGame(new GameData(game.gameID(), white ? null : game.whiteUsername(),
+                        black ? null : game.blackUsername(), game.gameName(), game.chessGame()));
+            } catch (DataAccessException ex) {
+                throw UserService.serverError(ex);
+            }
+        }
+        return username;
+    }
+
+    /**
+     * Ends the game
+     *
+     * @return the caller's username
+     */
+    public String resign(String authToken, Integer gameID) throws ServiceException {
+        AuthData auth = users.authenticate(authToken);
+        GameData game = loadGame(gameID);
+        if(roleOf(game, auth.username()) == Role.OBSERVER){
+            throw new ServiceException(403, "Error: observers cannot resign");
+        }
+        if(game.chessGame().isGameOver()){
+            throw new ServiceException(400, "Error: game is over");
+        }
+        ChessGame finished = copyOf(game.chessGame());
+        finished.setGameOver(true);
+        try{
+            dao.updateGame(new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(),
+                    game.gameName(), finished));
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+        clocks.stop(game.gameID());
+        return auth.username();
+    }
+
+    /**
+     * Ends the game if the side on the clock has run out of time. Runs when the game's
+     * deadline comes up on the clock wheel.
+     *
+     * @return the finished game and who lost, or null if a move got in first
+     */
+    public TimedOut timeOut(int gameID) throws ServiceException {
+        ChessGame.TeamColor loser = clocks.expire(gameID);
+        if(loser == null){
+            return null;
+        }
+        GameData game = loadGame(gameID);
+        if(game.chessGame().isGameOver()){
+            return null;
+        }
+        ChessGame finished = copyOf(game.chessGame());
+        finished.setGameOver(true);
+        GameData updated = new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                finished);
+        try{
+            dao.updateGame(updated);
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+        return new TimedOut(updated, loser);
+    }
+
+    private GameData loadGame(Integer gameID) throws ServiceException {
+        if(gameID == null){
+            throw new ServiceException(400, "Error: bad request");
+        }
+        try{
+            GameData game = dao.getGame(gameID);
+            if(game == null){
+                throw new ServiceException(400, "Error: game " + gameID + " does not exist");
+            }
+            return game;
+        } catch (DataAccessException ex) {
+            throw UserService.serverError(ex);
+        }
+    }
+
+    public static Role roleOf(GameData game, String username) {
+        if(username.equals(game.whiteUsername())){
+            return Role.WHITE;
+        }
+        if(username.equals(game.blackUsername())){
+            return Role.BLACK;
+        }
+        return Role.OBSERVER;
+    }
+
+    static ChessGame copyOf(ChessGame game) {
+        ChessGame copy = new ChessGame();
+        copy.setBoard(game.getBoard().deepCopy());
+        copy.setTeamTurn(game.getTeamTurn());
+        copy.setGameOver(game.isGameOver());
+        return copy;
+    }
+}
@@ -0,0 +1,150 @@
+package service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs bcrypt hashing and verification on its own small thread pool.
+ * <p>
+ * A bcrypt call is tens of milliseconds of pure CPU. Keeping it off the request threads
+ * and capping it at a fixed number of threads means a burst of logins can only use that
+ * many cores; everything else keeps running. Work beyond the queue capacity is refused
+ * with a 503 right away instead of piling up.
+ */
+public class PasswordService implements AutoCloseable {
+    private static final long WAIT_SECONDS = 30;
+
+    private final ThreadPoolExecutor executor;
+    private final int logRounds;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordService() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 256, 10);
+    }
+
+    public PasswordService(int threads, int queueCapacity, int logRounds) {
+        this.logRounds = logRounds;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<String> hashAsync(String password) {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(logRounds)));
+    }
+
+    public CompletableFuture<Boolean> verifyAsync(String password, String hash) {
+        return submit(() -> hash != null && BCrypt.checkpw(password, hash));
+    }
+
+    /**
+     * Hashes on the pool and waits for the result
+     */
+    public String hash(String password) throws ServiceException {
+        return await(hashAsync(password));
+    }
+
+    /**
+     * Checks a password on the pool and waits for the result
+     */
+    public boolean verify(String password, String hash) throws ServiceException {
+        return await(verifyAsync(password, hash));
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try{
+            executor.execute(() -> {
+                if(result.isDone()){
+                    // the caller timed out while this sat in the queue; nobody is left to use the hash
+                    abandoned.increment();
+                    return;
+                }
+                long waited = System.nanoTime() - queuedAt;
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulate(waited);
+                T value;
+                try{
+                    value = work.call();
+                } catch (Exception ex) {
+                    completed.increment();
+                    result.completeExceptionally(ex);
+                    return;
+                }
+                // count before completing so a caller that saw the result also sees the count
+                completed.increment();
+                result.complete(value);
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            result.completeExceptionally(new ServiceException(503, "Error: server busy, try again", ex));
+        }
+        return result;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws ServiceException {
+        try{
+            return future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            if(ex.getCause() instanceof ServiceException serviceException){
+                throw serviceException;
+            }
+            throw new ServiceException(500, "Error: " + ex.getCause().getMessage(), ex.getCause());
+        } catch (TimeoutException ex) {
+            future.cancel(false);
+            throw new ServiceException(503, "Error: server busy, try again", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(500, "Error: interrupted", ex);
+        }
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    public long completedCount() {
+        return completed.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    // queued work skipped because its caller had already given up
+    public long abandonedCount() {
+        return abandoned.sum();
+    }
+
+    public double averageQueueWaitMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0.0 : queueWaitNanos.sum() / 1e6 / count;
+    }
+
+    public double maxQueueWaitMillis() {
+        return maxQueueWaitNanos.get() / 1e6;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
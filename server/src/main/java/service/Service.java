@@ -1,4 +0,0 @@
-package service;
-
-public class Service {
-}
@@ -0,0 +1,23 @@
+package service;
+
+/**
+ * Indicates a request the service layer could not complete, along with the
+ * HTTP status code the server should answer with
+ */
+public class ServiceException extends Exception {
+    private final int statusCode;
+
+    public ServiceException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public ServiceException(int statusCode, String message, Throwable ex) {
+        super(message, ex);
+        this.statusCode = statusCode;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+}
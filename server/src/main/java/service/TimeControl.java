@@ -0,0 +1,20 @@
+package service;
+
+import java.time.Duration;
+
+/**
+ * How much time each side gets: initial is on the clock at the start, increment is added
+ * after each move, and delay is a grace period at the start of every turn before the
+ * clock starts running down.
+ */
+public record TimeControl(Duration initial, Duration increment, Duration delay) {
+    public static final TimeControl UNTIMED = new TimeControl(Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+    public static TimeControl ofSeconds(long initial, long increment, long delay) {
+        return new TimeControl(Duration.ofSeconds(initial), Duration.ofSeconds(increment), Duration.ofSeconds(delay));
+    }
+
+    public boolean isTimed() {
+        return initial.isPositive();
+    }
+}
@@ -0,0 +1,30 @@
+package service;
+
+import dataaccess.TokenCodec;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Issues auth tokens: 128 random bits written as 22 characters of base64url.
+ * <p>
+ * Each thread draws from its own DRBG SecureRandom, so a burst of logins does not
+ * queue up on one shared generator the way UUID.randomUUID() does.
+ */
+public class TokenService {
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(TokenService::newRandom);
+
+    private static SecureRandom newRandom() {
+        try{
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException ex) {
+            return new SecureRandom();
+        }
+    }
+
+    public String generateToken() {
+        byte[] token = new byte[TokenCodec.TOKEN_BYTES];
+        RANDOM.get().nextBytes(token);
+        return TokenCodec.toText(token);
+    }
+}
@@ -0,0 +1,182 @@
+package service;
+
+import dataaccess.DataAccessException;
+import dataaccess.dataAccess;
+import model.AuthData;
+import model.LoginRequest;
+import model.UserData;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Registration, login and logout, plus the auth check every other service relies on.
+ * <p>
+ * {@link #registerAll} registers a whole batch, users and tokens together, with one DAO
+ * call, hashing the passwords in parallel on the password pool.
+ */
+public class UserService {
+    public static final int MAX_BATCH = 10_000;
+    // never more in flight on the password pool than its queue can take
+    private static final int HASH_WAVE = 64;
+
+    private final dataAccess dao;
+    private final PasswordService passwords;
+    private final TokenService tokens;
+
+    public UserService(dataAccess dao, PasswordService passwords, TokenService tokens) {
+        this.dao = dao;
+        this.passwords = passwords;
+        this.tokens = tokens;
+    }
+
+    public AuthData register(UserData user) throws ServiceException {
+        checkUser(user);
+        try{
+            if(dao.getUser(user.username()) != null){
+                throw new ServiceException(403, "Error: already taken");
+            }
+            String hash = passwords.hash(user.password());
+            insertUser(new UserData(user.username(), hash, user.email()));
+            return newAuth(user.username());
+        } catch (DataAccessException ex) {
+            throw serverError(ex);
+        }
+    }
+
+    /**
+     * Registers every user or none of them
+     *
+     * @return one auth per user, in the same order
+     */
+    public List<AuthData> registerAll(List<UserData> users) throws ServiceException {
+        if(users == null || users.isEmpty() || users.size() > MAX_BATCH){
+            throw new ServiceException(400, "Error: bad request");
+        }
+        Set<String> names = new HashSet<>();
+        for(UserData user : users){
+            checkUser(user);
+            if(!names.add(user.username())){
+                throw new ServiceException(403, "Error: already taken");
+            }
+        }
+        List<UserData> hashed = new ArrayList<>(users.size());
+        for(int start = 0; start < users.size(); start += HASH_WAVE){
+            List<UserData> wave = users.subList(start, Math.min(users.size(), start + HASH_WAVE));
+            List<CompletableFuture<String>> hashes = new ArrayList<>(wave.size());
+            for(UserData user : wave){
+                hashes.add(passwords.hashAsync(user.password()));
+            }
+            for(int i = 0; i < wave.size(); i++){
+                UserData user = wave.get(i);
+                hashed.add(new UserData(user.username(), await(hashes.get(i)), user.email()));
+            }
+        }
+        List<AuthData> auths = new ArrayList<>(users.size());
+        for(UserData user : users){
+            auths.add(new AuthData(tokens.generateToken(), user.username()));
+        }
+        try{
+            try{
+                dao.insertUsersWithAuths(hashed, auths);
+            } catch (DataAccessException ex) {
+                for(UserData user : users){
+                    if(dao.getUser(user.username()) != null){
+                        throw new ServiceException(403, "Error: already taken", ex);
+                    }
+                }
+                throw ex;
+            }
+            return auths;
+        } catch (DataAccessException ex) {
+            throw serverError(ex);
+        }
+    }
+
+    public AuthData login(LoginRequest request) throws ServiceException {
+        if(request == null || request.username() == null || request.password() == null){
+            throw new ServiceException(400, "Error: bad request");
+        }
+        try{
+            UserData user = dao.getUser(request.username());
+            if(user == null || !passwords.verify(request.password(), user.password())){
+                throw new ServiceException(401, "Error: unauthorized");
+            }
+            return newAuth(user.username());
+        } catch (DataAccessException ex) {
+            throw serverError(ex);
+        }
+    }
+
+    public void logout(String authToken) throws ServiceException {
+        authenticate(authToken);
+        try{
+            dao.deleteAuth(authToken);
+        } catch (DataAccessException ex) {
+            throw serverError(ex);
+        }
+    }
+
+    /**
+     * @return the auth for the token; throws 401 if there is none
+     */
+    public AuthData authenticate(String authToken) throws ServiceException {
+        if(authToken == null){
+            throw new ServiceException(401, "Error: unauthorized");
+        }
+        try{
+            AuthData auth = dao.getAuth(authToken);
+            if(auth == null){
+                throw new ServiceException(401, "Error: unauthorized");
+            }
+            return auth;
+        } catch (DataAccessException ex) {
+            throw serverError(ex);
+        }
+    }
+
+    private void insertUser(UserData user) throws DataAccessException, ServiceException {
+        try{
+            dao.insertUser(user);
+        } catch (DataAccessException ex) {
+            // lost a race with another registration of the same name
+            if(dao.getUser(user.username()) != null){
+                throw new ServiceException(403, "Error: already taken", ex);
+            }
+            throw ex;
+        }
+    }
+
+    private AuthData newAuth(String username) throws DataAccessException {
+        AuthData auth = new AuthData(tokens.generateToken(), username);
+        dao.insertAuth(auth);
+        return auth;
+    }
+
+    private static void checkUser(UserData user) throws ServiceException {
+        if(user == null || !fitsName(user.username()) || user.password() == null || user.email() == null){
+            throw new ServiceException(400, "Error: bad request");
+        }
+    }
+
+    // usernames end up in game seats, so they share the game name limit
+    static boolean fitsName(String name) {
+        return name != null && name.getBytes(StandardCharsets.UTF_8).length <= dataAccess.MAX_NAME_BYTES;
+    }
+
+    private static String await(CompletableFuture<String> hash) throws ServiceException {
+        try{
+            return hash.join();
+        } catch (RuntimeException ex) {
+            if(ex.getCause() instanceof ServiceException serviceException){
+                throw serviceException;
+            }
+            throw new ServiceException(500, "Error: " + ex.getMessage(), ex);
+        }
+    }
+
+    static ServiceException serverError(DataAccessException ex) {
+        return new ServiceException(500, "Error: " + ex.getMessage(), ex);
+    }
+}
@@ -0,0 +1,111 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size latency histogram in the style of HdrHistogram.
+ * <p>
+ * Values (microseconds) are bucketed log-linearly: every power of two is split into 16
+ * equal sub-buckets, so any recorded value is known to within about 6% from 1µs up
+ * to days, in 608 counters. Recording is a few shifts and one atomic increment, with
+ * no locks and no allocation.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_MSB = 40;
+    private static final int BUCKETS = (MAX_MSB - SUB_BITS + 2) * SUB_COUNT;
+    private static final long MAX_VALUE = (1L << (MAX_MSB + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sumMicros() {
+        return sum.sum();
+    }
+
+    /**
+     * @param percentile 0-100
+     * @return the upper end of the bucket holding that percentile, or 0 when empty
+     */
+    public long valueAtPercentile(double percentile) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for(long c : snapshot){
+            total += c;
+        }
+        if(total == 0){
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for(int i = 0; i < snapshot.length; i++){
+            seen += snapshot[i];
+            if(seen >= target){
+                return highestEquivalent(i);
+            }
+        }
+        return highestEquivalent(snapshot.length - 1);
+    }
+
+    /**
+     * @return how many recorded values fall in buckets that end at or below micros. This is
+     * exactly the number of values at or below micros when micros is a {@link #bucketEnd};
+     * otherwise the bucket straddling micros is left out.
+     */
+    public long countAtOrBelow(long micros) {
+        long total = 0;
+        for(int i = 0; i < BUCKETS && highestEquivalent(i) <= micros; i++){
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @return the last value of the bucket holding micros, the smallest bound at or above micros
+     * that {@link #countAtOrBelow} counts exactly
+     */
+    public static long bucketEnd(long micros) {
+        return highestEquivalent(bucketIndex(Math.max(0, Math.min(micros, MAX_VALUE))));
+    }
+
+    public long[] snapshot() {
+        long[] copy = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++){
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    // values below 32 get a bucket each; above that 16 buckets per power of two
+    static int bucketIndex(long value) {
+        if(value < 2 * SUB_COUNT){
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+
+    static long highestEquivalent(int index) {
+        if(index < 2 * SUB_COUNT){
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long lowest = (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,131 @@
+package util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashed timer wheel for large numbers of deadlines that mostly get pushed back.
+ * <p>
+ * Time is cut into ticks and each key sits in the bucket for its deadline's tick, so
+ * advancing the clock only looks at the buckets that came due instead of every key.
+ * Keys more than one rotation away simply wait in their bucket for a later pass.
+ * {@link #touch} only records a new deadline; the key is moved to its new bucket when
+ * the old one comes due, which keeps sliding expiry down to one map write per access.
+ * <p>
+ * The wheel has no thread of its own: whoever owns it calls {@link #advance}.
+ */
+public class TimerWheel<K> {
+    private final long tickMillis;
+    private final int mask;
+    private final List<Set<K>> buckets;
+    private final Map<K, Long> deadlines = new ConcurrentHashMap<>();
+    private long lastTick;
+
+    /**
+     * @param tickMillis granularity of the wheel; deadlines fire up to one tick late
+     * @param wheelSize  number of buckets, rounded up to a power of two
+     */
+    public TimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+        this.tickMillis = tickMillis;
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for(int i = 0; i < size; i++){
+            buckets.add(new HashSet<>());
+        }
+        this.lastTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Sets (or replaces) the deadline for key
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        deadlines.put(key, deadlineMillis);
+        buckets.get(bucketIndex(deadlineMillis, lastTick)).add(key);
+    }
+
+    /**
+     * Moves an existing deadline; does nothing if the key is not scheduled
+     */
+    public void touch(K key, long deadlineMillis) {
+        deadlines.replace(key, deadlineMillis);
+    }
+
+    // a key left behind in some other bucket is dropped when that bucket comes due
+    public synchronized boolean cancel(K key) {
+        Long deadline = deadlines.remove(key);
+        if(deadline == null){
+            return false;
+        }
+        buckets.get(bucketIndex(deadline, lastTick)).remove(key);
+        return true;
+    }
+
+    /**
+     * @return the key's deadline in millis, or null if it is not scheduled
+     */
+    public Long deadline(K key) {
+        return deadlines.get(key);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    public synchronized void clear() {
+        deadlines.clear();
+        for(Set<K> bucket : buckets){
+            bucket.clear();
+        }
+    }
+
+    /**
+     * Moves the wheel forward to nowMillis
+     *
+     * @return the keys whose deadlines have passed; they are no longer scheduled
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        if(nowTick <= lastTick){
+            return List.of();
+        }
+        List<K> expired = new ArrayList<>();
+        List<K> moved = new ArrayList<>();
+        // past one full rotation every bucket has been visited once
+        long firstTick = Math.max(lastTick + 1, nowTick - mask);
+        for(long tick = firstTick; tick <= nowTick; tick++){
+            int index = (int) (tick & mask);
+            Iterator<K> keys = buckets.get(index).iterator();
+            while(keys.hasNext()){
+                K key = keys.next();
+                Long deadline = deadlines.get(key);
+                if(deadline == null){
+                    keys.remove();
+                }else if(deadline <= nowMillis){
+                    keys.remove();
+                    deadlines.remove(key);
+                    expired.add(key);
+                }else if(bucketIndex(deadline, nowTick) != index){
+                    // pushed back by touch since it was placed here
+                    keys.remove();
+                    moved.add(key);
+                }
+            }
+        }
+        lastTick = nowTick;
+        for(K key : moved){
+            Long deadline = deadlines.get(key);
+            if(deadline != null){
+                buckets.get(bucketIndex(deadline, nowTick)).add(key);
+            }
+        }
+        return expired;
+    }
+
+    // buckets at or behind the current tick are not looked at again for a whole rotation,
+    // so anything due that soon goes in the next tick's bucket
+    private int bucketIndex(long deadlineMillis, long currentTick) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        return (int) (tick & mask);
+    }
+}
@@ -0,0 +1,100 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+import service.TokenService;
+
+import java.sql.DriverManager;
+import java.time.Duration;
+
+public class AuthExpiryTests {
+    private static final String URL = "jdbc:h2:mem:expiry;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private final TokenService tokens = new TokenService();
+    private long now;
+
+    @BeforeEach
+    public void setup() {
+        now = 1_000_000;
+    }
+
+    private void checkExpiry(dataAccess dao) throws Exception {
+        String idle = tokens.generateToken();
+        String active = tokens.generateToken();
+        dao.insertAuth(new AuthData(idle, "idle"));
+        dao.insertAuth(new AuthData(active, "active"));
+
+        // the active session keeps using its token
+        for(int i = 0; i < 5; i++){
+            now += Duration.ofMinutes(20).toMillis();
+            Assertions.assertNotNull(dao.getAuth(active));
+        }
+        Assertions.assertNull(dao.getAuth(idle));
+    }
+
+    @Test
+    public void memoryTokensSlideAndExpire() throws Exception {
+        var dao = new DataAccessHelp(TTL, () -> now);
+        checkExpiry(dao);
+    }
+
+    @Test
+    public void memoryWheelRemovesAbandonedTokens() {
+        var dao = new DataAccessHelp(TTL, () -> now);
+        for(int i = 0; i < 100; i++){
+            dao.insertAuth(new AuthData(tokens.generateToken(), "user" + i));
+        }
+        now += TTL.toMillis() + 2000;
+        dao.insertAuth(new AuthData(tokens.generateToken(), "late"));
+        Assertions.assertEquals(1, dao.authCount());
+    }
+
+    @Test
+    public void sqlTokensSlideAndExpire() throws Exception {
+        try(var dao = new SqlDataAccess(DriverManager.getConnection(URL), TTL, () -> now)){
+            dao.clear();
+            checkExpiry(dao);
+        }
+    }
+
+    @Test
+    public void sqlExpiredRowsDeleted() throws Exception {
+        try(var conn = DriverManager.getConnection(URL)){
+            var dao = new SqlDataAccess(DriverManager.getConnection(URL), TTL, () -> now);
+            dao.clear();
+            for(int i = 0; i < 10; i++){
+                dao.insertAuth(new AuthData(tokens.generateToken(), "user" + i));
+            }
+            now += TTL.toMillis() + 2000;
+            dao.insertAuth(new AuthData(tokens.generateToken(), "late"));
+
+            try(var rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM auths")){
+                rs.next();
+                Assertions.assertEquals(1, rs.getInt(1));
+            }
+            dao.close();
+        }
+    }
+
+    @Test
+    public void sqlSweepsTokensFromBeforeRestart() throws Exception {
+        try(var conn = DriverManager.getConnection(URL)){
+            var before = new SqlDataAccess(DriverManager.getConnection(URL), TTL, () -> now);
+            before.clear();
+            before.insertAuth(new AuthData(tokens.generateToken(), "old"));
+            before.close();
+
+            // the new instance's wheel never heard of the old token
+            var dao = new SqlDataAccess(DriverManager.getConnection(URL), TTL, () -> now);
+            now += TTL.toMillis() + Duration.ofMinutes(10).toMillis();
+            dao.insertAuth(new AuthData(tokens.generateToken(), "new"));
+
+            try(var rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM auths")){
+                rs.next();
+                Assertions.assertEquals(1, rs.getInt(1));
+            }
+            dao.close();
+        }
+    }
+}
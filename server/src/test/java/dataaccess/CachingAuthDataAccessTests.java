@@ -0,0 +1,108 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+
+public class CachingAuthDataAccessTests {
+
+    // counts the lookups that get past the cache
+    private static class CountingDataAccess extends DataAccessHelp {
+        int authReads = 0;
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            authReads++;
+            return super.getAuth(authToken);
+        }
+    }
+
+    private CountingDataAccess backing;
+    private long now;
+    private CachingAuthDataAccess dao;
+
+    @BeforeEach
+    public void setup() {
+        backing = new CountingDataAccess();
+        now = 0;
+        dao = new CachingAuthDataAccess(backing, 2, Duration.ofSeconds(10), () -> now);
+    }
+
+    @Test
+    public void repeatedLookupsHitCache() throws Exception {
+        backing.insertAuth(new AuthData("token", "sam"));
+        for(int i = 0; i < 5; i++){
+            Assertions.assertEquals("sam", dao.getAuth("token").username());
+        }
+        Assertions.assertEquals(1, backing.authReads);
+        Assertions.assertEquals(4, dao.hits());
+        Assertions.assertEquals(1, dao.misses());
+        Assertions.assertEquals(0.8, dao.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void insertPopulatesCache() throws Exception {
+        dao.insertAuth(new AuthData("token", "sam"));
+        dao.getAuth("token");
+        Assertions.assertEquals(0, backing.authReads);
+    }
+
+    @Test
+    public void deleteInvalidates() throws Exception {
+        dao.insertAuth(new AuthData("token", "sam"));
+        dao.deleteAuth("token");
+        Assertions.assertNull(dao.getAuth("token"));
+    }
+
+    @Test
+    public void missingTokenNotCached() throws Exception {
+        Assertions.assertNull(dao.getAuth("nope"));
+        backing.insertAuth(new AuthData("nope", "sam"));
+        Assertions.assertNotNull(dao.getAuth("nope"));
+    }
+
+    @Test
+    public void entriesExpire() throws Exception {
+        dao.insertAuth(new AuthData("token", "sam"));
+        now += Duration.ofSeconds(11).toNanos();
+        dao.getAuth("token");
+        Assertions.assertEquals(1, backing.authReads);
+    }
+
+    @Test
+    public void hitsTouchStoreOncePerInterval() throws Exception {
+        dao.insertAuth(new AuthData("token", "sam"));
+        now += Duration.ofSeconds(6).toNanos();
+        for(int i = 0; i < 3; i++){
+            Assertions.assertNotNull(dao.getAuth("token"));
+        }
+        Assertions.assertEquals(1, backing.authReads);
+        Assertions.assertEquals(3, dao.hits());
+    }
+
+    @Test
+    public void touchDropsTokenGoneFromStore() throws Exception {
+        dao.insertAuth(new AuthData("token", "sam"));
+        // logged out through another node
+        backing.deleteAuth("token");
+        now += Duration.ofSeconds(6).toNanos();
+        Assertions.assertNull(dao.getAuth("token"));
+        Assertions.assertEquals(0, dao.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() throws Exception {
+        dao.insertAuth(new AuthData("a", "sam"));
+        dao.insertAuth(new AuthData("b", "sam"));
+        dao.getAuth("a");
+        dao.insertAuth(new AuthData("c", "sam"));
+
+        Assertions.assertEquals(2, dao.size());
+        Assertions.assertEquals(1, dao.evictions());
+        dao.getAuth("a");
+        Assertions.assertEquals(0, backing.authReads);
+        dao.getAuth("b");
+        Assertions.assertEquals(1, backing.authReads);
+    }
+}
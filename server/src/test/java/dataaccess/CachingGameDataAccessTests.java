@@ -0,0 +1,121 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CachingGameDataAccessTests {
+
+    // counts the reads that get past the cache
+    private static class CountingDataAccess extends DataAccessHelp {
+        int gameReads = 0;
+
+        @Override
+        public GameData getGame(int gameID) {
+            gameReads++;
+            return super.getGame(gameID);
+        }
+    }
+
+    private CountingDataAccess backing;
+    private CachingGameDataAccess dao;
+
+    @BeforeEach
+    public void setup() {
+        backing = new CountingDataAccess();
+        dao = new CachingGameDataAccess(backing, 2);
+    }
+
+    @Test
+    public void activeGameStaysResident() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        for(int i = 0; i < 5; i++){
+            dao.getGame(gameID);
+        }
+        Assertions.assertEquals(1, backing.gameReads);
+        Assertions.assertEquals(4, dao.hits());
+        Assertions.assertEquals(0.5, dao.occupancy(), 1e-9);
+    }
+
+    @Test
+    public void updatesWriteThrough() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        dao.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+
+        Assertions.assertEquals("white", backing.getGame(gameID).whiteUsername());
+        Assertions.assertEquals("white", dao.getGame(gameID).whiteUsername());
+    }
+
+    @Test
+    public void finishedGameEvicted() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        dao.getGame(gameID);
+        ChessGame finished = new ChessGame();
+        finished.setGameOver(true);
+        dao.updateGame(new GameData(gameID, null, null, "game", finished));
+
+        Assertions.assertEquals(0, dao.size());
+        Assertions.assertEquals(1, dao.finishedEvictions());
+        Assertions.assertTrue(dao.getGame(gameID).chessGame().isGameOver());
+        Assertions.assertEquals(0, dao.size());
+    }
+
+    @Test
+    public void readRacingAFinishIsNotCached() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        var slow = new DataAccessHelp() {
+            @Override
+            public GameData getGame(int gameID) {
+                GameData game = super.getGame(gameID);
+                reading.countDown();
+                try{
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return game;
+            }
+        };
+        var racing = new CachingGameDataAccess(slow, 2);
+        int gameID = slow.insertGame(new GameData(0, null, null, "game", null));
+
+        CompletableFuture<GameData> stale = CompletableFuture.supplyAsync(() -> {
+            try{
+                return racing.getGame(gameID);
+            } catch (DataAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        Assertions.assertTrue(reading.await(5, TimeUnit.SECONDS));
+        ChessGame finished = new ChessGame();
+        finished.setGameOver(true);
+        racing.updateGame(new GameData(gameID, null, null, "game", finished));
+        release.countDown();
+
+        Assertions.assertFalse(stale.get(5, TimeUnit.SECONDS).chessGame().isGameOver());
+        Assertions.assertEquals(0, racing.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() throws Exception {
+        int first = dao.insertGame(new GameData(0, null, null, "a", null));
+        int second = dao.insertGame(new GameData(0, null, null, "b", null));
+        int third = dao.insertGame(new GameData(0, null, null, "c", null));
+        dao.getGame(first);
+        dao.getGame(second);
+        dao.getGame(first);
+        dao.getGame(third);
+
+        Assertions.assertEquals(1, dao.evictions());
+        int reads = backing.gameReads;
+        dao.getGame(first);
+        Assertions.assertEquals(reads, backing.gameReads);
+        dao.getGame(second);
+        Assertions.assertEquals(reads + 1, backing.gameReads);
+    }
+}
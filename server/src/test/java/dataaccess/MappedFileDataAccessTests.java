@@ -0,0 +1,168 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class MappedFileDataAccessTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void dataSurvivesReopen() throws Exception {
+        int gameID;
+        ChessGame chessGame = new ChessGame();
+        chessGame.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        try(var dao = new MappedFileDataAccess(directory)){
+            dao.insertUser(new UserData("sam", "hash", "sam@mail.com"));
+            dao.insertAuth(new AuthData("kept", "sam"));
+            dao.insertAuth(new AuthData("dropped", "sam"));
+            dao.deleteAuth("dropped");
+            gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+            dao.updateGame(new GameData(gameID, "sam", null, "game", chessGame));
+        }
+
+        try(var dao = new MappedFileDataAccess(directory)){
+            Assertions.assertEquals(new UserData("sam", "hash", "sam@mail.com"), dao.getUser("sam"));
+            Assertions.assertEquals(new AuthData("kept", "sam"), dao.getAuth("kept"));
+            Assertions.assertNull(dao.getAuth("dropped"));
+            GameData game = dao.getGame(gameID);
+            Assertions.assertEquals("sam", game.whiteUsername());
+            Assertions.assertEquals(chessGame, game.chessGame());
+            Assertions.assertEquals(gameID + 1, dao.insertGame(new GameData(0, null, null, "next", null)));
+        }
+    }
+
+    @Test
+    public void batchWithTakenNameWritesNothing() throws Exception {
+        try(var dao = new MappedFileDataAccess(directory)){
+            dao.insertUser(new UserData("sam", "hash", "sam@mail.com"));
+            Assertions.assertThrows(DataAccessException.class, () -> dao.insertUsersWithAuths(
+                    List.of(new UserData("ann", "hash", "ann@mail.com"), new UserData("sam", "hash", "x@mail.com")),
+                    List.of(new AuthData("ann-token", "ann"), new AuthData("sam-token", "sam"))));
+            Assertions.assertNull(dao.getUser("ann"));
+            Assertions.assertNull(dao.getAuth("ann-token"));
+        }
+        try(var dao = new MappedFileDataAccess(directory)){
+            Assertions.assertNull(dao.getUser("ann"));
+            Assertions.assertEquals("sam@mail.com", dao.getUser("sam").email());
+            dao.insertUsersWithAuths(List.of(new UserData("ann", "hash", "ann@mail.com")),
+                    List.of(new AuthData("ann-token", "ann")));
+            Assertions.assertEquals(new AuthData("ann-token", "ann"), dao.getAuth("ann-token"));
+        }
+    }
+
+    @Test
+    public void longestStringRoundTrips() throws Exception {
+        String longest = "x".repeat(Short.MAX_VALUE);
+        try(var dao = new MappedFileDataAccess(directory)){
+            dao.insertUser(new UserData("sam", "hash", longest));
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> dao.insertUser(new UserData("ann", "hash", longest + "x")));
+            Assertions.assertNull(dao.getUser("ann"));
+        }
+        try(var dao = new MappedFileDataAccess(directory)){
+            Assertions.assertEquals(longest, dao.getUser("sam").email());
+            Assertions.assertNull(dao.getUser("ann"));
+        }
+    }
+
+    @Test
+    public void duplicateUserRejected() throws Exception {
+        try(var dao = new MappedFileDataAccess(directory)){
+            dao.insertUser(new UserData("sam", "hash", "sam@mail.com"));
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> dao.insertUser(new UserData("sam", "other", "other@mail.com")));
+        }
+    }
+
+    @Test
+    public void updateMissingGameFails() throws Exception {
+        try(var dao = new MappedFileDataAccess(directory)){
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> dao.updateGame(new GameData(7, null, null, "none", new ChessGame())));
+        }
+    }
+
+    @Test
+    public void tornLogRecordIsDropped() throws Exception {
+        try(var dao = new MappedFileDataAccess(directory)){
+            dao.insertUser(new UserData("first", "hash", "a@mail.com"));
+            dao.insertUser(new UserData("second", "hash", "b@mail.com"));
+        }
+        // chop the last few bytes off, as if the process died mid-write
+        Path log = directory.resolve("users.log");
+        try(var file = new RandomAccessFile(log.toFile(), "rw")){
+            file.setLength(file.length() - 3);
+        }
+        long truncatedSize = Files.size(log);
+
+        try(var dao = new MappedFileDataAccess(directory)){
+            Assertions.assertNotNull(dao.getUser("first"));
+            Assertions.assertNull(dao.getUser("second"));
+            Assertions.assertTrue(Files.size(log) < truncatedSize);
+            dao.insertUser(new UserData("third", "hash", "c@mail.com"));
+        }
+        try(var dao = new MappedFileDataAccess(directory)){
+            Assertions.assertNotNull(dao.getUser("third"));
+        }
+    }
+
+    @Test
+    public void tornGameRecordFallsBackToPreviousVersion() throws Exception {
+        int gameID;
+        try(var dao = new MappedFileDataAccess(directory)){
+            gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+            dao.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+        }
+        // the second write (seq 2) went to the game's second slot; corrupt it
+        long secondSlot = ((gameID - 1) * 2L + 0) * MappedFileDataAccess.RECORD_SIZE;
+        try(var file = new RandomAccessFile(directory.resolve("games.dat").toFile(), "rw")){
+            file.seek(secondSlot + 100);
+            file.write(new byte[]{1, 2, 3, 4});
+        }
+
+        try(var dao = new MappedFileDataAccess(directory)){
+            GameData game = dao.getGame(gameID);
+            Assertions.assertNotNull(game);
+            Assertions.assertNull(game.whiteUsername());
+        }
+    }
+
+    @Test
+    public void clearEmptiesFiles() throws Exception {
+        try(var dao = new MappedFileDataAccess(directory)){
+            dao.insertUser(new UserData("sam", "hash", "sam@mail.com"));
+            dao.insertGame(new GameData(0, null, null, "game", null));
+            dao.clear();
+        }
+        try(var dao = new MappedFileDataAccess(directory)){
+            Assertions.assertNull(dao.getUser("sam"));
+            Assertions.assertTrue(dao.listGames().isEmpty());
+        }
+    }
+
+    @Test
+    public void fileGrowsPastInitialSize() throws Exception {
+        try(var dao = new MappedFileDataAccess(directory)){
+            for(int i = 0; i < 700; i++){
+                dao.insertGame(new GameData(0, null, null, "game" + i, null));
+            }
+        }
+        try(var dao = new MappedFileDataAccess(directory)){
+            Assertions.assertEquals(700, dao.listGames().size());
+            Assertions.assertEquals("game699", dao.getGame(700).gameName());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.sql.DriverManager;
+import java.util.List;
+
+public class MoveLogDataAccessTests {
+    private static final String URL = "jdbc:h2:mem:movelog;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    // knight shuffle that can be repeated forever
+    private static final List<ChessMove> SHUFFLE = List.of(
+            move(1, 2, 3, 3), move(8, 2, 6, 3), move(3, 3, 1, 2), move(6, 3, 8, 2));
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    private void playMoves(dataAccess dao, int gameID, List<ChessMove> moves) throws Exception {
+        for(ChessMove move : moves){
+            GameData game = dao.getGame(gameID);
+            game.chessGame().makeMove(move);
+            dao.recordMove(game, move);
+        }
+    }
+
+    @Test
+    public void replayMatchesPlayedGame() throws Exception {
+        var dao = new MoveLogDataAccess(new DataAccessHelp(), new MemoryMoveLog(), 3);
+        int gameID = dao.insertGame(new GameData(0, null, null, "log", null));
+        List<ChessMove> moves = List.of(move(2, 5, 4, 5), move(7, 5, 5, 5), move(1, 7, 3, 6),
+                move(8, 2, 6, 3), move(1, 6, 4, 3));
+        playMoves(dao, gameID, moves);
+
+        ChessGame expected = new ChessGame();
+        for(ChessMove move : moves){
+            expected.makeMove(move);
+        }
+        Assertions.assertEquals(expected, dao.getGame(gameID).chessGame());
+        Assertions.assertEquals(moves, dao.moveHistory(gameID));
+    }
+
+    @Test
+    public void mateBetweenSnapshotsSurvivesEviction() throws Exception {
+        var dao = new CachingGameDataAccess(new MoveLogDataAccess(new DataAccessHelp(), new MemoryMoveLog(), 32), 16);
+        int gameID = dao.insertGame(new GameData(0, null, null, "mate", null));
+        playMoves(dao, gameID, List.of(move(2, 6, 3, 6), move(7, 5, 5, 5), move(2, 7, 4, 7)));
+        GameData game = dao.getGame(gameID);
+        ChessMove mate = move(8, 4, 4, 8);
+        game.chessGame().makeMove(mate);
+        game.chessGame().setGameOver(true);
+        dao.recordMove(game, mate);
+
+        // finished games are evicted, so this read rebuilds from the log
+        GameData reread = dao.getGame(gameID);
+        Assertions.assertTrue(reread.chessGame().isGameOver());
+        Assertions.assertEquals(game.chessGame(), reread.chessGame());
+    }
+
+    @Test
+    public void gameAtEarlierPly() throws Exception {
+        var dao = new MoveLogDataAccess(new DataAccessHelp(), new MemoryMoveLog(), 2);
+        int gameID = dao.insertGame(new GameData(0, null, null, "log", null));
+        playMoves(dao, gameID, List.of(move(2, 5, 4, 5), move(7, 5, 5, 5), move(2, 4, 4, 4)));
+
+        ChessGame expected = new ChessGame();
+        expected.makeMove(move(2, 5, 4, 5));
+        expected.makeMove(move(7, 5, 5, 5));
+        Assertions.assertEquals(expected, dao.gameAtPly(gameID, 2));
+    }
+
+    @Test
+    public void movesDoNotRewriteGameRow() throws Exception {
+        var backing = new DataAccessHelp();
+        var dao = new MoveLogDataAccess(backing, new MemoryMoveLog());
+        int gameID = dao.insertGame(new GameData(0, null, null, "log", null));
+        GameData stored = backing.getGame(gameID);
+        playMoves(dao, gameID, SHUFFLE);
+
+        Assertions.assertSame(stored, backing.getGame(gameID));
+    }
+
+    @Test
+    public void listGamesSkipsReplay() throws Exception {
+        int[] reads = new int[1];
+        var log = new MemoryMoveLog() {
+            @Override
+            public int[] moves(int gameID, int fromPly, int toPly) {
+                reads[0]++;
+                return super.moves(gameID, fromPly, toPly);
+            }
+        };
+        var dao = new MoveLogDataAccess(new DataAccessHelp(), log);
+        int gameID = dao.insertGame(new GameData(0, null, null, "log", null));
+        playMoves(dao, gameID, SHUFFLE);
+        int before = reads[0];
+
+        Assertions.assertEquals("log", dao.listGames().iterator().next().gameName());
+        Assertions.assertEquals(before, reads[0]);
+    }
+
+    @Test
+    public void updateGameResetsReplayBase() throws Exception {
+        var dao = new MoveLogDataAccess(new DataAccessHelp(), new MemoryMoveLog());
+        int gameID = dao.insertGame(new GameData(0, null, null, "log", null));
+        playMoves(dao, gameID, List.of(move(2, 5, 4, 5)));
+
+        ChessGame replaced = new ChessGame();
+        dao.updateGame(new GameData(gameID, "white", null, "log", replaced));
+        GameData game = dao.getGame(gameID);
+        Assertions.assertEquals("white", game.whiteUsername());
+        Assertions.assertEquals(replaced, game.chessGame());
+    }
+
+    @Test
+    public void sqlLogSurvivesRestart() throws Exception {
+        int gameID;
+        List<ChessMove> moves = List.of(move(2, 5, 4, 5), move(7, 5, 5, 5), move(1, 7, 3, 6));
+        try(var dao = new MoveLogDataAccess(new SqlDataAccess(DriverManager.getConnection(URL)),
+                new SqlMoveLog(DriverManager.getConnection(URL)), 2)){
+            dao.clear();
+            gameID = dao.insertGame(new GameData(0, null, null, "log", null));
+            playMoves(dao, gameID, moves);
+        }
+
+        try(var dao = new MoveLogDataAccess(new SqlDataAccess(DriverManager.getConnection(URL)),
+                new SqlMoveLog(DriverManager.getConnection(URL)), 2)){
+            ChessGame expected = new ChessGame();
+            for(ChessMove move : moves){
+                expected.makeMove(move);
+            }
+            Assertions.assertEquals(expected, dao.getGame(gameID).chessGame());
+            Assertions.assertEquals(moves, dao.moveHistory(gameID));
+
+            // appending continues from the stored ply
+            playMoves(dao, gameID, List.of(move(8, 2, 6, 3)));
+            Assertions.assertEquals(4, dao.moveHistory(gameID).size());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.*;
+import service.TokenService;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SqlDataAccessTests {
+    // H2 in MySQL mode stands in for the real database
+    private static final String URL = "jdbc:h2:mem:chess;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private final TokenService tokens = new TokenService();
+    private SqlDataAccess dao;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        dao = new SqlDataAccess(DriverManager.getConnection(URL));
+        dao.clear();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dao.close();
+    }
+
+    @Test
+    public void insertUserSuccess() throws Exception {
+        dao.insertUser(new UserData("sam", "hash", "sam@mail.com"));
+        Assertions.assertEquals(new UserData("sam", "hash", "sam@mail.com"), dao.getUser("sam"));
+    }
+
+    @Test
+    public void lostConnectionIsReplaced() throws Exception {
+        List<Connection> opened = new ArrayList<>();
+        ConnectionSource source = () -> {
+            try{
+                Connection conn = DriverManager.getConnection(URL);
+                opened.add(conn);
+                return conn;
+            } catch (SQLException ex) {
+                throw new DataAccessException("no database", ex);
+            }
+        };
+        try(var reconnecting = new SqlDataAccess(source)){
+            reconnecting.insertUser(new UserData("sam", "hash", "sam@mail.com"));
+            // as a driver does after the server goes away
+            opened.getLast().close();
+
+            Assertions.assertEquals("sam@mail.com", reconnecting.getUser("sam").email());
+            reconnecting.insertUser(new UserData("ann", "hash", "ann@mail.com"));
+            Assertions.assertEquals(2, opened.size());
+        }
+    }
+
+    @Test
+    public void insertUserDuplicate() throws Exception {
+        dao.insertUser(new UserData("sam", "hash", "sam@mail.com"));
+        Assertions.assertThrows(DataAccessException.class,
+                () -> dao.insertUser(new UserData("sam", "other", "other@mail.com")));
+    }
+
+    @Test
+    public void insertUsersBatchRollsBack() throws Exception {
+        dao.insertUser(new UserData("b", "hash", "b@mail.com"));
+        Assertions.assertThrows(DataAccessException.class, () -> dao.insertUsers(List.of(
+                new UserData("a", "hash", "a@mail.com"), new UserData("b", "hash", "b@mail.com"))));
+        Assertions.assertNull(dao.getUser("a"));
+    }
+
+    @Test
+    public void getUserMissing() throws Exception {
+        Assertions.assertNull(dao.getUser("nobody"));
+    }
+
+    @Test
+    public void insertGameSuccess() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "first", null));
+        GameData game = dao.getGame(gameID);
+        Assertions.assertEquals("first", game.gameName());
+        Assertions.assertEquals(new ChessGame(), game.chessGame());
+    }
+
+    @Test
+    public void insertGamesBatch() throws Exception {
+        List<Integer> gameIDs = dao.insertGames(List.of(new GameData(0, null, null, "a", null),
+                new GameData(0, null, null, "b", null), new GameData(0, null, null, "c", null)));
+        Assertions.assertEquals(3, gameIDs.size());
+        Assertions.assertEquals("b", dao.getGame(gameIDs.get(1)).gameName());
+        Assertions.assertEquals(3, dao.listGames().size());
+    }
+
+    @Test
+    public void getGameMissing() throws Exception {
+        Assertions.assertNull(dao.getGame(12345));
+    }
+
+    @Test
+    public void listGames() throws Exception {
+        dao.insertGame(new GameData(0, null, null, "a", null));
+        dao.insertGame(new GameData(0, null, null, "b", null));
+        Assertions.assertEquals(2, dao.listGames().size());
+    }
+
+    @Test
+    public void updateGameStoresBoard() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "moves", null));
+        ChessGame chessGame = new ChessGame();
+        chessGame.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        dao.updateGame(new GameData(gameID, "white", null, "moves", chessGame));
+
+        GameData stored = dao.getGame(gameID);
+        Assertions.assertEquals("white", stored.whiteUsername());
+        Assertions.assertEquals(chessGame, stored.chessGame());
+    }
+
+    @Test
+    public void updateGameMissing() {
+        Assertions.assertThrows(DataAccessException.class,
+                () -> dao.updateGame(new GameData(999, null, null, "none", new ChessGame())));
+    }
+
+    @Test
+    public void updateGamesBatch() throws Exception {
+        int first = dao.insertGame(new GameData(0, null, null, "a", null));
+        int second = dao.insertGame(new GameData(0, null, null, "b", null));
+        dao.updateGames(List.of(new GameData(first, "w1", null, "a", new ChessGame()),
+                new GameData(second, null, "b2", "b", new ChessGame())));
+        Assertions.assertEquals("w1", dao.getGame(first).whiteUsername());
+        Assertions.assertEquals("b2", dao.getGame(second).blackUsername());
+    }
+
+    @Test
+    public void updateGamesBatchRollsBack() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "a", null));
+        Assertions.assertThrows(DataAccessException.class, () -> dao.updateGames(List.of(
+                new GameData(gameID, "w1", null, "a", new ChessGame()),
+                new GameData(999, null, null, "none", new ChessGame()))));
+        Assertions.assertNull(dao.getGame(gameID).whiteUsername());
+    }
+
+    @Test
+    public void authRoundTrip() throws Exception {
+        String token = tokens.generateToken();
+        dao.insertAuth(new AuthData(token, "sam"));
+        Assertions.assertEquals(new AuthData(token, "sam"), dao.getAuth(token));
+        dao.deleteAuth(token);
+        Assertions.assertNull(dao.getAuth(token));
+    }
+
+    @Test
+    public void insertAuthsBatch() throws Exception {
+        String first = tokens.generateToken();
+        String second = tokens.generateToken();
+        dao.insertAuths(List.of(new AuthData(first, "a"), new AuthData(second, "b")));
+        Assertions.assertEquals("a", dao.getAuth(first).username());
+        Assertions.assertEquals("b", dao.getAuth(second).username());
+    }
+
+    @Test
+    public void usersWithAuthsRollBackTogether() throws Exception {
+        Assertions.assertThrows(DataAccessException.class, () -> dao.insertUsersWithAuths(
+                List.of(new UserData("sam", "hash", "sam@mail.com")), List.of(new AuthData("not-a-token", "sam"))));
+        Assertions.assertNull(dao.getUser("sam"));
+
+        String token = tokens.generateToken();
+        dao.insertUsersWithAuths(List.of(new UserData("sam", "hash", "sam@mail.com")),
+                List.of(new AuthData(token, "sam")));
+        Assertions.assertEquals("sam", dao.getAuth(token).username());
+    }
+
+    @Test
+    public void malformedTokenRejected() throws Exception {
+        Assertions.assertThrows(DataAccessException.class, () -> dao.insertAuth(new AuthData("not-a-token", "sam")));
+        Assertions.assertNull(dao.getAuth("not-a-token"));
+    }
+
+    @Test
+    public void clearRemovesEverything() throws Exception {
+        dao.insertUser(new UserData("sam", "hash", "sam@mail.com"));
+        dao.insertGame(new GameData(0, null, null, "a", null));
+        String token = tokens.generateToken();
+        dao.insertAuth(new AuthData(token, "sam"));
+        dao.clear();
+        Assertions.assertNull(dao.getUser("sam"));
+        Assertions.assertTrue(dao.listGames().isEmpty());
+        Assertions.assertNull(dao.getAuth(token));
+    }
+}
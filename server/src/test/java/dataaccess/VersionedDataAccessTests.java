@@ -0,0 +1,24 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+public class VersionedDataAccessTests {
+
+    @Test
+    public void restartNeverReusesVersions() throws Exception {
+        long start = 1_700_000_000_000L;
+        var first = new VersionedDataAccess(new DataAccessHelp(), () -> start);
+        int gameID = first.insertGame(new GameData(0, null, null, "busy", null));
+        // far more writes than milliseconds before the restart
+        for(int i = 0; i < 10_000; i++){
+            first.updateGame(new GameData(gameID, "white" + i, null, "busy", new ChessGame()));
+        }
+        long lastHandedOut = Math.max(first.gameVersion(gameID), first.listVersion());
+
+        var restarted = new VersionedDataAccess(new DataAccessHelp(), () -> start + 1);
+        Assertions.assertTrue(restarted.gameVersion(gameID) > lastHandedOut);
+        Assertions.assertTrue(restarted.listVersion() > lastHandedOut);
+    }
+}
@@ -0,0 +1,196 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.Collection;
+
+public class WriteBehindDataAccessTests {
+
+    // counts the batches that reach the backing store
+    private static class CountingDataAccess extends DataAccessHelp {
+        int batches = 0;
+        int gamesWritten = 0;
+        int flushes = 0;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public synchronized void updateGames(Collection<GameData> games) throws DataAccessException {
+            batches++;
+            gamesWritten += games.size();
+            super.updateGames(games);
+        }
+    }
+
+    // refuses to write the games listed in rejected
+    private static class RejectingDataAccess extends DataAccessHelp {
+        final java.util.Set<Integer> rejected = java.util.concurrent.ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void updateGame(GameData game) throws DataAccessException {
+            if(rejected.contains(game.gameID())){
+                throw new DataAccessException("rejected " + game.gameID());
+            }
+            super.updateGame(game);
+        }
+    }
+
+    private CountingDataAccess backing;
+    private WriteBehindDataAccess dao;
+
+    @BeforeEach
+    public void setup() {
+        backing = new CountingDataAccess();
+        // long interval so the tests decide when flushes happen
+        dao = new WriteBehindDataAccess(backing, Duration.ofHours(1), 1000);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dao.close();
+    }
+
+    @Test
+    public void updateIsVisibleBeforeFlush() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        dao.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+
+        Assertions.assertNull(backing.getGame(gameID).whiteUsername());
+        Assertions.assertEquals("white", dao.getGame(gameID).whiteUsername());
+        Assertions.assertEquals("white", dao.listGames().iterator().next().whiteUsername());
+    }
+
+    @Test
+    public void updatesCoalesceIntoOneWrite() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        for(int i = 0; i < 10; i++){
+            dao.updateGame(new GameData(gameID, "white" + i, null, "game", new ChessGame()));
+        }
+        dao.flush();
+
+        Assertions.assertEquals(1, backing.batches);
+        Assertions.assertEquals(1, backing.gamesWritten);
+        Assertions.assertEquals("white9", backing.getGame(gameID).whiteUsername());
+        Assertions.assertEquals(0, dao.pendingCount());
+    }
+
+    @Test
+    public void flushBatchesSeveralGames() throws Exception {
+        int first = dao.insertGame(new GameData(0, null, null, "a", null));
+        int second = dao.insertGame(new GameData(0, null, null, "b", null));
+        dao.updateGame(new GameData(first, "w", null, "a", new ChessGame()));
+        dao.updateGame(new GameData(second, null, "b", "b", new ChessGame()));
+        dao.flush();
+
+        Assertions.assertEquals(1, backing.batches);
+        Assertions.assertEquals(2, backing.gamesWritten);
+    }
+
+    @Test
+    public void flushReachesWrappedStore() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        dao.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+        dao.flush();
+
+        Assertions.assertEquals("white", backing.getGame(gameID).whiteUsername());
+        Assertions.assertEquals(1, backing.flushes);
+    }
+
+    @Test
+    public void updateUnknownGameFails() {
+        Assertions.assertThrows(DataAccessException.class,
+                () -> dao.updateGame(new GameData(42, null, null, "none", new ChessGame())));
+    }
+
+    @Test
+    public void closeFlushesPendingUpdates() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        dao.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+        dao.close();
+
+        Assertions.assertEquals("white", backing.getGame(gameID).whiteUsername());
+    }
+
+    @Test
+    public void updateAfterCloseWritesThrough() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        dao.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+        dao.close();
+        dao.updateGame(new GameData(gameID, "later", null, "game", new ChessGame()));
+        dao.flush();
+
+        Assertions.assertEquals("later", backing.getGame(gameID).whiteUsername());
+        Assertions.assertEquals(0, dao.pendingCount());
+    }
+
+    @Test
+    public void backgroundFlushWithinInterval() throws Exception {
+        WriteBehindDataAccess fast = new WriteBehindDataAccess(backing, Duration.ofMillis(20), 1000);
+        int gameID = fast.insertGame(new GameData(0, null, null, "game", null));
+        fast.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while(fast.pendingCount() > 0 && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals("white", backing.getGame(gameID).whiteUsername());
+        fast.close();
+    }
+
+    @Test
+    public void failingGameIsQuarantinedWithoutBlockingOthers() throws Exception {
+        RejectingDataAccess store = new RejectingDataAccess();
+        try(var writer = new WriteBehindDataAccess(store, Duration.ofHours(1), 1000)){
+            int good = writer.insertGame(new GameData(0, null, null, "good", null));
+            int bad = writer.insertGame(new GameData(0, null, null, "bad", null));
+            store.rejected.add(bad);
+            writer.updateGame(new GameData(good, "white", null, "good", new ChessGame()));
+            writer.updateGame(new GameData(bad, "white", null, "bad", new ChessGame()));
+
+            Assertions.assertThrows(DataAccessException.class, writer::flush);
+            Assertions.assertEquals("white", store.getGame(good).whiteUsername());
+            Assertions.assertEquals(1, writer.pendingCount());
+
+            // the bad game alone keeps failing; once others are written alongside it, it is set aside
+            for(int i = 1; i < WriteBehindDataAccess.MAX_ATTEMPTS; i++){
+                writer.updateGame(new GameData(good, "white" + i, null, "good", new ChessGame()));
+                Assertions.assertThrows(DataAccessException.class, writer::flush);
+            }
+            Assertions.assertEquals(0, writer.pendingCount());
+            Assertions.assertEquals(1, writer.quarantinedCount());
+            Assertions.assertEquals("white", writer.getGame(bad).whiteUsername());
+            writer.flush();
+
+            // a newer state is tried again
+            store.rejected.clear();
+            writer.updateGame(new GameData(bad, "white", "black", "bad", new ChessGame()));
+            writer.flush();
+            Assertions.assertEquals(0, writer.quarantinedCount());
+            Assertions.assertEquals("black", store.getGame(bad).blackUsername());
+        }
+    }
+
+    @Test
+    public void outageQuarantinesNothing() throws Exception {
+        RejectingDataAccess store = new RejectingDataAccess();
+        try(var writer = new WriteBehindDataAccess(store, Duration.ofHours(1), 1000)){
+            int gameID = writer.insertGame(new GameData(0, null, null, "game", null));
+            store.rejected.add(gameID);
+            writer.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+            for(int i = 0; i < 2 * WriteBehindDataAccess.MAX_ATTEMPTS; i++){
+                Assertions.assertThrows(DataAccessException.class, writer::flush);
+            }
+            Assertions.assertEquals(0, writer.quarantinedCount());
+
+            store.rejected.clear();
+            writer.flush();
+            Assertions.assertEquals("white", store.getGame(gameID).whiteUsername());
+        }
+    }
+}
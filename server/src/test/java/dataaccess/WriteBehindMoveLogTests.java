@@ -0,0 +1,136 @@
+package dataaccess;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.List;
+
+public class WriteBehindMoveLogTests {
+
+    // counts the batches that reach the backing log
+    private static class CountingMoveLog extends MemoryMoveLog {
+        int batches = 0;
+
+        @Override
+        public synchronized void appendAll(List<Move> moves) throws DataAccessException {
+            batches++;
+            super.appendAll(moves);
+        }
+    }
+
+    // refuses any batch holding a move of the rejected game, before storing any of it
+    private static class RejectingMoveLog extends MemoryMoveLog {
+        volatile int rejected = -1;
+
+        @Override
+        public void appendAll(List<Move> moves) throws DataAccessException {
+            for(Move move : moves){
+                if(move.gameID() == rejected){
+                    throw new DataAccessException("rejected " + rejected);
+                }
+            }
+            super.appendAll(moves);
+        }
+    }
+
+    private CountingMoveLog backing;
+    private WriteBehindMoveLog log;
+
+    @BeforeEach
+    public void setup() {
+        backing = new CountingMoveLog();
+        // long interval so the tests decide when flushes happen
+        log = new WriteBehindMoveLog(backing, Duration.ofHours(1), 1000);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        log.close();
+    }
+
+    @Test
+    public void movesVisibleBeforeFlush() throws Exception {
+        log.append(1, 1, 10);
+        log.append(1, 2, 20);
+        log.saveSnapshot(1, 2, new byte[]{1});
+
+        Assertions.assertEquals(0, backing.lastPly(1));
+        Assertions.assertArrayEquals(new int[]{10, 20}, log.moves(1, 0, 2));
+        Assertions.assertEquals(2, log.lastPly(1));
+        Assertions.assertEquals(2, log.snapshotAtOrBefore(1, 5).ply());
+    }
+
+    @Test
+    public void flushWritesEveryGameInOneBatch() throws Exception {
+        log.append(1, 1, 10);
+        log.append(2, 1, 30);
+        log.append(1, 2, 20);
+        log.flush();
+
+        Assertions.assertEquals(1, backing.batches);
+        Assertions.assertArrayEquals(new int[]{10, 20}, backing.moves(1, 0, 2));
+        Assertions.assertArrayEquals(new int[]{30}, backing.moves(2, 0, 1));
+        Assertions.assertEquals(0, log.pendingCount());
+    }
+
+    @Test
+    public void readsJoinStoredAndBufferedMoves() throws Exception {
+        log.append(1, 1, 10);
+        log.append(1, 2, 20);
+        log.flush();
+        log.append(1, 3, 30);
+
+        Assertions.assertArrayEquals(new int[]{10, 20, 30}, log.moves(1, 0, 3));
+        Assertions.assertArrayEquals(new int[]{20, 30}, log.moves(1, 1, 3));
+        Assertions.assertArrayEquals(new int[]{30}, log.moves(1, 2, 3));
+        Assertions.assertEquals(3, log.lastPly(1));
+    }
+
+    @Test
+    public void closeFlushesPendingMoves() throws Exception {
+        log.append(1, 1, 10);
+        log.close();
+
+        Assertions.assertArrayEquals(new int[]{10}, backing.moves(1, 0, 1));
+    }
+
+    @Test
+    public void gameReplaysThroughBufferedLog() throws Exception {
+        var dao = new MoveLogDataAccess(new DataAccessHelp(), log, 2);
+        int gameID = dao.insertGame(new GameData(0, null, null, "log", null));
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        GameData game = dao.getGame(gameID);
+        game.chessGame().makeMove(move);
+        dao.recordMove(game, move);
+
+        Assertions.assertEquals(game.chessGame(), dao.getGame(gameID).chessGame());
+        dao.flush();
+        Assertions.assertEquals(1, backing.lastPly(gameID));
+        Assertions.assertEquals(game.chessGame(), dao.getGame(gameID).chessGame());
+    }
+
+    @Test
+    public void failingGameIsQuarantinedWithoutBlockingOthers() throws Exception {
+        RejectingMoveLog store = new RejectingMoveLog();
+        try(var writer = new WriteBehindMoveLog(store, Duration.ofHours(1), 1000)){
+            store.rejected = 2;
+            writer.append(2, 1, 99);
+            for(int ply = 1; ply <= WriteBehindMoveLog.MAX_ATTEMPTS; ply++){
+                writer.append(1, ply, ply);
+                Assertions.assertThrows(DataAccessException.class, writer::flush);
+                Assertions.assertEquals(ply, store.lastPly(1));
+            }
+            Assertions.assertEquals(0, writer.pendingCount());
+            Assertions.assertEquals(1, writer.quarantinedCount());
+            Assertions.assertArrayEquals(new int[]{99}, writer.moves(2, 0, 1));
+
+            writer.append(2, 2, 98);
+            writer.flush();
+            Assertions.assertEquals(2, writer.quarantinedCount());
+            Assertions.assertEquals(0, store.lastPly(2));
+        }
+    }
+}
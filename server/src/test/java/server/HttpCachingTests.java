@@ -0,0 +1,114 @@
+package server;
+
+import dataaccess.DataAccessHelp;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class HttpCachingTests {
+    private static Server server;
+    private static String base;
+    private static String authToken;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = new Server(new DataAccessHelp(), ServerConfig.defaults());
+        base = "http://localhost:" + server.run(0);
+        HttpResponse<String> register = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(base + "/user"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"etag\",\"password\":\"p\",\"email\":\"e\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        authToken = register.body().replaceAll(".*\"authToken\":\"([^\"]+)\".*", "$1");
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.stop();
+    }
+
+    private HttpResponse<byte[]> get(String path, String... headers) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(base + path)).header("authorization", authToken);
+        for(int i = 0; i < headers.length; i += 2){
+            request.header(headers[i], headers[i + 1]);
+        }
+        return client.send(request.GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private void createGames(String names) throws Exception {
+        client.send(HttpRequest.newBuilder(URI.create(base + "/game/batch")).header("authorization", authToken)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"gameNames\":[" + names + "]}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void unchangedListIsNotModified() throws Exception {
+        createGames("\"lobby\"");
+        HttpResponse<byte[]> first = get("/game");
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<byte[]> again = get("/game", "If-None-Match", etag);
+        Assertions.assertEquals(304, again.statusCode());
+        Assertions.assertEquals(0, again.body().length);
+
+        createGames("\"another\"");
+        HttpResponse<byte[]> changed = get("/game", "If-None-Match", etag);
+        Assertions.assertEquals(200, changed.statusCode());
+        Assertions.assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    public void gameStateHasItsOwnETag() throws Exception {
+        createGames("\"state\"");
+        HttpResponse<byte[]> game = get("/game/1");
+        Assertions.assertEquals(200, game.statusCode());
+        String etag = game.headers().firstValue("ETag").orElseThrow();
+        Assertions.assertEquals(304, get("/game/1", "If-None-Match", etag).statusCode());
+    }
+
+    @Test
+    public void notModifiedStillNeedsAuth() throws Exception {
+        createGames("\"private\"");
+        String etag = get("/game").headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/game"))
+                .header("authorization", "bad").header("If-None-Match", etag).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(401, response.statusCode());
+    }
+
+    @Test
+    public void largeListIsGzipped() throws Exception {
+        StringBuilder names = new StringBuilder();
+        for(int i = 0; i < 50; i++){
+            names.append(i == 0 ? "" : ",").append("\"tournament round ").append(i).append('"');
+        }
+        createGames(names.toString());
+        HttpResponse<byte[]> response = get("/game", "Accept-Encoding", "gzip");
+        Assertions.assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        String json;
+        try(var in = new GZIPInputStream(new ByteArrayInputStream(response.body()))){
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Assertions.assertTrue(json.startsWith("{\"games\":["));
+        Assertions.assertTrue(json.contains("tournament round 49"));
+
+        HttpResponse<byte[]> plain = get("/game");
+        Assertions.assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty());
+        Assertions.assertEquals(json, new String(plain.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void headerParsing() {
+        Assertions.assertTrue(HttpCaching.matches("W/\"list-5\"", "W/\"list-5\""));
+        Assertions.assertTrue(HttpCaching.matches("\"list-4\", \"list-5\"", "W/\"list-5\""));
+        Assertions.assertFalse(HttpCaching.matches("W/\"list-4\"", "W/\"list-5\""));
+        Assertions.assertTrue(HttpCaching.acceptsGzip("deflate, gzip;q=0.8"));
+        Assertions.assertFalse(HttpCaching.acceptsGzip("gzip;q=0"));
+        Assertions.assertFalse(HttpCaching.acceptsGzip("identity"));
+    }
+}
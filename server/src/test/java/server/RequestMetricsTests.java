@@ -0,0 +1,61 @@
+package server;
+
+import dataaccess.DataAccessHelp;
+import org.junit.jupiter.api.*;
+import util.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+public class RequestMetricsTests {
+
+    @Test
+    public void routesCountedByPattern() throws Exception {
+        Server server = new Server(new DataAccessHelp(), ServerConfig.defaults());
+        String base = "http://localhost:" + server.run(0);
+        try{
+            HttpClient client = HttpClient.newHttpClient();
+            for(int id = 1; id <= 3; id++){
+                // different paths, one route; all 401
+                client.send(HttpRequest.newBuilder(URI.create(base + "/game/" + id)).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+            }
+            HttpResponse<String> scrape = client.send(HttpRequest.newBuilder(URI.create(base + "/metrics")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            Assertions.assertEquals(200, scrape.statusCode());
+            Assertions.assertTrue(scrape.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+            String body = scrape.body();
+            Assertions.assertTrue(body.contains("chess_http_responses_total{route=\"GET /game/:id\",status=\"4xx\"} 3"), body);
+            Assertions.assertTrue(body.contains("chess_http_request_duration_seconds_count{route=\"GET /game/:id\"} 3"), body);
+            Assertions.assertTrue(body.contains("chess_http_request_duration_seconds_bucket{route=\"GET /game/:id\",le=\"+Inf\"} 3"));
+            Assertions.assertTrue(body.contains("# TYPE chess_password_queue_depth gauge"));
+            Assertions.assertTrue(body.contains("# TYPE chess_password_rejected_total counter"), body);
+            Assertions.assertEquals(3, server.metrics().requestCount("GET /game/:id"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void serverErrorsCountTowardsErrorRate() {
+        RequestMetrics metrics = new RequestMetrics();
+        metrics.record("POST /game", 200, 1_000_000);
+        metrics.record("POST /game", 500, 2_000_000);
+        Assertions.assertEquals(0.5, metrics.errorRate("POST /game"), 1e-9);
+        Assertions.assertTrue(metrics.render().contains("chess_http_responses_total{route=\"POST /game\",status=\"5xx\"} 1"));
+    }
+
+    @Test
+    public void exportedBoundsCountEveryRequestBelowThem() {
+        RequestMetrics metrics = new RequestMetrics();
+        // both just under 5ms, in the bucket that straddles it
+        metrics.record("GET /game", 200, 4_990_000);
+        metrics.record("GET /game", 200, 4_999_000);
+        String le = Double.toString(LatencyHistogram.bucketEnd(5_000) / 1e6);
+        Assertions.assertTrue(metrics.render().contains(
+                "chess_http_request_duration_seconds_bucket{route=\"GET /game\",le=\"" + le + "\"} 2"), metrics.render());
+    }
+}
@@ -0,0 +1,96 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import dataaccess.DataAccessHelp;
+import dataaccess.VersionedDataAccess;
+import model.GameData;
+import org.junit.jupiter.api.*;
+import serialization.StreamingCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SerializedGameCacheTests {
+    private DataAccessHelp backing;
+    private VersionedDataAccess dao;
+    private SerializedGameCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void setup() {
+        backing = new DataAccessHelp();
+        dao = new VersionedDataAccess(backing);
+        cache = new SerializedGameCache(dao, new StreamingCodec(), 16);
+    }
+
+    private SerializedGameCache.Entry load(int gameID) throws Exception {
+        return cache.game(gameID, () -> {
+            loads.incrementAndGet();
+            return backing.getGame(gameID);
+        });
+    }
+
+    @Test
+    public void unchangedGameServedFromCache() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "popular", null));
+        SerializedGameCache.Entry first = load(gameID);
+        for(int i = 0; i < 10; i++){
+            Assertions.assertSame(first.body(), load(gameID).body());
+        }
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(10, cache.hits());
+    }
+
+    @Test
+    public void updateInvalidates() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "game", null));
+        SerializedGameCache.Entry before = load(gameID);
+        dao.updateGame(new GameData(gameID, "white", null, "game", new ChessGame()));
+        Assertions.assertEquals(0, cache.size());
+
+        SerializedGameCache.Entry after = load(gameID);
+        Assertions.assertTrue(after.version() > before.version());
+        Assertions.assertTrue(new String(after.body(), StandardCharsets.UTF_8).contains("\"whiteUsername\":\"white\""));
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void clearNeverServesOldGameForReusedID() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "old", null));
+        load(gameID);
+        dao.clear();
+        int reused = dao.insertGame(new GameData(0, null, null, "new", null));
+        Assertions.assertEquals(gameID, reused);
+        Assertions.assertTrue(new String(load(reused).body(), StandardCharsets.UTF_8).contains("\"gameName\":\"new\""));
+    }
+
+    @Test
+    public void listCachedUntilAnyGameChanges() throws Exception {
+        dao.insertGame(new GameData(0, null, null, "a", null));
+        SerializedGameCache.Entry first = cache.list(() -> backing.listGames().size());
+        Assertions.assertSame(first, cache.list(() -> backing.listGames().size()));
+
+        dao.insertGame(new GameData(0, null, null, "b", null));
+        Assertions.assertEquals("2", new String(cache.list(() -> backing.listGames().size()).body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void movesLeaveListCached() throws Exception {
+        int gameID = dao.insertGame(new GameData(0, null, null, "a", null));
+        dao.updateGame(new GameData(gameID, "white", "black", "a", new ChessGame()));
+        SerializedGameCache.Entry list = cache.list(() -> backing.listGames().size());
+        long gameVersion = dao.gameVersion(gameID);
+
+        GameData game = backing.getGame(gameID);
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        game.chessGame().makeMove(move);
+        dao.recordMove(game, move);
+        Assertions.assertTrue(dao.gameVersion(gameID) > gameVersion);
+        Assertions.assertSame(list, cache.list(() -> backing.listGames().size()));
+
+        dao.updateGame(new GameData(gameID, "white", null, "a", game.chessGame()));
+        Assertions.assertNotSame(list, cache.list(() -> backing.listGames().size()));
+    }
+}
@@ -0,0 +1,81 @@
+package server;
+
+import dataaccess.DataAccessHelp;
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ShutdownDrainTests {
+
+    // counts the flushes the server asks for on the way down
+    private static class FlushCountingDataAccess extends DataAccessHelp {
+        volatile int flushes = 0;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    public void stopWaitsForQueuedCommandsThenFlushes() throws Exception {
+        FlushCountingDataAccess dao = new FlushCountingDataAccess();
+        Server server = new Server(dao, ServerConfig.defaults());
+        String base = "http://localhost:" + server.run(0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(1);
+        // stands in for a move still sitting in a game's mailbox
+        server.actors().execute(1, () -> {
+            awaitQuietly(release);
+            ran.countDown();
+        });
+
+        CompletableFuture<Boolean> stopped = CompletableFuture.supplyAsync(() -> server.stop(Duration.ofSeconds(10)));
+        while(!server.isDraining()){
+            Thread.sleep(5);
+        }
+        HttpResponse<String> refused = client.send(HttpRequest.newBuilder(URI.create(base + "/game")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(503, refused.statusCode());
+        Assertions.assertFalse(stopped.isDone());
+        Assertions.assertEquals(0, dao.flushes);
+
+        release.countDown();
+        Assertions.assertTrue(stopped.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, ran.getCount());
+        Assertions.assertEquals(1, dao.flushes);
+    }
+
+    @Test
+    public void stopGivesUpAfterTimeout() throws Exception {
+        FlushCountingDataAccess dao = new FlushCountingDataAccess();
+        Server server = new Server(dao, ServerConfig.defaults());
+        server.run(0);
+        CountDownLatch release = new CountDownLatch(1);
+        server.actors().execute(1, () -> awaitQuietly(release));
+        try{
+            Assertions.assertFalse(server.stop(Duration.ofMillis(100)));
+            // cut off or not, whatever was accepted still gets flushed
+            Assertions.assertEquals(1, dao.flushes);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try{
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
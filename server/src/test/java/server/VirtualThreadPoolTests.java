@@ -0,0 +1,76 @@
+package server;
+
+import dataaccess.DataAccessHelp;
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class VirtualThreadPoolTests {
+
+    @Test
+    public void blockedTasksDoNotHoldBackOthers() throws Exception {
+        VirtualThreadPool pool = new VirtualThreadPool("test");
+        pool.start();
+        try{
+            // far more blocked tasks than a platform pool would have threads
+            int tasks = 1000;
+            CountDownLatch allRunning = new CountDownLatch(tasks);
+            CountDownLatch release = new CountDownLatch(1);
+            for(int i = 0; i < tasks; i++){
+                pool.execute(() -> {
+                    allRunning.countDown();
+                    try{
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            Assertions.assertTrue(allRunning.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(tasks, pool.getThreads());
+            release.countDown();
+        } finally {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void tasksRunOnVirtualThreads() throws Exception {
+        VirtualThreadPool pool = new VirtualThreadPool("test");
+        pool.start();
+        try{
+            boolean[] virtual = new boolean[1];
+            CountDownLatch done = new CountDownLatch(1);
+            pool.execute(() -> {
+                virtual[0] = Thread.currentThread().isVirtual();
+                done.countDown();
+            });
+            Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(virtual[0]);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void serverHandlesRequestsInVirtualMode() throws Exception {
+        Server server = new Server(new DataAccessHelp(), ServerConfig.defaults().withPoolMode(ServerConfig.PoolMode.VIRTUAL));
+        int port = server.run(0);
+        try{
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"v\",\"password\":\"p\",\"email\":\"e\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode());
+            Assertions.assertInstanceOf(VirtualThreadPool.class, server.threadPool());
+            Assertions.assertTrue(((VirtualThreadPool) server.threadPool()).startedCount() > 0);
+        } finally {
+            server.stop();
+        }
+    }
+}
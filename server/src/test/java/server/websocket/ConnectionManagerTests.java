@@ -0,0 +1,277 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameStatus;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.*;
+import serialization.GsonCodec;
+import websocket.BinaryProtocol;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveUpdateMessage;
+import websocket.messages.NotificationMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConnectionManagerTests {
+
+    // counts how often a message is turned into text
+    private static class CountingCodec extends GsonCodec {
+        int encoded = 0;
+
+        @Override
+        public String toJson(Object value) {
+            encoded++;
+            return super.toJson(value);
+        }
+    }
+
+    // a session that records what was written to it; writes fail when failing is set and
+    // do not finish until release() when stalled is set
+    private static class FakeSession {
+        final List<String> received = new ArrayList<>();
+        final List<ByteBuffer> receivedBytes = new ArrayList<>();
+        final List<WriteCallback> pending = new ArrayList<>();
+        boolean open = true;
+        boolean failing = false;
+        boolean stalled = false;
+        Integer closeCode = null;
+        final Session session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch(method.getName()){
+                    case "isOpen" -> open;
+                    case "close" -> {
+                        open = false;
+                        closeCode = args == null ? null : (Integer) args[0];
+                        yield null;
+                    }
+                    case "getRemote" -> remote();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+
+        private RemoteEndpoint remote() {
+            return (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                    new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                        boolean text = method.getName().equals("sendString");
+                        if((text || method.getName().equals("sendBytes")) && args.length == 2){
+                            WriteCallback callback = (WriteCallback) args[1];
+                            if(failing){
+                                callback.writeFailed(new IOException("broken pipe"));
+                                return null;
+                            }
+                            if(text){
+                                received.add((String) args[0]);
+                            }else{
+                                receivedBytes.add((ByteBuffer) args[0]);
+                            }
+                            if(stalled){
+                                pending.add(callback);
+                            }else{
+                                callback.writeSuccess();
+                            }
+                        }
+                        return null;
+                    });
+        }
+
+        void release() {
+            stalled = false;
+            while(!pending.isEmpty()){
+                pending.remove(0).writeSuccess();
+            }
+        }
+    }
+
+    private CountingCodec codec;
+    private ConnectionManager connections;
+
+    @BeforeEach
+    public void setup() {
+        codec = new CountingCodec();
+        connections = new ConnectionManager(codec);
+    }
+
+    @Test
+    public void broadcastEncodesOnceAndSkipsSender() {
+        FakeSession sender = new FakeSession();
+        FakeSession first = new FakeSession();
+        FakeSession second = new FakeSession();
+        FakeSession otherGame = new FakeSession();
+        connections.add(1, sender.session);
+        connections.add(1, first.session);
+        connections.add(1, second.session);
+        connections.add(2, otherGame.session);
+
+        connections.broadcast(1, new NotificationMessage("hello"), sender.session);
+
+        Assertions.assertEquals(1, codec.encoded);
+        Assertions.assertTrue(sender.received.isEmpty());
+        Assertions.assertEquals(1, first.received.size());
+        Assertions.assertSame(first.received.get(0), second.received.get(0));
+        Assertions.assertTrue(otherGame.received.isEmpty());
+        Assertions.assertEquals(2, connections.sentCount());
+    }
+
+    @Test
+    public void moveGoesOutAsDeltaOrFullGame() {
+        FakeSession full = new FakeSession();
+        FakeSession delta = new FakeSession();
+        FakeSession otherDelta = new FakeSession();
+        connections.add(1, full.session);
+        connections.add(1, delta.session);
+        connections.add(1, otherDelta.session);
+        connections.setOptions(delta.session, new ClientOptions(false, true));
+        connections.setOptions(otherDelta.session, new ClientOptions(false, true));
+
+        ChessGame game = new ChessGame();
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        connections.broadcastMove(1, new LoadGameMessage(game), new MoveUpdateMessage(move, 1L, GameStatus.ACTIVE));
+
+        Assertions.assertEquals(2, codec.encoded);
+        Assertions.assertTrue(full.received.get(0).contains("LOAD_GAME"));
+        Assertions.assertTrue(delta.received.get(0).contains("MOVE_UPDATE"));
+        Assertions.assertSame(delta.received.get(0), otherDelta.received.get(0));
+    }
+
+    @Test
+    public void binarySessionsGetBinaryFrames() {
+        FakeSession json = new FakeSession();
+        FakeSession binary = new FakeSession();
+        connections.add(1, json.session);
+        connections.add(1, binary.session);
+        connections.setOptions(binary.session, new ClientOptions(true, false));
+
+        connections.broadcast(1, new NotificationMessage("hello"), null);
+
+        Assertions.assertEquals(1, codec.encoded);
+        Assertions.assertEquals(1, json.received.size());
+        Assertions.assertTrue(binary.received.isEmpty());
+        Assertions.assertEquals(new NotificationMessage("hello"),
+                BinaryProtocol.decodeMessage(binary.receivedBytes.get(0)));
+    }
+
+    @Test
+    public void newerGameReplacesQueuedGame() {
+        connections = new ConnectionManager(codec, 4, 8, 10_000);
+        FakeSession slow = new FakeSession();
+        slow.stalled = true;
+        connections.add(1, slow.session);
+
+        connections.broadcast(1, new NotificationMessage("first"), null);
+        ChessGame older = new ChessGame();
+        ChessGame newer = new ChessGame();
+        newer.setTeamTurn(ChessGame.TeamColor.BLACK);
+        connections.broadcast(1, new LoadGameMessage(older), null);
+        connections.broadcast(1, new NotificationMessage("second"), null);
+        connections.broadcast(1, new LoadGameMessage(newer), null);
+
+        Assertions.assertEquals(2, connections.queued(slow.session));
+        Assertions.assertEquals(1, connections.replacedCount());
+        slow.release();
+        Assertions.assertEquals(3, slow.received.size());
+        Assertions.assertTrue(slow.received.get(1).contains("second"));
+        Assertions.assertEquals(codec.toJson(new LoadGameMessage(newer)), slow.received.get(2));
+        Assertions.assertEquals(0, connections.queued(slow.session));
+    }
+
+    @Test
+    public void fullQueueDropsOldestNotification() {
+        connections = new ConnectionManager(codec, 2, 8, 10_000);
+        FakeSession slow = new FakeSession();
+        slow.stalled = true;
+        connections.add(1, slow.session);
+
+        for(int i = 0; i < 4; i++){
+            connections.broadcast(1, new NotificationMessage("n" + i), null);
+        }
+
+        Assertions.assertEquals(1, connections.droppedCount());
+        slow.release();
+        Assertions.assertEquals(3, slow.received.size());
+        Assertions.assertTrue(slow.received.get(1).contains("n2"));
+        Assertions.assertTrue(slow.session.isOpen());
+    }
+
+    @Test
+    public void chronicallySlowSessionClosed() {
+        connections = new ConnectionManager(codec, 1, 2, 10_000);
+        FakeSession slow = new FakeSession();
+        FakeSession healthy = new FakeSession();
+        slow.stalled = true;
+        connections.add(1, slow.session);
+        connections.add(1, healthy.session);
+
+        for(int i = 0; i < 5; i++){
+            connections.broadcast(1, new NotificationMessage("n" + i), null);
+        }
+
+        Assertions.assertEquals(StatusCode.TRY_AGAIN_LATER, slow.closeCode);
+        Assertions.assertEquals(1, connections.slowDisconnectCount());
+        Assertions.assertNull(connections.gameOf(slow.session));
+        Assertions.assertEquals(5, healthy.received.size());
+    }
+
+    @Test
+    public void stuckWriteClosesSession() throws Exception {
+        connections = new ConnectionManager(codec, 8, 8, 1);
+        FakeSession stuck = new FakeSession();
+        stuck.stalled = true;
+        connections.add(1, stuck.session);
+
+        connections.broadcast(1, new NotificationMessage("first"), null);
+        Thread.sleep(5);
+        connections.broadcast(1, new NotificationMessage("second"), null);
+
+        Assertions.assertEquals(StatusCode.TRY_AGAIN_LATER, stuck.closeCode);
+        Assertions.assertEquals(1, stuck.received.size());
+    }
+
+    @Test
+    public void failedWriteDropsSession() {
+        FakeSession healthy = new FakeSession();
+        FakeSession broken = new FakeSession();
+        broken.failing = true;
+        connections.add(1, healthy.session);
+        connections.add(1, broken.session);
+
+        connections.broadcast(1, new NotificationMessage("hello"), null);
+
+        Assertions.assertEquals(1, healthy.received.size());
+        Assertions.assertEquals(1, connections.groupSize(1));
+        Assertions.assertNull(connections.gameOf(broken.session));
+        Assertions.assertEquals(1, connections.failedCount());
+    }
+
+    @Test
+    public void closedSessionDroppedWithoutWriting() {
+        FakeSession closed = new FakeSession();
+        connections.add(1, closed.session);
+        closed.open = false;
+
+        connections.broadcast(1, new NotificationMessage("hello"), null);
+
+        Assertions.assertTrue(closed.received.isEmpty());
+        Assertions.assertEquals(0, connections.groupSize(1));
+        Assertions.assertEquals(0, connections.sessionCount());
+    }
+
+    @Test
+    public void connectingElsewhereLeavesOldGame() {
+        FakeSession session = new FakeSession();
+        connections.add(1, session.session);
+        connections.add(2, session.session);
+
+        Assertions.assertEquals(0, connections.groupSize(1));
+        Assertions.assertEquals(1, connections.groupSize(2));
+        Assertions.assertEquals(2, connections.gameOf(session.session));
+    }
+}
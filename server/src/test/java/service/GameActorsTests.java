@@ -0,0 +1,109 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameActorsTests {
+    private final GameActors actors = new GameActors();
+
+    @Test
+    public void commandsRunInOrderOneAtATime() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(500);
+        for(int i = 0; i < 500; i++){
+            int n = i;
+            actors.execute(1, () -> {
+                if(running.incrementAndGet() > 1){
+                    overlaps.incrementAndGet();
+                }
+                order.add(n);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, overlaps.get());
+        for(int i = 0; i < 500; i++){
+            Assertions.assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    public void mailboxDepthCountsWaitingCommands() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        actors.execute(7, () -> {
+            started.countDown();
+            await(release);
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        actors.execute(7, () -> {});
+        actors.execute(7, () -> {});
+
+        Assertions.assertEquals(3, actors.mailboxDepth(7));
+        Assertions.assertEquals(0, actors.mailboxDepth(8));
+        Assertions.assertEquals(3, actors.mailboxDepths().get(7));
+        Assertions.assertEquals(3, actors.maxDepth());
+
+        release.countDown();
+        Assertions.assertEquals("done", actors.call(7, () -> "done"));
+        Assertions.assertEquals(0, actors.mailboxDepth(7));
+    }
+
+    @Test
+    public void otherGamesAreNotHeldUp() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        actors.execute(1, () -> await(release));
+        try{
+            Assertions.assertEquals(2, actors.call(2, () -> 2));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void callPassesServiceExceptionThrough() {
+        ServiceException ex = Assertions.assertThrows(ServiceException.class, () -> actors.call(3, () -> {
+            throw new ServiceException(403, "Error: already taken");
+        }));
+        Assertions.assertEquals(403, ex.statusCode());
+    }
+
+    @Test
+    public void failedCommandDoesNotStopTheActor() throws Exception {
+        actors.execute(4, () -> {
+            throw new IllegalStateException("boom");
+        });
+        Assertions.assertEquals("next", actors.call(4, () -> "next"));
+    }
+
+    @Test
+    public void awaitIdleWaitsForQueuedCommands() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        actors.execute(5, () -> await(release));
+        actors.execute(5, ran::incrementAndGet);
+
+        Assertions.assertFalse(actors.awaitIdle(Duration.ofMillis(50)));
+        release.countDown();
+        Assertions.assertTrue(actors.awaitIdle(Duration.ofSeconds(5)));
+        Assertions.assertEquals(1, ran.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try{
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package service;
+
+import chess.ChessGame;
+import chess.PackedGame;
+import dataaccess.DataAccessHelp;
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GameClocksTests {
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    public void flagFallsOnTheWheel() {
+        GameClocks clocks = new GameClocks(TimeControl.ofSeconds(60, 0, 0), now::get);
+        clocks.start(1, ChessGame.TeamColor.WHITE);
+
+        now.addAndGet(59_000);
+        Assertions.assertTrue(due(clocks).isEmpty());
+        now.addAndGet(1_100);
+        Assertions.assertEquals(List.of(1), due(clocks));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, clocks.expire(1));
+        Assertions.assertEquals(0, clocks.size());
+        Assertions.assertEquals(1, clocks.flagCount());
+    }
+
+    @Test
+    public void incrementAndDelay() {
+        GameClocks clocks = new GameClocks(TimeControl.ofSeconds(60, 2, 3), now::get);
+        clocks.start(1, ChessGame.TeamColor.WHITE);
+
+        // ten seconds to move, the first three of them free
+        now.addAndGet(10_000);
+        clocks.moved(1, ChessGame.TeamColor.WHITE, now.get());
+        Assertions.assertEquals(55_000, clocks.remaining(1, ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(60_000, clocks.remaining(1, ChessGame.TeamColor.BLACK));
+
+        now.addAndGet(2_000);
+        Assertions.assertEquals(60_000, clocks.remaining(1, ChessGame.TeamColor.BLACK));
+        now.addAndGet(60_900);
+        Assertions.assertTrue(due(clocks).isEmpty());
+        now.addAndGet(200);
+        Assertions.assertEquals(List.of(1), due(clocks));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, clocks.expire(1));
+    }
+
+    @Test
+    public void moveBeforeDeadlinePushesItBack() {
+        GameClocks clocks = new GameClocks(TimeControl.ofSeconds(60, 0, 0), now::get);
+        clocks.start(1, ChessGame.TeamColor.WHITE);
+        now.addAndGet(50_000);
+        clocks.moved(1, ChessGame.TeamColor.WHITE, now.get());
+
+        now.addAndGet(20_000);
+        Assertions.assertTrue(due(clocks).isEmpty());
+        Assertions.assertNull(clocks.expire(1));
+        Assertions.assertEquals(10_000, clocks.remaining(1, ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void untimedDoesNothing() {
+        GameClocks clocks = new GameClocks(TimeControl.UNTIMED, now::get);
+        clocks.start(1, ChessGame.TeamColor.WHITE);
+        clocks.moved(1, ChessGame.TeamColor.WHITE, now.get());
+        Assertions.assertEquals(0, clocks.size());
+        Assertions.assertTrue(clocks.hasTime(1, ChessGame.TeamColor.BLACK, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void playerOutOfTimeLosesTheGame() throws Exception {
+        DataAccessHelp dao = new DataAccessHelp();
+        TokenService tokens = new TokenService();
+        String white = tokens.generateToken();
+        dao.insertAuth(new AuthData(white, "w"));
+        int gameID = dao.insertGame(new GameData(0, null, null, "timed", null));
+        dao.updateGame(new GameData(gameID, "w", "b", "timed", new ChessGame()));
+        GameClocks clocks = new GameClocks(TimeControl.ofSeconds(30, 0, 0), now::get);
+        try(PasswordService passwords = new PasswordService(1, 8, 4)){
+            GameplayService gameplay = new GameplayService(dao, new UserService(dao, passwords, tokens), clocks);
+            gameplay.connect(white, gameID);
+
+            now.addAndGet(31_000);
+            ServiceException late = Assertions.assertThrows(ServiceException.class, () -> gameplay.makeMove(white,
+                    gameID, PackedGame.packMove(PackedGame.squareIndex(2, 5), PackedGame.squareIndex(4, 5), 0)));
+            Assertions.assertEquals("Error: out of time", late.getMessage());
+
+            List<GameplayService.TimedOut> timedOut = new ArrayList<>();
+            clocks.tick(id -> {
+                try{
+                    timedOut.add(gameplay.timeOut(id));
+                } catch (ServiceException ex) {
+                    throw new AssertionError(ex);
+                }
+            });
+            Assertions.assertEquals(1, timedOut.size());
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, timedOut.get(0).loser());
+            Assertions.assertTrue(dao.getGame(gameID).chessGame().isGameOver());
+        }
+    }
+
+    private static List<Integer> due(GameClocks clocks) {
+        List<Integer> due = new ArrayList<>();
+        clocks.tick(due::add);
+        return due;
+    }
+}
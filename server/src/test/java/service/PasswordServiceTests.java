@@ -0,0 +1,61 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class PasswordServiceTests {
+
+    @Test
+    public void hashThenVerify() throws Exception {
+        try(var passwords = new PasswordService(2, 8, 4)){
+            String hash = passwords.hash("secret");
+            Assertions.assertNotEquals("secret", hash);
+            Assertions.assertTrue(passwords.verify("secret", hash));
+            Assertions.assertFalse(passwords.verify("wrong", hash));
+            Assertions.assertEquals(3, passwords.completedCount());
+        }
+    }
+
+    @Test
+    public void verifyMissingHashFails() throws Exception {
+        try(var passwords = new PasswordService(1, 8, 4)){
+            Assertions.assertFalse(passwords.verify("secret", null));
+        }
+    }
+
+    @Test
+    public void fullQueueRejectsWithBusy() throws Exception {
+        // one thread busy, one queued, the third has nowhere to go
+        try(var passwords = new PasswordService(1, 1, 12)){
+            CompletableFuture<String> running = passwords.hashAsync("a");
+            CompletableFuture<String> queued = passwords.hashAsync("b");
+            CompletableFuture<String> refused = passwords.hashAsync("c");
+
+            ExecutionException ex = Assertions.assertThrows(ExecutionException.class, refused::get);
+            Assertions.assertEquals(503, ((ServiceException) ex.getCause()).statusCode());
+            Assertions.assertEquals(1, passwords.rejectedCount());
+
+            Assertions.assertNotNull(running.get());
+            Assertions.assertNotNull(queued.get());
+            Assertions.assertTrue(passwords.maxQueueWaitMillis() > 0);
+        }
+    }
+
+    @Test
+    public void abandonedWorkIsSkipped() throws Exception {
+        try(var passwords = new PasswordService(1, 4, 12)){
+            CompletableFuture<String> running = passwords.hashAsync("a");
+            CompletableFuture<String> queued = passwords.hashAsync("b");
+            // what await does when its wait runs out
+            queued.cancel(false);
+
+            Assertions.assertNotNull(running.get());
+            CompletableFuture<String> after = passwords.hashAsync("c");
+            Assertions.assertNotNull(after.get());
+            Assertions.assertEquals(1, passwords.abandonedCount());
+            Assertions.assertEquals(2, passwords.completedCount());
+        }
+    }
+}
@@ -1,4 +1,168 @@
-package java.service;
+package service;
+
+import dataaccess.DataAccessHelp;
+import dataaccess.dataAccess;
+import model.*;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
 
 public class ServiceUnitTests {
+    private static PasswordService passwords;
+
+    private DataAccessHelp dao;
+    private UserService userService;
+    private GameService gameService;
+    private ClearService clearService;
+
+    @BeforeAll
+    public static void startPasswords() {
+        passwords = new PasswordService(2, 256, 4);
+    }
+
+    @AfterAll
+    public static void stopPasswords() {
+        passwords.close();
+    }
+
+    @BeforeEach
+    public void setup() {
+        dao = new DataAccessHelp();
+        userService = new UserService(dao, passwords, new TokenService());
+        gameService = new GameService(dao, userService);
+        clearService = new ClearService(dao);
+    }
+
+    //user
+    @Test
+    public void registerSuccess() throws Exception {
+        AuthData auth = userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        Assertions.assertEquals("sam", auth.username());
+        Assertions.assertNotEquals("pw", dao.getUser("sam").password());
+        Assertions.assertEquals(auth, userService.authenticate(auth.authToken()));
+    }
+
+    @Test
+    public void registerTaken() throws Exception {
+        userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> userService.register(new UserData("sam", "other", "x@mail.com")));
+        Assertions.assertEquals(403, ex.statusCode());
+    }
+
+    @Test
+    public void registerMissingField() {
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> userService.register(new UserData("sam", null, "sam@mail.com")));
+        Assertions.assertEquals(400, ex.statusCode());
+    }
+
+    @Test
+    public void namesTooLongToStoreRejected() throws Exception {
+        String longName = "n".repeat(dataAccess.MAX_NAME_BYTES + 1);
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> userService.register(new UserData(longName, "pw", "sam@mail.com")));
+        Assertions.assertEquals(400, ex.statusCode());
+
+        AuthData auth = userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        ex = Assertions.assertThrows(ServiceException.class,
+                () -> gameService.createGame(auth.authToken(), new CreateGameRequest(longName)));
+        Assertions.assertEquals(400, ex.statusCode());
+        // the limit is in bytes: 30 two-byte characters fit, 31 do not
+        Assertions.assertTrue(gameService.createGame(auth.authToken(), new CreateGameRequest("é".repeat(30))) > 0);
+        ex = Assertions.assertThrows(ServiceException.class,
+                () -> gameService.createGames(auth.authToken(), List.of("ok", "é".repeat(31))));
+        Assertions.assertEquals(400, ex.statusCode());
+    }
+
+    @Test
+    public void registerAllSuccess() throws Exception {
+        List<AuthData> auths = userService.registerAll(List.of(
+                new UserData("a", "pa", "a@mail.com"), new UserData("b", "pb", "b@mail.com")));
+        Assertions.assertEquals(List.of("a", "b"), auths.stream().map(AuthData::username).toList());
+        Assertions.assertNotNull(dao.getAuth(auths.get(1).authToken()));
+        Assertions.assertNotNull(userService.login(new LoginRequest("b", "pb")));
+    }
+
+    @Test
+    public void registerAllIsAllOrNothing() throws Exception {
+        userService.register(new UserData("b", "pb", "b@mail.com"));
+        ServiceException ex = Assertions.assertThrows(ServiceException.class, () -> userService.registerAll(List.of(
+                new UserData("a", "pa", "a@mail.com"), new UserData("b", "pb", "b@mail.com"))));
+        Assertions.assertEquals(403, ex.statusCode());
+        Assertions.assertNull(dao.getUser("a"));
+    }
+
+    @Test
+    public void loginWrongPassword() throws Exception {
+        userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> userService.login(new LoginRequest("sam", "wrong")));
+        Assertions.assertEquals(401, ex.statusCode());
+    }
+
+    @Test
+    public void logoutInvalidatesToken() throws Exception {
+        AuthData auth = userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        userService.logout(auth.authToken());
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> userService.logout(auth.authToken()));
+        Assertions.assertEquals(401, ex.statusCode());
+    }
+
+    //game
+    @Test
+    public void createAndJoinGame() throws Exception {
+        AuthData auth = userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        int gameID = gameService.createGame(auth.authToken(), new CreateGameRequest("game"));
+        gameService.joinGame(auth.authToken(), new JoinGameRequest("BLACK", gameID));
+
+        Assertions.assertEquals(List.of(new GameListEntry(gameID, null, "sam", "game")),
+                List.copyOf(gameService.listGames(auth.authToken())));
+    }
+
+    @Test
+    public void joinTakenColor() throws Exception {
+        AuthData auth = userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        int gameID = gameService.createGame(auth.authToken(), new CreateGameRequest("game"));
+        gameService.joinGame(auth.authToken(), new JoinGameRequest("WHITE", gameID));
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> gameService.joinGame(auth.authToken(), new JoinGameRequest("WHITE", gameID)));
+        Assertions.assertEquals(403, ex.statusCode());
+    }
+
+    @Test
+    public void joinBadColor() throws Exception {
+        AuthData auth = userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        int gameID = gameService.createGame(auth.authToken(), new CreateGameRequest("game"));
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> gameService.joinGame(auth.authToken(), new JoinGameRequest("GREEN", gameID)));
+        Assertions.assertEquals(400, ex.statusCode());
+    }
+
+    @Test
+    public void createGamesBatch() throws Exception {
+        AuthData auth = userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        List<Integer> gameIDs = gameService.createGames(auth.authToken(), List.of("r1", "r2", "r3"));
+        Assertions.assertEquals(3, gameIDs.size());
+        Assertions.assertEquals("r3", dao.getGame(gameIDs.get(2)).gameName());
+    }
+
+    @Test
+    public void createGamesUnauthorized() {
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> gameService.createGames("nope", List.of("r1")));
+        Assertions.assertEquals(401, ex.statusCode());
+    }
+
+    //clear
+    @Test
+    public void clearRemovesEverything() throws Exception {
+        AuthData auth = userService.register(new UserData("sam", "pw", "sam@mail.com"));
+        gameService.createGame(auth.authToken(), new CreateGameRequest("game"));
+        clearService.clear();
+        Assertions.assertNull(dao.getUser("sam"));
+        Assertions.assertTrue(dao.listGames().isEmpty());
+        Assertions.assertNull(dao.getAuth(auth.authToken()));
+    }
 }
@@ -0,0 +1,51 @@
+package service;
+
+import dataaccess.TokenCodec;
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class TokenServiceTests {
+    private final TokenService tokens = new TokenService();
+
+    @Test
+    public void tokensAreCompactBase64Url() {
+        String token = tokens.generateToken();
+        Assertions.assertEquals(TokenCodec.TOKEN_CHARS, token.length());
+        Assertions.assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    public void tokensRoundTripThroughBytes() {
+        String token = tokens.generateToken();
+        byte[] key = TokenCodec.toBytes(token);
+        Assertions.assertEquals(TokenCodec.TOKEN_BYTES, key.length);
+        Assertions.assertEquals(token, TokenCodec.toText(key));
+    }
+
+    @Test
+    public void tokensAreUnique() {
+        Set<String> seen = new HashSet<>();
+        for(int i = 0; i < 10000; i++){
+            Assertions.assertTrue(seen.add(tokens.generateToken()));
+        }
+    }
+
+    @Test
+    public void foreignTokensHaveNoKey() {
+        Assertions.assertNull(TokenCodec.toBytes("0f8fad5b-d9cb-469f-a165-70867728950e"));
+        Assertions.assertNull(TokenCodec.toBytes("!!!!!!!!!!!!!!!!!!!!!!"));
+        Assertions.assertNull(TokenCodec.toBytes(null));
+    }
+
+    @Test
+    public void nonCanonicalTokensHaveNoKey() {
+        String token = TokenCodec.toText(new byte[TokenCodec.TOKEN_BYTES]);
+        Assertions.assertEquals('A', token.charAt(TokenCodec.TOKEN_CHARS - 1));
+        Assertions.assertNotNull(TokenCodec.toBytes(token));
+        // 'B' differs only in the unused low bits, so it decodes to the same 16 bytes
+        String twin = token.substring(0, TokenCodec.TOKEN_CHARS - 1) + "B";
+        Assertions.assertNull(TokenCodec.toBytes(twin));
+    }
+}
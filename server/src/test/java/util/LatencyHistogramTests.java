@@ -0,0 +1,63 @@
+package util;
+
+import org.junit.jupiter.api.*;
+
+public class LatencyHistogramTests {
+
+    @Test
+    public void bucketsAreContiguous() {
+        long expectedLow = 0;
+        for(int i = 0; i < 600; i++){
+            Assertions.assertEquals(i, LatencyHistogram.bucketIndex(expectedLow), "low end of bucket " + i);
+            long high = LatencyHistogram.highestEquivalent(i);
+            Assertions.assertEquals(i, LatencyHistogram.bucketIndex(high), "high end of bucket " + i);
+            expectedLow = high + 1;
+        }
+    }
+
+    @Test
+    public void percentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(long micros = 1; micros <= 10_000; micros++){
+            histogram.record(micros);
+        }
+        Assertions.assertEquals(10_000, histogram.count());
+        assertClose(5_000, histogram.valueAtPercentile(50));
+        assertClose(9_900, histogram.valueAtPercentile(99));
+        assertClose(10_000, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void countAtOrBelow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(20);
+        histogram.record(5_000_000);
+        Assertions.assertEquals(2, histogram.countAtOrBelow(1000));
+        Assertions.assertEquals(3, histogram.countAtOrBelow(10_000_000));
+    }
+
+    @Test
+    public void countAtBucketEndIsExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 4990 and 5000 share a bucket with everything up to 5119
+        histogram.record(4_990);
+        histogram.record(5_000);
+        histogram.record(5_200);
+        long end = LatencyHistogram.bucketEnd(5_000);
+        Assertions.assertTrue(end >= 5_000 && end < 5_200, "bucket end " + end);
+        Assertions.assertEquals(end, LatencyHistogram.bucketEnd(end));
+        Assertions.assertEquals(2, histogram.countAtOrBelow(end));
+        // a bound inside the bucket leaves the whole bucket out
+        Assertions.assertEquals(0, histogram.countAtOrBelow(5_000));
+    }
+
+    @Test
+    public void emptyHistogram() {
+        Assertions.assertEquals(0, new LatencyHistogram().valueAtPercentile(99));
+    }
+
+    private static void assertClose(long expected, long actual) {
+        Assertions.assertTrue(Math.abs(actual - expected) <= expected * 0.07, "expected ~" + expected + " got " + actual);
+    }
+}
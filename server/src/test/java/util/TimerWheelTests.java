@@ -0,0 +1,67 @@
+package util;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+public class TimerWheelTests {
+
+    @Test
+    public void keysExpireAtDeadline() {
+        var wheel = new TimerWheel<String>(10, 8, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 55);
+
+        Assertions.assertEquals(List.of(), wheel.advance(20));
+        Assertions.assertEquals(List.of("a"), wheel.advance(30));
+        Assertions.assertEquals(List.of("b"), wheel.advance(60));
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void touchPushesDeadlineBack() {
+        var wheel = new TimerWheel<String>(10, 8, 0);
+        wheel.schedule("a", 25);
+        wheel.touch("a", 95);
+
+        Assertions.assertEquals(List.of(), wheel.advance(50));
+        Assertions.assertEquals(List.of(), wheel.advance(90));
+        Assertions.assertEquals(List.of("a"), wheel.advance(100));
+    }
+
+    @Test
+    public void deadlinesBeyondOneRotation() {
+        var wheel = new TimerWheel<String>(10, 4, 0);
+        wheel.schedule("far", 205);
+
+        Assertions.assertEquals(List.of(), wheel.advance(100));
+        Assertions.assertEquals(List.of(), wheel.advance(200));
+        Assertions.assertEquals(List.of("far"), wheel.advance(210));
+    }
+
+    @Test
+    public void longGapStillExpiresEverything() {
+        var wheel = new TimerWheel<Integer>(10, 4, 0);
+        for(int i = 0; i < 20; i++){
+            wheel.schedule(i, 15 + i * 10);
+        }
+        Assertions.assertEquals(20, wheel.advance(10_000).size());
+    }
+
+    @Test
+    public void cancelledKeysNeverFire() {
+        var wheel = new TimerWheel<String>(10, 8, 0);
+        wheel.schedule("a", 25);
+        Assertions.assertTrue(wheel.cancel("a"));
+        Assertions.assertEquals(List.of(), wheel.advance(100));
+    }
+
+    @Test
+    public void deadlineLaterInCurrentTick() {
+        var wheel = new TimerWheel<String>(10, 8, 0);
+        wheel.schedule("a", 15);
+        wheel.touch("a", 19);
+        Assertions.assertEquals(List.of(), wheel.advance(17));
+        Assertions.assertEquals(List.of("a"), wheel.advance(20));
+    }
+}
@@ -75,6 +75,15 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1]; // adjust by -1 to fit java [8][8] grid
     }
 
+    // square is 0-63 as in PackedGame
+    ChessPiece getPiece(int square) {
+        return squares[square >> 3][square & 7];
+    }
+
+    void addPiece(int square, ChessPiece piece) {
+        squares[square >> 3][square & 7] = piece;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
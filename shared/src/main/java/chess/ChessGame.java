@@ -11,11 +11,14 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessGame {
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
     @Override
     public String toString() {
         return "ChessGame{" +
                 "teamTurn=" + teamTurn +
                 ", board=" + board +
+                ", gameOver=" + gameOver +
                 '}';
     }
 
@@ -25,12 +28,13 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return teamTurn == chessGame.teamTurn && Objects.equals(board, chessGame.board);
+        return teamTurn == chessGame.teamTurn && gameOver == chessGame.gameOver
+                && Objects.equals(board, chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamTurn, board);
+        return Objects.hash(teamTurn, board, gameOver);
     }
 
     public ChessGame() {
@@ -39,6 +43,7 @@ public class ChessGame {
         this.teamTurn = TeamColor.WHITE;
     }
     private TeamColor teamTurn;
+    private boolean gameOver = false;
     /**
      * @return Which team's turn it is
      */
@@ -55,6 +60,20 @@ public class ChessGame {
         this.teamTurn = team;
     }
 
+    /**
+     * @return true once the game has ended (checkmate, stalemate, resignation or timeout)
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Marks the game as finished (or not); no more moves are accepted once it is over
+     */
+    public void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -76,15 +95,11 @@ public class ChessGame {
         if (piece == null){
             return null;
         }
-        TeamColor pieceColor = piece.getTeamColor();
 
+        int start = PackedGame.squareIndex(startPosition);
         Collection<ChessMove> movePossibilities = piece.pieceMoves(getBoard(), startPosition);
         for(ChessMove possibility : movePossibilities){
-            ChessBoard copiedBoard = getBoard().deepCopy();
-            moveOnBoard(copiedBoard, possibility);
-            ChessGame attemptedMove = new ChessGame();
-            attemptedMove.setBoard(copiedBoard);
-            if(!attemptedMove.isInCheck(pieceColor)){
+            if(MoveRules.keepsKingSafe(getBoard(), start, PackedGame.squareIndex(possibility.getEndPosition()))){
                 validPossibilities.add(possibility);
             }
         }
@@ -99,26 +114,52 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        ChessPiece piece = board.getPiece(move.getStartPosition());
+        if(move == null || !PackedGame.isOnBoard(move.getStartPosition()) || !PackedGame.isOnBoard(move.getEndPosition())){
+            throw new InvalidMoveException("Illegal move for piece");
+        }
+        makeMove(PackedGame.packMove(move));
+    }
+
+    /**
+     * Makes a move given packed as by {@link PackedGame#packMove(int, int, int)}. The move is
+     * checked square by square rather than looked for among the piece's valid moves, so
+     * nothing is allocated unless it is a promotion.
+     *
+     * @param packedMove start | end &lt;&lt; 6 | promotion &lt;&lt; 12
+     * @throws InvalidMoveException if move is invalid
+     */
+    public void makeMove(int packedMove) throws InvalidMoveException {
+        if(gameOver){
+            throw new InvalidMoveException("game is over");
+        }
+        if(packedMove < 0 || packedMove >= 1 << 15){
+            throw new InvalidMoveException("Illegal move for piece");
+        }
+        int start = packedMove & 0x3F;
+        int end = (packedMove >> 6) & 0x3F;
+        int promotion = packedMove >> 12;
+        ChessPiece piece = board.getPiece(start);
         if(piece == null){
             throw new InvalidMoveException("No piece to move / at startPosition");
         }
         if(piece.getTeamColor() != teamTurn){
             throw new InvalidMoveException("piece color does not match team color");
         }
-        Collection<ChessMove> legalPossibilities = validMoves(move.getStartPosition());
-        if (legalPossibilities == null || !legalPossibilities.contains(move)){
+        if(!MoveRules.isLegal(board, start, end, promotion)){
             throw new InvalidMoveException("Illegal move for piece");
         }
 
-        moveOnBoard(board, move);
-        if (teamTurn == TeamColor.WHITE){
-            teamTurn = TeamColor.BLACK;
-        }else{
-            teamTurn = TeamColor.WHITE;
-        }
+        board.addPiece(start, null);
+        board.addPiece(end, promotion == 0 ? piece : new ChessPiece(piece.getTeamColor(), PIECE_TYPES[promotion - 1]));
+        teamTurn = MoveRules.opponent(teamTurn);
     }
 
+    /**
+     * @return whether teamColor has any move at all, found without listing them
+     */
+    public boolean hasValidMove(TeamColor teamColor) {
+        return MoveRules.hasLegalMove(board, teamColor);
+    }
 
     public void moveOnBoard(ChessBoard board, ChessMove move){
         ChessPiece piece = board.getPiece(move.getStartPosition());
@@ -137,36 +178,11 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingSpot = null;
-        for(int row = 1; row <= 8; row++){
-            for(int col = 1; col<= 8;col++){
-                ChessPosition spot = new ChessPosition(row, col);
-                ChessPiece piece = getBoard().getPiece(spot);
-                if(piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor){
-                    kingSpot = spot;
-                    break;
-                }
-            }
-        }
-        if(kingSpot == null){
+        int kingSpot = MoveRules.kingSquare(getBoard(), teamColor);
+        if(kingSpot < 0){
             throw new RuntimeException("king not found for current team");
         }
-
-        for(int row = 1; row <= 8; row++){
-            for(int col = 1; col<= 8; col++){
-                ChessPosition spot = new ChessPosition(row,col);
-                ChessPiece piece = getBoard().getPiece(spot);
-                if(piece  != null && piece.getTeamColor() != teamColor){
-                    Collection<ChessMove> moves = piece.pieceMoves(getBoard(), spot);
-                    for (ChessMove move : moves){
-                        if(move.getEndPosition().equals(kingSpot)){
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        return MoveRules.isAttacked(getBoard(), kingSpot, MoveRules.opponent(teamColor));
     }
 
     /**
@@ -176,23 +192,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if(isInCheck(teamColor)){
-            for(int row = 1; row <= 8; row++){
-                for(int col = 1; col <= 8; col++){
-                    ChessPosition spot = new ChessPosition(row, col);
-                    ChessPiece piece = getBoard().getPiece(spot);
-
-                    if(piece != null && piece.getTeamColor() == teamColor){
-                        Collection<ChessMove> validPossibilities = validMoves(spot);
-                        if(validPossibilities != null && !validPossibilities.isEmpty()){
-                            return false;
-                        }
-                    }
-                }
-            }
-            return true;
-        }
-        return false;
+        return isInCheck(teamColor) && !hasValidMove(teamColor);
     }
 
     /**
@@ -203,23 +203,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if(!isInCheck(teamColor)){
-            for(int row = 1; row <= 8; row++){
-                for(int col = 1; col <= 8; col++){
-                    ChessPosition spot = new ChessPosition(row, col);
-                    ChessPiece piece = getBoard().getPiece(spot);
-
-                    if(piece != null && piece.getTeamColor() == teamColor){
-                        Collection<ChessMove> validPossibilities = validMoves(spot);
-                        if(validPossibilities != null && !validPossibilities.isEmpty()){
-                            return false;
-                        }
-                    }
-                }
-            }
-            return true;
-        }
-        return false;
+        return !isInCheck(teamColor) && !hasValidMove(teamColor);
     }
 
 
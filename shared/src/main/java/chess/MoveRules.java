@@ -0,0 +1,222 @@
+package chess;
+
+/**
+ * Move legality worked out on square indices (0-63, as in {@link PackedGame}) without building
+ * lists of moves or copies of the board.
+ * <p>
+ * A move is checked against its piece's movement rules and then for whether it leaves the
+ * mover's king attacked. The board is never changed: the attack test reads the board as it
+ * would be after the move, so these are safe on a game other threads may be reading.
+ * The rules are the ones {@link ChessPiece#pieceMoves} follows.
+ */
+final class MoveRules {
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {-2, 1}, {-2, -1}};
+    private static final int[][] KING_STEPS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {1, -1}, {-1, -1}, {-1, 1}};
+    private static final int[][] STRAIGHT = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+    private static final int[][] DIAGONAL = {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}};
+    // promotion codes are ordinal + 1, as PackedGame packs them
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal() + 1;
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal() + 1;
+    private static final int BISHOP = ChessPiece.PieceType.BISHOP.ordinal() + 1;
+    private static final int KNIGHT = ChessPiece.PieceType.KNIGHT.ordinal() + 1;
+
+    private MoveRules() {
+    }
+
+    /**
+     * @param promotion 0 for none, otherwise the piece type's ordinal plus one
+     */
+    static boolean isLegal(ChessBoard board, int from, int to, int promotion) {
+        ChessPiece piece = board.getPiece(from);
+        return piece != null && followsRules(board, piece, from, to, promotion)
+                && keepsKingSafe(board, piece, from, to, kingSquare(board, piece.getTeamColor()));
+    }
+
+    /**
+     * @return whether the piece on from can move to to without leaving its king attacked;
+     * unlike {@link #isLegal} the movement rules are not checked
+     */
+    static boolean keepsKingSafe(ChessBoard board, int from, int to) {
+        ChessPiece piece = board.getPiece(from);
+        return keepsKingSafe(board, piece, from, to, kingSquare(board, piece.getTeamColor()));
+    }
+
+    static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color) {
+        int king = kingSquare(board, color);
+        for(int from = 0; from < 64; from++){
+            ChessPiece piece = board.getPiece(from);
+            if(piece == null || piece.getTeamColor() != color){
+                continue;
+            }
+            int lastRow = color == ChessGame.TeamColor.WHITE ? 7 : 0;
+            for(int to = 0; to < 64; to++){
+                // any promotion is as legal as any other
+                int promotion = piece.getPieceType() == ChessPiece.PieceType.PAWN && to >> 3 == lastRow ? QUEEN : 0;
+                if(followsRules(board, piece, from, to, promotion) && keepsKingSafe(board, piece, from, to, king)){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the square of color's king, or -1 if it has none
+     */
+    static int kingSquare(ChessBoard board, ChessGame.TeamColor color) {
+        for(int square = 0; square < 64; square++){
+            ChessPiece piece = board.getPiece(square);
+            if(piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == color){
+                return square;
+            }
+        }
+        return -1;
+    }
+
+    static boolean isAttacked(ChessBoard board, int square, ChessGame.TeamColor by) {
+        return isAttacked(board, square, by, -1, -1, null);
+    }
+
+    private static boolean followsRules(ChessBoard board, ChessPiece piece, int from, int to, int promotion) {
+        if(from == to){
+            return false;
+        }
+        ChessPiece target = board.getPiece(to);
+        if(target != null && target.getTeamColor() == piece.getTeamColor()){
+            return false;
+        }
+        int rows = (to >> 3) - (from >> 3);
+        int cols = (to & 7) - (from & 7);
+        if(piece.getPieceType() == ChessPiece.PieceType.PAWN){
+            return pawnFollowsRules(board, piece.getTeamColor(), from, to, rows, cols, target != null, promotion);
+        }
+        if(promotion != 0){
+            return false;
+        }
+        return switch(piece.getPieceType()){
+            case KNIGHT -> rows * rows + cols * cols == 5;
+            case KING -> Math.abs(rows) <= 1 && Math.abs(cols) <= 1;
+            case ROOK -> (rows == 0 || cols == 0) && pathClear(board, from, to, rows, cols);
+            case BISHOP -> Math.abs(rows) == Math.abs(cols) && pathClear(board, from, to, rows, cols);
+            case QUEEN -> (rows == 0 || cols == 0 || Math.abs(rows) == Math.abs(cols))
+                    && pathClear(board, from, to, rows, cols);
+            case PAWN -> false;
+        };
+    }
+
+    private static boolean pawnFollowsRules(ChessBoard board, ChessGame.TeamColor color, int from, int to, int rows,
+                                            int cols, boolean capture, int promotion) {
+        int forward = color == ChessGame.TeamColor.WHITE ? 1 : -1;
+        int startRow = color == ChessGame.TeamColor.WHITE ? 1 : 6;
+        int lastRow = color == ChessGame.TeamColor.WHITE ? 7 : 0;
+        boolean shaped;
+        if(cols == 0){
+            shaped = !capture && (rows == forward || rows == 2 * forward && from >> 3 == startRow
+                    && board.getPiece(from + 8 * forward) == null);
+        }else{
+            shaped = capture && rows == forward && Math.abs(cols) == 1;
+        }
+        if(!shaped){
+            return false;
+        }
+        if(to >> 3 == lastRow){
+            return promotion == QUEEN || promotion == ROOK || promotion == BISHOP || promotion == KNIGHT;
+        }
+        return promotion == 0;
+    }
+
+    // only called with from and to on one line
+    private static boolean pathClear(ChessBoard board, int from, int to, int rows, int cols) {
+        int step = Integer.signum(rows) * 8 + Integer.signum(cols);
+        for(int square = from + step; square != to; square += step){
+            if(board.getPiece(square) != null){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a side without a king cannot be put in check
+    private static boolean keepsKingSafe(ChessBoard board, ChessPiece piece, int from, int to, int king) {
+        if(piece.getPieceType() == ChessPiece.PieceType.KING){
+            king = to;
+        }
+        return king < 0 || !isAttacked(board, king, opponent(piece.getTeamColor()), from, to, piece);
+    }
+
+    // reads the board as if moved had gone from from to to; from and to are -1 for the board as it is
+    private static boolean isAttacked(ChessBoard board, int square, ChessGame.TeamColor by, int from, int to,
+                                      ChessPiece moved) {
+        int row = square >> 3;
+        int col = square & 7;
+        if(attackedByStep(board, row, col, KNIGHT_STEPS, by, ChessPiece.PieceType.KNIGHT, from, to, moved)
+                || attackedByStep(board, row, col, KING_STEPS, by, ChessPiece.PieceType.KING, from, to, moved)){
+            return true;
+        }
+        // a pawn attacks one row ahead of itself, so look one row behind the square from its side
+        int pawnRow = row - (by == ChessGame.TeamColor.WHITE ? 1 : -1);
+        for(int side = -1; side <= 1; side += 2){
+            if(isPiece(board, pawnRow, col + side, by, ChessPiece.PieceType.PAWN, from, to, moved)){
+                return true;
+            }
+        }
+        return attackedAlong(board, row, col, STRAIGHT, by, ChessPiece.PieceType.ROOK, from, to, moved)
+                || attackedAlong(board, row, col, DIAGONAL, by, ChessPiece.PieceType.BISHOP, from, to, moved);
+    }
+
+    private static boolean attackedByStep(ChessBoard board, int row, int col, int[][] steps, ChessGame.TeamColor by,
+                                          ChessPiece.PieceType type, int from, int to, ChessPiece moved) {
+        for(int[] step : steps){
+            if(isPiece(board, row + step[0], col + step[1], by, type, from, to, moved)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // queens count along both kinds of line
+    private static boolean attackedAlong(ChessBoard board, int row, int col, int[][] directions, ChessGame.TeamColor by,
+                                         ChessPiece.PieceType type, int from, int to, ChessPiece moved) {
+        for(int[] direction : directions){
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while(onBoard(r, c)){
+                ChessPiece piece = pieceAt(board, r * 8 + c, from, to, moved);
+                if(piece != null){
+                    if(piece.getTeamColor() == by && (piece.getPieceType() == type
+                            || piece.getPieceType() == ChessPiece.PieceType.QUEEN)){
+                        return true;
+                    }
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPiece(ChessBoard board, int row, int col, ChessGame.TeamColor color,
+                                   ChessPiece.PieceType type, int from, int to, ChessPiece moved) {
+        if(!onBoard(row, col)){
+            return false;
+        }
+        ChessPiece piece = pieceAt(board, row * 8 + col, from, to, moved);
+        return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
+    }
+
+    private static ChessPiece pieceAt(ChessBoard board, int square, int from, int to, ChessPiece moved) {
+        if(square == to){
+            return moved;
+        }
+        return square == from ? null : board.getPiece(square);
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+
+    static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,146 @@
+package chess;
+
+/**
+ * Compact binary form of a chess game, used where a game has to be stored or
+ * sent many times and a full JSON object would be wasteful.
+ * <p>
+ * A packed game is {@link #PACKED_SIZE} bytes: one header byte (whose turn it is and
+ * whether the game is over) followed by the 64 squares at four bits each. A packed move
+ * fits in 15 bits: start square, end square and promotion piece.
+ */
+public final class PackedGame {
+    public static final int PACKED_SIZE = 33;
+
+    private static final int BLACK_BIT = 0x8;
+    private static final int BLACK_TURN_FLAG = 0x1;
+    private static final int GAME_OVER_FLAG = 0x2;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    // indexed by piece code; pieces are never modified, so unpacked boards share them
+    private static final ChessPiece[] PIECES = new ChessPiece[16];
+
+    static {
+        for(ChessPiece.PieceType type : TYPES){
+            PIECES[type.ordinal() + 1] = new ChessPiece(ChessGame.TeamColor.WHITE, type);
+            PIECES[BLACK_BIT | (type.ordinal() + 1)] = new ChessPiece(ChessGame.TeamColor.BLACK, type);
+        }
+    }
+
+    private PackedGame() {
+    }
+
+    /**
+     * @return square index 0-63 for a 1-based row and column
+     */
+    public static int squareIndex(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int squareIndex(ChessPosition position) {
+        return squareIndex(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return whether position is a real square, which it has to be to be packed
+     */
+    public static boolean isOnBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    public static ChessPosition position(int square) {
+        return new ChessPosition(square / 8 + 1, square % 8 + 1);
+    }
+
+    public static byte[] pack(ChessGame game) {
+        byte[] packed = new byte[PACKED_SIZE];
+        int header = game.getTeamTurn() == ChessGame.TeamColor.BLACK ? BLACK_TURN_FLAG : 0;
+        if(game.isGameOver()){
+            header |= GAME_OVER_FLAG;
+        }
+        packed[0] = (byte) header;
+        packBoard(game.getBoard(), packed, 1);
+        return packed;
+    }
+
+    public static ChessGame unpack(byte[] packed) {
+        if(packed == null || packed.length < PACKED_SIZE){
+            throw new IllegalArgumentException("packed game must be " + PACKED_SIZE + " bytes");
+        }
+        ChessGame game = new ChessGame();
+        boolean blackToMove = (packed[0] & BLACK_TURN_FLAG) != 0;
+        game.setTeamTurn(blackToMove ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.setGameOver((packed[0] & GAME_OVER_FLAG) != 0);
+        game.setBoard(unpackBoard(packed, 1));
+        return game;
+    }
+
+    /**
+     * Writes the 64 squares as 32 bytes into dest starting at offset
+     */
+    public static void packBoard(ChessBoard board, byte[] dest, int offset) {
+        for(int square = 0; square < 64; square += 2){
+            int low = pieceCode(board.getPiece(position(square)));
+            int high = pieceCode(board.getPiece(position(square + 1)));
+            dest[offset + square / 2] = (byte) (low | (high << 4));
+        }
+    }
+
+    public static ChessBoard unpackBoard(byte[] src, int offset) {
+        ChessBoard board = new ChessBoard();
+        for(int square = 0; square < 64; square++){
+            int b = src[offset + square / 2];
+            int code = (square % 2 == 0) ? b & 0xF : (b >> 4) & 0xF;
+            if(code != 0){
+                board.addPiece(position(square), piece(code));
+            }
+        }
+        return board;
+    }
+
+    public static int pieceCode(ChessPiece piece) {
+        if(piece == null){
+            return 0;
+        }
+        int code = piece.getPieceType().ordinal() + 1;
+        return piece.getTeamColor() == ChessGame.TeamColor.BLACK ? code | BLACK_BIT : code;
+    }
+
+    /**
+     * @return the piece for a code from {@link #pieceCode}, null for 0
+     * @throws IllegalArgumentException if no piece has that code
+     */
+    public static ChessPiece piece(int code) {
+        if(code == 0){
+            return null;
+        }
+        ChessPiece piece = code > 0 && code < PIECES.length ? PIECES[code] : null;
+        if(piece == null){
+            throw new IllegalArgumentException("unknown piece " + code);
+        }
+        return piece;
+    }
+
+    /**
+     * @return the move as start | end << 6 | promotion << 12 (promotion 0 means none)
+     */
+    public static int packMove(ChessMove move) {
+        int promotion = move.getPromotionPiece() == null ? 0 : move.getPromotionPiece().ordinal() + 1;
+        return packMove(squareIndex(move.getStartPosition()), squareIndex(move.getEndPosition()), promotion);
+    }
+
+    public static int packMove(int startSquare, int endSquare, int promotion) {
+        return startSquare | (endSquare << 6) | (promotion << 12);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the promotion is not a piece type
+     */
+    public static ChessMove unpackMove(int packed) {
+        int promotion = (packed >> 12) & 0x7;
+        if(promotion > TYPES.length){
+            throw new IllegalArgumentException("unknown promotion " + promotion);
+        }
+        return new ChessMove(position(packed & 0x3F), position((packed >> 6) & 0x3F),
+                promotion == 0 ? null : TYPES[promotion - 1]);
+    }
+}
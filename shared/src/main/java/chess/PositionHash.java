@@ -0,0 +1,49 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hash of a game position: pieces, side to move and whether the game is over.
+ * <p>
+ * The key table comes from a fixed seed, so every JVM computes the same hash for the same
+ * position; client and server compare hashes to check that they agree on the board.
+ */
+public final class PositionHash {
+    private static final long SEED = 0x5eed_c4e5_5L;
+    private static final long[] PIECE_KEYS = new long[2 * 6 * 64];
+    private static final long BLACK_TO_MOVE;
+    private static final long GAME_OVER;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for(int i = 0; i < PIECE_KEYS.length; i++){
+            PIECE_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        GAME_OVER = random.nextLong();
+    }
+
+    private PositionHash() {
+    }
+
+    public static long of(ChessGame game) {
+        long hash = 0;
+        ChessBoard board = game.getBoard();
+        for(int row = 1; row <= 8; row++){
+            for(int col = 1; col <= 8; col++){
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if(piece != null){
+                    int kind = piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal();
+                    hash ^= PIECE_KEYS[kind * 64 + (row - 1) * 8 + (col - 1)];
+                }
+            }
+        }
+        if(game.getTeamTurn() == ChessGame.TeamColor.BLACK){
+            hash ^= BLACK_TO_MOVE;
+        }
+        if(game.isGameOver()){
+            hash ^= GAME_OVER;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,6 @@
+package model;
+
+import java.util.List;
+
+// creates many games at once, e.g. for tournament setup
+public record CreateGamesRequest(List<String> gameNames){}
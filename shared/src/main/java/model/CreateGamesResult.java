@@ -0,0 +1,6 @@
+package model;
+
+import java.util.List;
+
+// gameIDs in request order
+public record CreateGamesResult(List<Integer> gameIDs){}
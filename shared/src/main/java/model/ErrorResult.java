@@ -0,0 +1,3 @@
+package model;
+
+public record ErrorResult(String message){}
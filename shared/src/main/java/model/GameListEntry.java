@@ -0,0 +1,4 @@
+package model;
+
+// a game as shown in the game list, without its board
+public record GameListEntry(int gameID, String whiteUsername, String blackUsername, String gameName){}
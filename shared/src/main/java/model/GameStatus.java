@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * Where a game stands for the side to move
+ */
+public enum GameStatus {
+    ACTIVE,
+    CHECK,
+    CHECKMATE,
+    STALEMATE
+}
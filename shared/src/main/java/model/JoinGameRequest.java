@@ -0,0 +1,4 @@
+package model;
+
+// playerColor stays a string so a bad color can be told apart from a missing one
+public record JoinGameRequest(String playerColor, Integer gameID){}
@@ -0,0 +1,5 @@
+package model;
+
+import java.util.Collection;
+
+public record ListGamesResult(Collection<GameListEntry> games){}
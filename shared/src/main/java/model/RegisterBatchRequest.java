@@ -0,0 +1,6 @@
+package model;
+
+import java.util.List;
+
+// registers many users at once, e.g. for load tests
+public record RegisterBatchRequest(List<UserData> users){}
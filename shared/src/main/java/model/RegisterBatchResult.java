@@ -0,0 +1,6 @@
+package model;
+
+import java.util.List;
+
+// one auth per registered user, in request order
+public record RegisterBatchResult(List<AuthData> auths){}
@@ -0,0 +1,194 @@
+package serialization;
+
+import chess.*;
+
+/**
+ * Short text forms of the chess types.
+ * <ul>
+ *     <li>board: FEN piece placement, rank 8 first; uppercase is white, digits count empty squares</li>
+ *     <li>square: file letter and rank, e.g. "e2"</li>
+ *     <li>move: start and end square plus an optional promotion letter, e.g. "e7e8q"</li>
+ * </ul>
+ */
+public final class ChessNotation {
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final char[] LETTERS = new char[TYPES.length];
+    // one shared instance per piece; pieces are never modified
+    private static final ChessPiece[] WHITE_PIECES = new ChessPiece[TYPES.length];
+    private static final ChessPiece[] BLACK_PIECES = new ChessPiece[TYPES.length];
+
+    static {
+        for(ChessPiece.PieceType type : TYPES){
+            LETTERS[type.ordinal()] = switch(type){
+                case KING -> 'k';
+                case QUEEN -> 'q';
+                case BISHOP -> 'b';
+                case KNIGHT -> 'n';
+                case ROOK -> 'r';
+                case PAWN -> 'p';
+            };
+            WHITE_PIECES[type.ordinal()] = new ChessPiece(ChessGame.TeamColor.WHITE, type);
+            BLACK_PIECES[type.ordinal()] = new ChessPiece(ChessGame.TeamColor.BLACK, type);
+        }
+    }
+
+    private ChessNotation() {
+    }
+
+    //board
+    public static String placement(ChessBoard board) {
+        StringBuilder out = new StringBuilder(72);
+        for(int row = 8; row >= 1; row--){
+            int empty = 0;
+            for(int col = 1; col <= 8; col++){
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if(piece == null){
+                    empty++;
+                    continue;
+                }
+                if(empty > 0){
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = LETTERS[piece.getPieceType().ordinal()];
+                out.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if(empty > 0){
+                out.append((char) ('0' + empty));
+            }
+            if(row > 1){
+                out.append('/');
+            }
+        }
+        return out.toString();
+    }
+
+    public static ChessBoard board(String placement) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int col = 1;
+        for(int i = 0; i < placement.length(); i++){
+            char c = placement.charAt(i);
+            if(c == '/'){
+                if(col != 9){
+                    throw new IllegalArgumentException("short rank in board: " + placement);
+                }
+                row--;
+                col = 1;
+            }else if(c >= '1' && c <= '8'){
+                col += c - '0';
+            }else{
+                if(col > 8 || row < 1){
+                    throw new IllegalArgumentException("too many squares in board: " + placement);
+                }
+                board.addPiece(new ChessPosition(row, col), piece(c));
+                col++;
+            }
+            if(col > 9){
+                throw new IllegalArgumentException("long rank in board: " + placement);
+            }
+        }
+        if(row != 1 || col != 9){
+            throw new IllegalArgumentException("board must have 8 full ranks: " + placement);
+        }
+        return board;
+    }
+
+    private static ChessPiece piece(char c) {
+        int type = typeIndex(Character.toLowerCase(c));
+        if(type < 0){
+            throw new IllegalArgumentException("unknown piece: " + c);
+        }
+        return Character.isUpperCase(c) ? WHITE_PIECES[type] : BLACK_PIECES[type];
+    }
+
+    private static int typeIndex(char letter) {
+        for(int i = 0; i < LETTERS.length; i++){
+            if(LETTERS[i] == letter){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //square
+    public static String square(ChessPosition position) {
+        return new String(new char[]{(char) ('a' + position.getColumn() - 1), (char) ('0' + position.getRow())});
+    }
+
+    public static ChessPosition position(String square) {
+        if(square.length() != 2){
+            throw new IllegalArgumentException("bad square: " + square);
+        }
+        return position(square, 0);
+    }
+
+    /**
+     * @return the square as a 0-63 index, as in {@link PackedGame}
+     */
+    public static int squareIndex(String square) {
+        if(square.length() != 2){
+            throw new IllegalArgumentException("bad square: " + square);
+        }
+        return square(square, 0);
+    }
+
+    private static ChessPosition position(String text, int offset) {
+        int col = text.charAt(offset) - 'a' + 1;
+        int row = text.charAt(offset + 1) - '0';
+        if(col < 1 || col > 8 || row < 1 || row > 8){
+            throw new IllegalArgumentException("bad square in: " + text);
+        }
+        return new ChessPosition(row, col);
+    }
+
+    //move
+    public static String move(ChessMove move) {
+        String text = square(move.getStartPosition()) + square(move.getEndPosition());
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return promotion == null ? text : text + LETTERS[promotion.ordinal()];
+    }
+
+    /**
+     * Reads a move straight into the packed form of {@link PackedGame#packMove(int, int, int)}
+     */
+    public static int packedMove(String text) {
+        if(text.length() != 4 && text.length() != 5){
+            throw new IllegalArgumentException("bad move: " + text);
+        }
+        int promotion = 0;
+        if(text.length() == 5){
+            int type = typeIndex(text.charAt(4));
+            if(type < 0){
+                throw new IllegalArgumentException("bad promotion in: " + text);
+            }
+            promotion = type + 1;
+        }
+        return PackedGame.packMove(square(text, 0), square(text, 2), promotion);
+    }
+
+    // 0-63 as in PackedGame
+    private static int square(String text, int offset) {
+        int col = text.charAt(offset) - 'a';
+        int row = text.charAt(offset + 1) - '1';
+        if(col < 0 || col > 7 || row < 0 || row > 7){
+            throw new IllegalArgumentException("bad square in: " + text);
+        }
+        return row * 8 + col;
+    }
+
+    public static ChessMove move(String text) {
+        if(text.length() != 4 && text.length() != 5){
+            throw new IllegalArgumentException("bad move: " + text);
+        }
+        ChessPiece.PieceType promotion = null;
+        if(text.length() == 5){
+            int type = typeIndex(text.charAt(4));
+            if(type < 0){
+                throw new IllegalArgumentException("bad promotion in: " + text);
+            }
+            promotion = TYPES[type];
+        }
+        return new ChessMove(position(text, 0), position(text, 2), promotion);
+    }
+}
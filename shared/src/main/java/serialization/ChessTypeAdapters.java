@@ -0,0 +1,427 @@
+package serialization;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import model.GameData;
+import model.GameListEntry;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+
+import java.io.IOException;
+
+/**
+ * Streaming adapters for the chess types, used by {@link StreamingCodec}.
+ * The compact text forms come from {@link ChessNotation}; when reading, an object
+ * where a string was expected is handed to Gson's reflective adapter instead.
+ */
+class ChessTypeAdapters implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if(raw == ChessPosition.class){
+            return (TypeAdapter<T>) new PositionAdapter(gson.getDelegateAdapter(this, TypeToken.get(ChessPosition.class)));
+        }
+        if(raw == ChessMove.class){
+            return (TypeAdapter<T>) new MoveAdapter(gson.getDelegateAdapter(this, TypeToken.get(ChessMove.class)));
+        }
+        if(raw == ChessBoard.class){
+            return (TypeAdapter<T>) new BoardAdapter(gson.getDelegateAdapter(this, TypeToken.get(ChessBoard.class)));
+        }
+        if(raw == ChessGame.class){
+            return (TypeAdapter<T>) new GameAdapter(gson.getAdapter(ChessBoard.class));
+        }
+        if(raw == GameData.class){
+            return (TypeAdapter<T>) new GameDataAdapter(gson.getAdapter(ChessGame.class));
+        }
+        if(raw == GameListEntry.class){
+            return (TypeAdapter<T>) new GameListEntryAdapter();
+        }
+        if(raw == UserGameCommand.class || raw == MakeMoveCommand.class){
+            return (TypeAdapter<T>) new CommandAdapter(gson.getAdapter(ChessMove.class));
+        }
+        return null;
+    }
+
+    // reads a string with parse, or anything else with the reflective fallback
+    private abstract static class TextAdapter<T> extends TypeAdapter<T> {
+        private final TypeAdapter<T> fallback;
+
+        TextAdapter(TypeAdapter<T> fallback) {
+            this.fallback = fallback;
+        }
+
+        abstract String format(T value);
+
+        abstract T parse(String text);
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if(value == null){
+                out.nullValue();
+            }else{
+                out.value(format(value));
+            }
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            JsonToken token = in.peek();
+            if(token == JsonToken.NULL){
+                in.nextNull();
+                return null;
+            }
+            if(token != JsonToken.STRING){
+                return fallback.read(in);
+            }
+            String text = in.nextString();
+            try{
+                return parse(text);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage() + " at " + in.getPath(), ex);
+            }
+        }
+    }
+
+    private static class PositionAdapter extends TextAdapter<ChessPosition> {
+        PositionAdapter(TypeAdapter<ChessPosition> fallback) {
+            super(fallback);
+        }
+
+        @Override
+        String format(ChessPosition value) {
+            return ChessNotation.square(value);
+        }
+
+        @Override
+        ChessPosition parse(String text) {
+            return ChessNotation.position(text);
+        }
+    }
+
+    private static class MoveAdapter extends TextAdapter<ChessMove> {
+        MoveAdapter(TypeAdapter<ChessMove> fallback) {
+            super(fallback);
+        }
+
+        @Override
+        String format(ChessMove value) {
+            return ChessNotation.move(value);
+        }
+
+        @Override
+        ChessMove parse(String text) {
+            return ChessNotation.move(text);
+        }
+    }
+
+    private static class BoardAdapter extends TextAdapter<ChessBoard> {
+        BoardAdapter(TypeAdapter<ChessBoard> fallback) {
+            super(fallback);
+        }
+
+        @Override
+        String format(ChessBoard value) {
+            return ChessNotation.placement(value);
+        }
+
+        @Override
+        ChessBoard parse(String text) {
+            return ChessNotation.board(text);
+        }
+    }
+
+    // {"teamTurn":"WHITE","board":"rnbqkbnr/...","gameOver":false}
+    private static class GameAdapter extends TypeAdapter<ChessGame> {
+        private final TypeAdapter<ChessBoard> boards;
+
+        GameAdapter(TypeAdapter<ChessBoard> boards) {
+            this.boards = boards;
+        }
+
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            if(game == null){
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if(game.getTeamTurn() != null){
+                out.name("teamTurn").value(game.getTeamTurn().name());
+            }
+            if(game.getBoard() != null){
+                out.name("board");
+                boards.write(out, game.getBoard());
+            }
+            out.name("gameOver").value(game.isGameOver());
+            out.endObject();
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            if(in.peek() == JsonToken.NULL){
+                in.nextNull();
+                return null;
+            }
+            ChessGame game = new ChessGame();
+            in.beginObject();
+            while(in.hasNext()){
+                switch(in.nextName()){
+                    case "teamTurn" -> game.setTeamTurn(readEnum(in, ChessGame.TeamColor.class));
+                    case "board" -> game.setBoard(boards.read(in));
+                    case "gameOver" -> game.setGameOver(in.nextBoolean());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return game;
+        }
+    }
+
+    private static class GameDataAdapter extends TypeAdapter<GameData> {
+        private final TypeAdapter<ChessGame> games;
+
+        GameDataAdapter(TypeAdapter<ChessGame> games) {
+            this.games = games;
+        }
+
+        @Override
+        public void write(JsonWriter out, GameData data) throws IOException {
+            if(data == null){
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("gameID").value(data.gameID());
+            writeString(out, "whiteUsername", data.whiteUsername());
+            writeString(out, "blackUsername", data.blackUsername());
+            writeString(out, "gameName", data.gameName());
+            if(data.chessGame() != null){
+                out.name("chessGame");
+                games.write(out, data.chessGame());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public GameData read(JsonReader in) throws IOException {
+            if(in.peek() == JsonToken.NULL){
+                in.nextNull();
+                return null;
+            }
+            int gameID = 0;
+            String white = null;
+            String black = null;
+            String name = null;
+            ChessGame game = null;
+            in.beginObject();
+            while(in.hasNext()){
+                switch(in.nextName()){
+                    case "gameID" -> gameID = in.nextInt();
+                    case "whiteUsername" -> white = readString(in);
+                    case "blackUsername" -> black = readString(in);
+                    case "gameName" -> name = readString(in);
+                    case "chessGame" -> game = games.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new GameData(gameID, white, black, name, game);
+        }
+    }
+
+    private static class GameListEntryAdapter extends TypeAdapter<GameListEntry> {
+        @Override
+        public void write(JsonWriter out, GameListEntry entry) throws IOException {
+            if(entry == null){
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("gameID").value(entry.gameID());
+            writeString(out, "whiteUsername", entry.whiteUsername());
+            writeString(out, "blackUsername", entry.blackUsername());
+            writeString(out, "gameName", entry.gameName());
+            out.endObject();
+        }
+
+        @Override
+        public GameListEntry read(JsonReader in) throws IOException {
+            if(in.peek() == JsonToken.NULL){
+                in.nextNull();
+                return null;
+            }
+            int gameID = 0;
+            String white = null;
+            String black = null;
+            String name = null;
+            in.beginObject();
+            while(in.hasNext()){
+                switch(in.nextName()){
+                    case "gameID" -> gameID = in.nextInt();
+                    case "whiteUsername" -> white = readString(in);
+                    case "blackUsername" -> black = readString(in);
+                    case "gameName" -> name = readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new GameListEntry(gameID, white, black, name);
+        }
+    }
+
+    // reads any command in one pass, as a MakeMoveCommand when it is a move
+    private static class CommandAdapter extends TypeAdapter<UserGameCommand> {
+        private final TypeAdapter<ChessMove> moves;
+
+        CommandAdapter(TypeAdapter<ChessMove> moves) {
+            this.moves = moves;
+        }
+
+        @Override
+        public void write(JsonWriter out, UserGameCommand command) throws IOException {
+            if(command == null){
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if(command.getCommandType() != null){
+                out.name("commandType").value(command.getCommandType().name());
+            }
+            writeString(out, "authToken", command.getAuthToken());
+            if(command.getGameID() != null){
+                out.name("gameID").value(command.getGameID());
+            }
+            if(command instanceof MakeMoveCommand makeMove && makeMove.getMove() != null){
+                out.name("move");
+                moves.write(out, makeMove.getMove());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public UserGameCommand read(JsonReader in) throws IOException {
+            if(in.peek() == JsonToken.NULL){
+                in.nextNull();
+                return null;
+            }
+            UserGameCommand.CommandType type = null;
+            String authToken = null;
+            Integer gameID = null;
+            int move = -1;
+            in.beginObject();
+            while(in.hasNext()){
+                switch(in.nextName()){
+                    case "commandType" -> type = readEnum(in, UserGameCommand.CommandType.class);
+                    case "authToken" -> authToken = readString(in);
+                    case "gameID" -> {
+                        if(in.peek() == JsonToken.NULL){
+                            in.nextNull();
+                        }else{
+                            gameID = in.nextInt();
+                        }
+                    }
+                    case "move" -> move = readPackedMove(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if(type == UserGameCommand.CommandType.MAKE_MOVE){
+                return new MakeMoveCommand(authToken, gameID, move);
+            }
+            return new UserGameCommand(type, authToken, gameID);
+        }
+    }
+
+    // a move in either its text or its object form, read straight into squares; -1 for none
+    private static int readPackedMove(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if(token == JsonToken.NULL){
+            in.nextNull();
+            return -1;
+        }
+        try{
+            if(token == JsonToken.STRING){
+                return ChessNotation.packedMove(in.nextString());
+            }
+            int start = -1;
+            int end = -1;
+            int promotion = 0;
+            in.beginObject();
+            while(in.hasNext()){
+                switch(in.nextName()){
+                    case "start" -> start = readSquare(in);
+                    case "end" -> end = readSquare(in);
+                    case "promotion" -> {
+                        ChessPiece.PieceType type = readEnum(in, ChessPiece.PieceType.class);
+                        promotion = type == null ? 0 : type.ordinal() + 1;
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if(start < 0 || end < 0){
+                throw new IllegalArgumentException("move needs a start and an end");
+            }
+            return PackedGame.packMove(start, end, promotion);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage() + " at " + in.getPath(), ex);
+        }
+    }
+
+    // "e2" or {"row":2,"col":5}
+    private static int readSquare(JsonReader in) throws IOException {
+        if(in.peek() == JsonToken.STRING){
+            return ChessNotation.squareIndex(in.nextString());
+        }
+        int row = 0;
+        int col = 0;
+        in.beginObject();
+        while(in.hasNext()){
+            switch(in.nextName()){
+                case "row" -> row = in.nextInt();
+                case "col" -> col = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if(row < 1 || row > 8 || col < 1 || col > 8){
+            throw new IllegalArgumentException("bad square row " + row + " col " + col);
+        }
+        return PackedGame.squareIndex(row, col);
+    }
+
+    // nulls are left out, as Gson does by default
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if(value != null){
+            out.name(name).value(value);
+        }
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if(in.peek() == JsonToken.NULL){
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        String name = readString(in);
+        if(name == null){
+            return null;
+        }
+        try{
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("unknown " + type.getSimpleName() + " " + name + " at " + in.getPath(), ex);
+        }
+    }
+}
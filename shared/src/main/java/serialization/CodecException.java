@@ -0,0 +1,14 @@
+package serialization;
+
+/**
+ * Indicates input that could not be read as JSON (or a binary frame) of the expected type
+ */
+public class CodecException extends RuntimeException {
+    public CodecException(String message) {
+        super(message);
+    }
+
+    public CodecException(String message, Throwable ex) {
+        super(message, ex);
+    }
+}
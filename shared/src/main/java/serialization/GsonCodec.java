@@ -0,0 +1,44 @@
+package serialization;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.Reader;
+
+/**
+ * Plain Gson: every type is serialized by reflection over its fields
+ */
+public class GsonCodec implements JsonCodec {
+    private final Gson gson;
+
+    public GsonCodec() {
+        this(new Gson());
+    }
+
+    protected GsonCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public String toJson(Object value) {
+        return gson.toJson(value);
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> type) {
+        try{
+            return gson.fromJson(json, type);
+        } catch (JsonParseException | IllegalArgumentException ex) {
+            throw new CodecException("malformed " + type.getSimpleName(), ex);
+        }
+    }
+
+    @Override
+    public <T> T fromJson(Reader json, Class<T> type) {
+        try{
+            return gson.fromJson(json, type);
+        } catch (JsonParseException | IllegalArgumentException ex) {
+            throw new CodecException("malformed " + type.getSimpleName(), ex);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package serialization;
+
+import java.io.Reader;
+
+/**
+ * Turns objects into JSON and back. Client and server both go through a codec
+ * so the wire format can change in one place.
+ */
+public interface JsonCodec {
+
+    String toJson(Object value);
+
+    /**
+     * @return the parsed value, or null for empty input
+     * @throws CodecException if json is not valid for type
+     */
+    <T> T fromJson(String json, Class<T> type);
+
+    <T> T fromJson(Reader json, Class<T> type);
+
+    /**
+     * @param name "streaming" for the hand-written chess serializers, "gson" for plain reflection
+     */
+    static JsonCodec named(String name) {
+        return switch(name.trim().toLowerCase()){
+            case "streaming" -> new StreamingCodec();
+            case "gson" -> new GsonCodec();
+            default -> throw new IllegalArgumentException("unknown json codec: " + name);
+        };
+    }
+}
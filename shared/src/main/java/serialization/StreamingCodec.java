@@ -0,0 +1,21 @@
+package serialization;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Codec with hand-written streaming serializers for the chess types.
+ * <p>
+ * ChessGame, ChessBoard, ChessMove, ChessPosition, GameData, GameListEntry and the
+ * websocket commands are written and read field by field with no reflection. The board
+ * goes out as a FEN-style placement string ("rnbqkbnr/pppppppp/8/...") instead of an 8x8
+ * array of piece objects and nulls, moves as "e2e4" and squares as "e2" (see
+ * {@link ChessNotation}).
+ * Everything else falls back to Gson reflection, and the old object forms of the chess
+ * types are still accepted when reading.
+ */
+public class StreamingCodec extends GsonCodec {
+
+    public StreamingCodec() {
+        super(new GsonBuilder().registerTypeAdapterFactory(new ChessTypeAdapters()).create());
+    }
+}
@@ -0,0 +1,214 @@
+package websocket;
+
+import chess.*;
+import model.GameStatus;
+import serialization.CodecException;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary frames for gameplay, the alternative to JSON for clients that ask for it.
+ * <p>
+ * Every frame starts with one byte: the command type or server message type ordinal.
+ * <ul>
+ *     <li>IDs are unsigned varints, stored plus one so that 0 means null</li>
+ *     <li>strings are a varint length (plus one, 0 for null) then UTF-8</li>
+ *     <li>a move is two bytes holding {@link PackedGame#packMove}, all ones for none</li>
+ *     <li>a game is {@link PackedGame#pack}, or a single byte with bit 4 set for none</li>
+ * </ul>
+ * A command is type, gameID, authToken and, for MAKE_MOVE, the move. LOAD_GAME is type then
+ * game, ERROR and NOTIFICATION are type then text, and MOVE_UPDATE is type, move, the 8 byte
+ * position hash and a status byte.
+ */
+public final class BinaryProtocol {
+    private static final int NO_MOVE = 0xFFFF;
+    // a header bit PackedGame leaves unused
+    private static final int NO_GAME = 4;
+    private static final int PROMOTIONS = ChessPiece.PieceType.values().length;
+
+    private BinaryProtocol() {
+    }
+
+    //commands
+    public static byte[] encode(UserGameCommand command) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        out.write(command.getCommandType().ordinal());
+        writeId(out, command.getGameID());
+        writeString(out, command.getAuthToken());
+        if(command instanceof MakeMoveCommand makeMove){
+            writePackedMove(out, makeMove.getPackedMove());
+        }
+        return out.toByteArray();
+    }
+
+    public static UserGameCommand decodeCommand(ByteBuffer in) {
+        try{
+            UserGameCommand.CommandType type = tag(UserGameCommand.CommandType.values(), in.get());
+            Integer gameID = readId(in);
+            String authToken = readString(in);
+            if(type == UserGameCommand.CommandType.MAKE_MOVE){
+                // left packed; the server checks it without ever building a ChessMove
+                return new MakeMoveCommand(authToken, gameID, readPackedMove(in));
+            }
+            return new UserGameCommand(type, authToken, gameID);
+        } catch (BufferUnderflowException ex) {
+            throw new CodecException("command frame is truncated", ex);
+        }
+    }
+
+    //messages
+    public static byte[] encode(ServerMessage message) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(40);
+        out.write(message.getServerMessageType().ordinal());
+        switch(message){
+            case LoadGameMessage load -> writeGame(out, load.getGame());
+            case ErrorMessage error -> writeString(out, error.getErrorMessage());
+            case NotificationMessage notification -> writeString(out, notification.getMessage());
+            case MoveUpdateMessage update -> {
+                writeMove(out, update.getMove());
+                long hash = update.getPositionHash();
+                for(int shift = 56; shift >= 0; shift -= 8){
+                    out.write((int) (hash >>> shift));
+                }
+                out.write(update.getStatus().ordinal());
+            }
+            default -> throw new CodecException("no binary form for " + message.getClass().getSimpleName());
+        }
+        return out.toByteArray();
+    }
+
+    public static ServerMessage decodeMessage(ByteBuffer in) {
+        try{
+            ServerMessage.ServerMessageType type = tag(ServerMessage.ServerMessageType.values(), in.get());
+            return switch(type){
+                case LOAD_GAME -> new LoadGameMessage(readGame(in));
+                case ERROR -> new ErrorMessage(readString(in));
+                case NOTIFICATION -> new NotificationMessage(readString(in));
+                case MOVE_UPDATE -> new MoveUpdateMessage(readMove(in), in.getLong(),
+                        tag(GameStatus.values(), in.get()));
+            };
+        } catch (BufferUnderflowException ex) {
+            throw new CodecException("message frame is truncated", ex);
+        }
+    }
+
+    //fields
+    private static <E> E tag(E[] values, byte tag) {
+        int index = tag & 0xFF;
+        if(index >= values.length){
+            throw new CodecException("unknown tag " + index);
+        }
+        return values[index];
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while((value & ~0x7FL) != 0){
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7){
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if(b >= 0){
+                return value;
+            }
+        }
+        throw new CodecException("varint is too long");
+    }
+
+    private static void writeId(ByteArrayOutputStream out, Integer id) {
+        writeVarint(out, id == null ? 0 : Integer.toUnsignedLong(id) + 1);
+    }
+
+    private static Integer readId(ByteBuffer in) {
+        long value = readVarint(in);
+        return value == 0 ? null : (int) (value - 1);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if(value == null){
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarint(in);
+        if(length == 0){
+            return null;
+        }
+        if(length - 1 > in.remaining()){
+            throw new CodecException("string runs past the end of the frame");
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeMove(ByteArrayOutputStream out, ChessMove move) {
+        writePackedMove(out, move == null ? -1 : PackedGame.packMove(move));
+    }
+
+    private static void writePackedMove(ByteArrayOutputStream out, int packed) {
+        if(packed < 0){
+            packed = NO_MOVE;
+        }
+        out.write(packed >>> 8);
+        out.write(packed);
+    }
+
+    private static ChessMove readMove(ByteBuffer in) {
+        int packed = readPackedMove(in);
+        return packed < 0 ? null : PackedGame.unpackMove(packed);
+    }
+
+    // -1 for no move
+    private static int readPackedMove(ByteBuffer in) {
+        int packed = in.getShort() & 0xFFFF;
+        if(packed == NO_MOVE){
+            return -1;
+        }
+        int promotion = packed >>> 12;
+        if(promotion > PROMOTIONS){
+            throw new CodecException("unknown promotion " + promotion);
+        }
+        return packed;
+    }
+
+    private static void writeGame(ByteArrayOutputStream out, ChessGame game) {
+        if(game == null){
+            out.write(NO_GAME);
+            return;
+        }
+        out.writeBytes(PackedGame.pack(game));
+    }
+
+    private static ChessGame readGame(ByteBuffer in) {
+        byte flags = in.get();
+        if((flags & NO_GAME) != 0){
+            return null;
+        }
+        byte[] packed = new byte[PackedGame.PACKED_SIZE];
+        packed[0] = flags;
+        in.get(packed, 1, packed.length - 1);
+        try{
+            return PackedGame.unpack(packed);
+        } catch (IllegalArgumentException ex) {
+            throw new CodecException(ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package websocket;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import chess.PositionHash;
+import model.GameStatus;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveUpdateMessage;
+
+/**
+ * A client's copy of the game it is watching, kept current from LOAD_GAME and MOVE_UPDATE.
+ * <p>
+ * A move update is applied to the local board and the result checked against the server's
+ * position hash. When there is no board yet, the move does not apply or the hashes differ,
+ * the mirror marks itself stale and the client should send CONNECT again, which answers
+ * with a full LOAD_GAME.
+ */
+public class GameMirror {
+    private ChessGame game;
+    private boolean stale = true;
+
+    public void load(LoadGameMessage message) {
+        game = message.getGame();
+        stale = game == null;
+    }
+
+    /**
+     * @return false if the mirror is now stale and needs a full game
+     */
+    public boolean apply(MoveUpdateMessage update) {
+        if(stale){
+            return false;
+        }
+        ChessGame next = copyOf(game);
+        try{
+            next.makeMove(update.getMove());
+        } catch (InvalidMoveException | RuntimeException ex) {
+            stale = true;
+            return false;
+        }
+        GameStatus status = update.getStatus();
+        next.setGameOver(status == GameStatus.CHECKMATE || status == GameStatus.STALEMATE);
+        if(PositionHash.of(next) != update.getPositionHash()){
+            stale = true;
+            return false;
+        }
+        game = next;
+        return true;
+    }
+
+    /**
+     * @return the current game, or null until the first LOAD_GAME
+     */
+    public ChessGame game() {
+        return game;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    private static ChessGame copyOf(ChessGame game) {
+        ChessGame copy = new ChessGame();
+        copy.setBoard(game.getBoard().deepCopy());
+        copy.setTeamTurn(game.getTeamTurn());
+        copy.setGameOver(game.isGameOver());
+        return copy;
+    }
+}
@@ -0,0 +1,66 @@
+package websocket.commands;
+
+import chess.ChessMove;
+import chess.PackedGame;
+
+import java.util.Objects;
+
+public class MakeMoveCommand extends UserGameCommand {
+    private ChessMove move;
+    // the move as PackedGame packs it, plus one so the zero a reflective decoder leaves means none
+    private final transient int packedMove;
+
+    public MakeMoveCommand(String authToken, Integer gameID, ChessMove move) {
+        super(CommandType.MAKE_MOVE, authToken, gameID);
+        this.move = move;
+        this.packedMove = 0;
+    }
+
+    /**
+     * For decoders that read the move straight into squares; the ChessMove is only built if asked for
+     *
+     * @param packedMove as {@link PackedGame#packMove(int, int, int)} packs it, or -1 for no move
+     */
+    public MakeMoveCommand(String authToken, Integer gameID, int packedMove) {
+        super(CommandType.MAKE_MOVE, authToken, gameID);
+        this.packedMove = packedMove + 1;
+    }
+
+    public ChessMove getMove() {
+        if(move == null && packedMove != 0){
+            move = PackedGame.unpackMove(packedMove - 1);
+        }
+        return move;
+    }
+
+    /**
+     * @return the move packed by {@link PackedGame#packMove(int, int, int)}, or -1 if there is none
+     * or it is not on the board
+     */
+    public int getPackedMove() {
+        if(packedMove != 0){
+            return packedMove - 1;
+        }
+        if(move == null || !PackedGame.isOnBoard(move.getStartPosition())
+                || !PackedGame.isOnBoard(move.getEndPosition())){
+            return -1;
+        }
+        return PackedGame.packMove(move);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MakeMoveCommand that)) {
+            return false;
+        }
+        return super.equals(o) && Objects.equals(getMove(), that.getMove());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), getMove());
+    }
+}
@@ -0,0 +1,35 @@
+package websocket.messages;
+
+import chess.ChessGame;
+
+import java.util.Objects;
+
+// the whole game; clients redraw the board from it
+public class LoadGameMessage extends ServerMessage {
+    private final ChessGame game;
+
+    public LoadGameMessage(ChessGame game) {
+        super(ServerMessageType.LOAD_GAME);
+        this.game = game;
+    }
+
+    public ChessGame getGame() {
+        return game;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LoadGameMessage that)) {
+            return false;
+        }
+        return super.equals(o) && Objects.equals(game, that.game);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), game);
+    }
+}
@@ -0,0 +1,54 @@
+package websocket.messages;
+
+import chess.ChessMove;
+import model.GameStatus;
+
+import java.util.Objects;
+
+/**
+ * Just the move that was made, for clients that already have the board.
+ * <p>
+ * positionHash is the {@link chess.PositionHash} of the game after the move; a client whose
+ * own hash differs has fallen out of step and should ask for the full game again.
+ */
+public class MoveUpdateMessage extends ServerMessage {
+    private final ChessMove move;
+    private final long positionHash;
+    private final GameStatus status;
+
+    public MoveUpdateMessage(ChessMove move, long positionHash, GameStatus status) {
+        super(ServerMessageType.MOVE_UPDATE);
+        this.move = move;
+        this.positionHash = positionHash;
+        this.status = status;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MoveUpdateMessage that)) {
+            return false;
+        }
+        return super.equals(o) && positionHash == that.positionHash && Objects.equals(move, that.move)
+                && status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), move, positionHash, status);
+    }
+}
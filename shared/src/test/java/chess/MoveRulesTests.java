@@ -0,0 +1,114 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+import serialization.ChessNotation;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class MoveRulesTests {
+
+    @Test
+    public void packedMovesMatchListedMoves() throws Exception {
+        Random random = new Random(7);
+        for(int game = 0; game < 20; game++){
+            ChessGame chessGame = new ChessGame();
+            for(int ply = 0; ply < 80 && !chessGame.isGameOver(); ply++){
+                ChessGame.TeamColor turn = chessGame.getTeamTurn();
+                List<Integer> legal = List.copyOf(listedMoves(chessGame));
+                Assertions.assertEquals(new HashSet<>(legal), acceptedMoves(chessGame), "ply " + ply);
+                Assertions.assertEquals(!legal.isEmpty(), chessGame.hasValidMove(turn));
+                if(legal.isEmpty()){
+                    break;
+                }
+                chessGame.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+    }
+
+    @Test
+    public void promotionMustBeNamed() throws Exception {
+        ChessGame game = new ChessGame();
+        game.setBoard(ChessNotation.board("4k3/P7/8/8/8/8/8/4K3"));
+        int a7 = PackedGame.squareIndex(7, 1);
+        int a8 = PackedGame.squareIndex(8, 1);
+        Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(PackedGame.packMove(a7, a8, 0)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(PackedGame.packMove(a7, a8, ChessPiece.PieceType.KING.ordinal() + 1)));
+        game.makeMove(PackedGame.packMove(a7, a8, ChessPiece.PieceType.KNIGHT.ordinal() + 1));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                game.getBoard().getPiece(new ChessPosition(8, 1)));
+    }
+
+    @Test
+    public void offBoardMoveRejected() {
+        ChessGame game = new ChessGame();
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(9, 1), null)));
+        Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(-1));
+    }
+
+    // what validMoves used to do: list the piece's moves and try each on a copied board
+    private static Set<Integer> listedMoves(ChessGame game) {
+        Set<Integer> moves = new HashSet<>();
+        ChessBoard board = game.getBoard();
+        for(int square = 0; square < 64; square++){
+            ChessPosition position = PackedGame.position(square);
+            ChessPiece piece = board.getPiece(position);
+            if(piece == null || piece.getTeamColor() != game.getTeamTurn()){
+                continue;
+            }
+            for(ChessMove move : piece.pieceMoves(board, position)){
+                ChessBoard copy = board.deepCopy();
+                game.moveOnBoard(copy, move);
+                if(!attacked(copy, piece.getTeamColor())){
+                    moves.add(PackedGame.packMove(move));
+                }
+            }
+        }
+        return moves;
+    }
+
+    private static boolean attacked(ChessBoard board, ChessGame.TeamColor color) {
+        ChessPosition king = null;
+        for(int square = 0; square < 64; square++){
+            ChessPiece piece = board.getPiece(PackedGame.position(square));
+            if(piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == color){
+                king = PackedGame.position(square);
+            }
+        }
+        for(int square = 0; square < 64; square++){
+            ChessPosition position = PackedGame.position(square);
+            ChessPiece piece = board.getPiece(position);
+            if(piece != null && piece.getTeamColor() != color){
+                for(ChessMove move : piece.pieceMoves(board, position)){
+                    if(move.getEndPosition().equals(king)){
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // every packed move the square by square check accepts
+    private static Set<Integer> acceptedMoves(ChessGame game) {
+        Set<Integer> moves = new HashSet<>();
+        for(int start = 0; start < 64; start++){
+            ChessPiece piece = game.getBoard().getPiece(start);
+            if(piece == null || piece.getTeamColor() != game.getTeamTurn()){
+                continue;
+            }
+            for(int end = 0; end < 64; end++){
+                for(int promotion = 0; promotion < 8; promotion++){
+                    if(MoveRules.isLegal(game.getBoard(), start, end, promotion)){
+                        moves.add(PackedGame.packMove(start, end, promotion));
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,92 @@
+package serialization;
+
+import chess.*;
+import com.google.gson.Gson;
+import model.GameData;
+import model.GameListEntry;
+import model.ListGamesResult;
+import org.junit.jupiter.api.*;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+
+import java.util.List;
+
+public class StreamingCodecTests {
+    private final JsonCodec codec = new StreamingCodec();
+
+    @Test
+    public void startingBoardIsFenPlacement() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", ChessNotation.placement(board));
+        Assertions.assertEquals(board, ChessNotation.board(ChessNotation.placement(board)));
+    }
+
+    @Test
+    public void gameRoundTrip() throws Exception {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        GameData data = new GameData(7, "white", null, "round trip", game);
+
+        String json = codec.toJson(data);
+        Assertions.assertEquals("{\"gameID\":7,\"whiteUsername\":\"white\",\"gameName\":\"round trip\","
+                + "\"chessGame\":{\"teamTurn\":\"BLACK\",\"board\":\"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR\","
+                + "\"gameOver\":false}}", json);
+        Assertions.assertEquals(data, codec.fromJson(json, GameData.class));
+    }
+
+    @Test
+    public void moveAsText() {
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals("\"a7a8q\"", codec.toJson(promotion));
+        Assertions.assertEquals(promotion, codec.fromJson("\"a7a8q\"", ChessMove.class));
+    }
+
+    @Test
+    public void readsReflectionFormat() {
+        // what plain Gson wrote before the streaming serializers existed
+        ChessGame game = new ChessGame();
+        String legacy = new Gson().toJson(new GameData(3, null, "black", "old", game));
+        Assertions.assertEquals(new GameData(3, null, "black", "old", game), codec.fromJson(legacy, GameData.class));
+
+        ChessMove move = new ChessMove(new ChessPosition(2, 2), new ChessPosition(3, 2), null);
+        Assertions.assertEquals(move, codec.fromJson(new Gson().toJson(move), ChessMove.class));
+    }
+
+    @Test
+    public void listFallsBackToReflectionAroundEntries() {
+        ListGamesResult list = new ListGamesResult(List.of(new GameListEntry(1, "a", null, "g")));
+        Assertions.assertEquals("{\"games\":[{\"gameID\":1,\"whiteUsername\":\"a\",\"gameName\":\"g\"}]}", codec.toJson(list));
+    }
+
+    @Test
+    public void moveCommandReadIntoSquares() {
+        int packed = PackedGame.packMove(PackedGame.squareIndex(7, 1), PackedGame.squareIndex(8, 1),
+                ChessPiece.PieceType.QUEEN.ordinal() + 1);
+        MakeMoveCommand command = new MakeMoveCommand("token", 4, new ChessMove(new ChessPosition(7, 1),
+                new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN));
+
+        MakeMoveCommand text = (MakeMoveCommand) codec.fromJson(codec.toJson(command), UserGameCommand.class);
+        MakeMoveCommand legacy = (MakeMoveCommand) codec.fromJson(new Gson().toJson(command), UserGameCommand.class);
+        Assertions.assertEquals(packed, text.getPackedMove());
+        Assertions.assertEquals(packed, legacy.getPackedMove());
+        Assertions.assertEquals(command, legacy);
+
+        Assertions.assertThrows(CodecException.class, () -> codec.fromJson(
+                "{\"commandType\":\"MAKE_MOVE\",\"move\":{\"start\":{\"row\":9,\"col\":1},\"end\":\"a8\"}}",
+                UserGameCommand.class));
+    }
+
+    @Test
+    public void badBoardRejected() {
+        Assertions.assertThrows(CodecException.class,
+                () -> codec.fromJson("{\"board\":\"rnbqkbnr/ppp\"}", ChessGame.class));
+        Assertions.assertThrows(CodecException.class,
+                () -> codec.fromJson("{\"board\":\"xnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR\"}", ChessGame.class));
+    }
+
+    @Test
+    public void emptyInputIsNull() {
+        Assertions.assertNull(codec.fromJson("", GameData.class));
+    }
+}
@@ -0,0 +1,86 @@
+package websocket;
+
+import chess.*;
+import model.GameStatus;
+import org.junit.jupiter.api.*;
+import serialization.CodecException;
+import serialization.JsonCodec;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class BinaryProtocolTests {
+    private static final String TOKEN = "q8JXb1nK2m4Zs0PcYw7LtA";
+
+    @Test
+    public void commandsRoundTrip() {
+        UserGameCommand connect = new UserGameCommand(UserGameCommand.CommandType.CONNECT, TOKEN, 300);
+        Assertions.assertEquals(connect, decodeCommand(BinaryProtocol.encode(connect)));
+
+        MakeMoveCommand move = new MakeMoveCommand(TOKEN, 70000, new ChessMove(new ChessPosition(7, 1),
+                new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN));
+        UserGameCommand decoded = decodeCommand(BinaryProtocol.encode(move));
+        Assertions.assertInstanceOf(MakeMoveCommand.class, decoded);
+        Assertions.assertEquals(move, decoded);
+
+        UserGameCommand empty = new UserGameCommand(UserGameCommand.CommandType.LEAVE, null, null);
+        Assertions.assertEquals(empty, decodeCommand(BinaryProtocol.encode(empty)));
+    }
+
+    @Test
+    public void messagesRoundTrip() throws Exception {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.setGameOver(true);
+        ServerMessage[] messages = {
+                new LoadGameMessage(game),
+                new ErrorMessage("Error: not your turn"),
+                new NotificationMessage("sam moved e2 to e4 ♟"),
+                new MoveUpdateMessage(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null),
+                        -1234567890123L, GameStatus.CHECKMATE)
+        };
+        for(ServerMessage message : messages){
+            Assertions.assertEquals(message, BinaryProtocol.decodeMessage(ByteBuffer.wrap(BinaryProtocol.encode(message))));
+        }
+    }
+
+    @Test
+    public void framesAreSmallerThanJson() throws Exception {
+        JsonCodec json = JsonCodec.named("streaming");
+        ChessGame game = new ChessGame();
+        LoadGameMessage load = new LoadGameMessage(game);
+        Assertions.assertEquals(34, BinaryProtocol.encode(load).length);
+        Assertions.assertTrue(BinaryProtocol.encode(load).length * 2 < json.toJson(load).getBytes(StandardCharsets.UTF_8).length);
+
+        MakeMoveCommand move = new MakeMoveCommand(TOKEN, 12, new ChessMove(new ChessPosition(2, 5),
+                new ChessPosition(4, 5), null));
+        Assertions.assertEquals(1 + 1 + 23 + 2, BinaryProtocol.encode(move).length);
+    }
+
+    @Test
+    public void truncatedFrameRejected() {
+        byte[] frame = BinaryProtocol.encode(new NotificationMessage("hello"));
+        ByteBuffer truncated = ByteBuffer.wrap(frame, 0, frame.length - 2);
+        Assertions.assertThrows(CodecException.class, () -> BinaryProtocol.decodeMessage(truncated));
+        Assertions.assertThrows(CodecException.class, () -> BinaryProtocol.decodeCommand(ByteBuffer.wrap(new byte[]{9})));
+    }
+
+    @Test
+    public void gameFrameIsPackedGame() {
+        ChessGame game = new ChessGame();
+        byte[] frame = BinaryProtocol.encode(new LoadGameMessage(game));
+        Assertions.assertArrayEquals(PackedGame.pack(game), Arrays.copyOfRange(frame, 1, frame.length));
+
+        // 7 is not a piece
+        frame[5] = 0x77;
+        Assertions.assertThrows(CodecException.class, () -> BinaryProtocol.decodeMessage(ByteBuffer.wrap(frame)));
+    }
+
+    private static UserGameCommand decodeCommand(byte[] frame) {
+        return BinaryProtocol.decodeCommand(ByteBuffer.wrap(frame));
+    }
+}
@@ -0,0 +1,77 @@
+package websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.PositionHash;
+import model.GameStatus;
+import org.junit.jupiter.api.*;
+import serialization.JsonCodec;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveUpdateMessage;
+
+public class GameMirrorTests {
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+    private static final ChessMove E5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+
+    private final GameMirror mirror = new GameMirror();
+
+    @Test
+    public void appliesMatchingUpdate() throws Exception {
+        mirror.load(new LoadGameMessage(new ChessGame()));
+        ChessGame server = new ChessGame();
+        server.makeMove(E4);
+
+        Assertions.assertTrue(mirror.apply(new MoveUpdateMessage(E4, PositionHash.of(server), GameStatus.ACTIVE)));
+        Assertions.assertEquals(server, mirror.game());
+        Assertions.assertFalse(mirror.isStale());
+    }
+
+    @Test
+    public void hashMismatchMarksStale() {
+        mirror.load(new LoadGameMessage(new ChessGame()));
+        Assertions.assertFalse(mirror.apply(new MoveUpdateMessage(E4, 42L, GameStatus.ACTIVE)));
+        Assertions.assertTrue(mirror.isStale());
+        // the board is left as it was until a full game arrives
+        Assertions.assertEquals(new ChessGame(), mirror.game());
+    }
+
+    @Test
+    public void moveThatDoesNotApplyMarksStale() {
+        mirror.load(new LoadGameMessage(new ChessGame()));
+        Assertions.assertFalse(mirror.apply(new MoveUpdateMessage(E5, 0L, GameStatus.ACTIVE)));
+        Assertions.assertTrue(mirror.isStale());
+    }
+
+    @Test
+    public void updateBeforeLoadNeedsFullGame() {
+        Assertions.assertTrue(mirror.isStale());
+        Assertions.assertFalse(mirror.apply(new MoveUpdateMessage(E4, 0L, GameStatus.ACTIVE)));
+        mirror.load(new LoadGameMessage(new ChessGame()));
+        Assertions.assertFalse(mirror.isStale());
+    }
+
+    @Test
+    public void hashDependsOnSideToMove() {
+        ChessGame white = new ChessGame();
+        ChessGame black = new ChessGame();
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertNotEquals(PositionHash.of(white), PositionHash.of(black));
+        Assertions.assertEquals(PositionHash.of(white), PositionHash.of(new ChessGame()));
+    }
+
+    @Test
+    public void updateIsMuchSmallerThanFullGame() throws Exception {
+        JsonCodec codec = JsonCodec.named("gson");
+        ChessGame server = new ChessGame();
+        server.makeMove(E4);
+        String update = codec.toJson(new MoveUpdateMessage(E4, PositionHash.of(server), GameStatus.ACTIVE));
+        String full = codec.toJson(new LoadGameMessage(server));
+        Assertions.assertTrue(update.length() * 10 < full.length(), update.length() + " vs " + full.length());
+
+        JsonCodec streaming = JsonCodec.named("streaming");
+        MoveUpdateMessage sent = new MoveUpdateMessage(E4, PositionHash.of(server), GameStatus.CHECK);
+        MoveUpdateMessage decoded = streaming.fromJson(streaming.toJson(sent), MoveUpdateMessage.class);
+        Assertions.assertEquals(sent, decoded);
+    }
+}